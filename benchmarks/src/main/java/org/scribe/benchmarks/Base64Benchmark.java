@@ -0,0 +1,35 @@
+package org.scribe.benchmarks;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.scribe.utils.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base64Benchmark
+{
+  // 20 bytes is a HMAC-SHA1 signature, 128 a RSA-SHA1 one
+  @Param({"20", "128", "1024"})
+  public int size;
+
+  private byte[] bytes;
+
+  @Setup
+  public void setup()
+  {
+    bytes = new byte[size];
+    new Random(3).nextBytes(bytes);
+  }
+
+  @Benchmark
+  public byte[] encodeToByte()
+  {
+    return Base64.encodeToByte(bytes, false);
+  }
+}
@@ -0,0 +1,56 @@
+package org.scribe.benchmarks;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.scribe.extractors.*;
+import org.scribe.model.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractorBenchmark
+{
+  @Param({"4", "16", "64"})
+  public int paramCount;
+
+  @Param({"8", "64", "512"})
+  public int valueLength;
+
+  private OAuthRequest request;
+  private BaseStringExtractorImpl baseStringExtractor;
+  private HeaderExtractorImpl headerExtractor;
+  private Fixtures.NullOutputStream out;
+
+  @Setup
+  public void setup()
+  {
+    request = Fixtures.signedRequest(paramCount, valueLength);
+    baseStringExtractor = new BaseStringExtractorImpl();
+    headerExtractor = new HeaderExtractorImpl();
+    out = new Fixtures.NullOutputStream();
+  }
+
+  @Benchmark
+  public String baseString()
+  {
+    return baseStringExtractor.extract(request);
+  }
+
+  @Benchmark
+  public long baseStringToStream() throws IOException
+  {
+    baseStringExtractor.extract(request, out);
+    return out.count;
+  }
+
+  @Benchmark
+  public String header()
+  {
+    return headerExtractor.extract(request);
+  }
+}
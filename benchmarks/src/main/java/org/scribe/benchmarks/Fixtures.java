@@ -0,0 +1,122 @@
+package org.scribe.benchmarks;
+
+import java.io.*;
+import java.security.*;
+import java.util.*;
+
+import org.scribe.builder.api.*;
+import org.scribe.model.*;
+
+/**
+ * Shared inputs for the benchmarks. Values are derived from fixed seeds so runs are comparable.
+ *
+ * @author Pablo Fernandez
+ */
+final class Fixtures
+{
+  static final String URL = "http://api.example.com/1/statuses/update.json";
+
+  // unreserved chars weighted up, plus the usual suspects that need escaping (space, '&', '=', '/', non ascii)
+  private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._~abcdefghij &=/+%éü中";
+
+  private Fixtures(){}
+
+  static String value(int length, long seed)
+  {
+    Random random = new Random(seed);
+    StringBuilder value = new StringBuilder(length);
+    for (int i = 0; i < length; i++)
+    {
+      value.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    }
+    return value.toString();
+  }
+
+  /**
+   * POST request with half the parameters on the querystring and half on the body.
+   */
+  static OAuthRequest request(int paramCount, int valueLength)
+  {
+    OAuthRequest request = new OAuthRequest(Verb.POST, URL);
+    for (int i = 0; i < paramCount; i++)
+    {
+      String key = "param_" + (paramCount - i);
+      if (i % 2 == 0)
+      {
+        request.addQuerystringParameter(key, value(valueLength, i));
+      }
+      else
+      {
+        request.addBodyParameter(key, value(valueLength, i));
+      }
+    }
+    return request;
+  }
+
+  /**
+   * Same as {@link #request(int, int)}, with the oauth parameters of an already signed request.
+   */
+  static OAuthRequest signedRequest(int paramCount, int valueLength)
+  {
+    OAuthRequest request = request(paramCount, valueLength);
+    request.addOAuthParameter(OAuthConstants.TOKEN, "370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb");
+    request.addOAuthParameter(OAuthConstants.CONSUMER_KEY, "xvz1evFS4wEEPTGEFPHBog");
+    request.addOAuthParameter(OAuthConstants.NONCE, "kYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg");
+    request.addOAuthParameter(OAuthConstants.TIMESTAMP, "1318622958");
+    request.addOAuthParameter(OAuthConstants.SIGN_METHOD, "HMAC-SHA1");
+    request.addOAuthParameter(OAuthConstants.VERSION, "1.0");
+    request.addOAuthParameter(OAuthConstants.SIGNATURE, "tnnArxj06cWHq44gCs1OSKk/jLY=");
+    return request;
+  }
+
+  static PrivateKey privateKey() throws Exception
+  {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(1024);
+    return generator.generateKeyPair().getPrivate();
+  }
+
+  /**
+   * Swallows everything, so streaming benchmarks measure the encoding and not a buffer.
+   */
+  static class NullOutputStream extends OutputStream
+  {
+    long count;
+
+    @Override
+    public void write(int b)
+    {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+    {
+      count += len;
+    }
+  }
+
+  /**
+   * Api that never goes to the network, signRequest only needs its services and extractors.
+   */
+  static class LocalApi extends DefaultApi10a
+  {
+    @Override
+    public String getRequestTokenEndpoint()
+    {
+      return "http://api.example.com/oauth/request_token";
+    }
+
+    @Override
+    public String getAccessTokenEndpoint()
+    {
+      return "http://api.example.com/oauth/access_token";
+    }
+
+    @Override
+    public String getAuthorizationUrl(Token requestToken)
+    {
+      return "http://api.example.com/oauth/authorize?oauth_token=" + requestToken.getToken();
+    }
+  }
+}
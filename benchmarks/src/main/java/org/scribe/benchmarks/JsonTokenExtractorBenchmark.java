@@ -0,0 +1,43 @@
+package org.scribe.benchmarks;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.scribe.extractors.*;
+import org.scribe.model.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonTokenExtractorBenchmark
+{
+  private static final String RESPONSE = "{\"access_token\":\"ya29.AHES6ZRVmB7fkLtd1XTmq6mo0S1wqZZi3-Lh_s-6Uw7p8vtgSwg\","
+      + "\"token_type\":\"Bearer\",\"expires_in\":3600,\"refresh_token\":\"1/xEoDL4iW3cxlI7yDbSRFYNG01kVKM2C-259HOF2aQbI\","
+      + "\"scope\":\"https://www.googleapis.com/auth/userinfo.profile\",\"user_id\":\"1234567890\","
+      + "\"user\":{\"name\":\"Jane \\\"JD\\\" Doe\",\"emails\":[\"jane@example.com\",\"jd@example.com\"]}}";
+
+  private JsonTokenExtractor everyField;
+  private JsonTokenExtractor namedFields;
+
+  @Setup
+  public void setup()
+  {
+    everyField = new JsonTokenExtractor();
+    namedFields = new JsonTokenExtractor("user_id");
+  }
+
+  @Benchmark
+  public Token everyField()
+  {
+    return everyField.extract(RESPONSE);
+  }
+
+  @Benchmark
+  public Token namedFields()
+  {
+    return namedFields.extract(RESPONSE);
+  }
+}
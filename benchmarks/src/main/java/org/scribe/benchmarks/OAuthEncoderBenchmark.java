@@ -0,0 +1,55 @@
+package org.scribe.benchmarks;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.scribe.utils.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OAuthEncoderBenchmark
+{
+  @Param({"8", "64", "512"})
+  public int valueLength;
+
+  private String plain;
+  private String encoded;
+  private Fixtures.NullOutputStream out;
+
+  @Setup
+  public void setup()
+  {
+    plain = Fixtures.value(valueLength, 1);
+    encoded = OAuthEncoder.encode(plain);
+    out = new Fixtures.NullOutputStream();
+  }
+
+  @Benchmark
+  public String encode()
+  {
+    return OAuthEncoder.encode(plain);
+  }
+
+  @Benchmark
+  public int encodeToStream() throws IOException
+  {
+    return OAuthEncoder.encode(plain, out);
+  }
+
+  @Benchmark
+  public int encodeTwiceToStream() throws IOException
+  {
+    return OAuthEncoder.encodeTwice(plain, out);
+  }
+
+  @Benchmark
+  public String decode()
+  {
+    return OAuthEncoder.decode(encoded);
+  }
+}
@@ -0,0 +1,61 @@
+package org.scribe.benchmarks;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.scribe.*;
+import org.scribe.model.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterListBenchmark
+{
+  @Param({"4", "16", "64"})
+  public int paramCount;
+
+  @Param({"8", "64", "512"})
+  public int valueLength;
+
+  private ParameterList params;
+  private Fixtures.NullOutputStream out;
+
+  @Setup
+  public void setup()
+  {
+    params = new ParameterList();
+    for (int i = 0; i < paramCount; i++)
+    {
+      params.add("param_" + (paramCount - i), Fixtures.value(valueLength, i));
+    }
+    out = new Fixtures.NullOutputStream();
+  }
+
+  @Benchmark
+  public ParameterList sort()
+  {
+    return params.sort();
+  }
+
+  @Benchmark
+  public long writeUrlEncoded()
+  {
+    return params.writeTo(IParameter.ENCODING_URL, out);
+  }
+
+  @Benchmark
+  public long writeOAuthBase() throws IOException
+  {
+    return params.writeOAuthBase(out);
+  }
+
+  @Benchmark
+  public String appendTo()
+  {
+    return params.appendTo(Fixtures.URL);
+  }
+}
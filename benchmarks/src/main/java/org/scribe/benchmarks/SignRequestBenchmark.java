@@ -0,0 +1,77 @@
+package org.scribe.benchmarks;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.scribe.builder.*;
+import org.scribe.model.*;
+import org.scribe.oauth.*;
+
+/**
+ * OAuth10aServiceImpl.signRequest end to end: timestamp and nonce, base string, signature and header (or querystring).
+ * Requests are single use, so {@link #createRequest()} is the baseline to subtract.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignRequestBenchmark
+{
+  @Param({"4", "16", "64"})
+  public int paramCount;
+
+  @Param({"8", "64", "512"})
+  public int valueLength;
+
+  @Param({"Header", "QueryString"})
+  public SignatureType signatureType;
+
+  private OAuthService service;
+  private Token token;
+  private String[] values;
+
+  @Setup
+  public void setup()
+  {
+    service = new ServiceBuilder()
+                  .provider(new Fixtures.LocalApi())
+                  .apiKey("xvz1evFS4wEEPTGEFPHBog")
+                  .apiSecret("kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw")
+                  .signatureType(signatureType)
+                  .build();
+    token = new Token("370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb", "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE");
+    values = new String[paramCount];
+    for (int i = 0; i < paramCount; i++)
+    {
+      values[i] = Fixtures.value(valueLength, i);
+    }
+  }
+
+  @Benchmark
+  public OAuthRequest createRequest()
+  {
+    OAuthRequest request = new OAuthRequest(Verb.POST, Fixtures.URL);
+    for (int i = 0; i < values.length; i++)
+    {
+      if (i % 2 == 0)
+      {
+        request.addQuerystringParameter("param_" + i, values[i]);
+      }
+      else
+      {
+        request.addBodyParameter("param_" + i, values[i]);
+      }
+    }
+    return request;
+  }
+
+  @Benchmark
+  public OAuthRequest signRequest()
+  {
+    OAuthRequest request = createRequest();
+    service.signRequest(token, request);
+    return request;
+  }
+}
@@ -0,0 +1,79 @@
+package org.scribe.benchmarks;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.scribe.builder.*;
+import org.scribe.model.*;
+import org.scribe.oauth.*;
+
+/**
+ * Batches signed one signRequest call at a time vs OAuthService.signRequests on a pool of every core.
+ * Requests are single use, so {@link #createBatch()} is the baseline to subtract.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignRequestsBenchmark
+{
+  @Param({"64", "1024", "16384"})
+  public int batchSize;
+
+  private OAuthService service;
+  private Token token;
+  private ExecutorService executor;
+
+  @Setup
+  public void setup()
+  {
+    service = new ServiceBuilder()
+                  .provider(new Fixtures.LocalApi())
+                  .apiKey("xvz1evFS4wEEPTGEFPHBog")
+                  .apiSecret("kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw")
+                  .build();
+    token = new Token("370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb", "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE");
+    executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    executor.shutdown();
+  }
+
+  @Benchmark
+  public List<OAuthRequest> createBatch()
+  {
+    List<OAuthRequest> batch = new ArrayList<OAuthRequest>(batchSize);
+    for (int i = 0; i < batchSize; i++)
+    {
+      OAuthRequest request = new OAuthRequest(Verb.GET, Fixtures.URL);
+      request.addQuerystringParameter("page", Integer.toString(i));
+      batch.add(request);
+    }
+    return batch;
+  }
+
+  @Benchmark
+  public List<OAuthRequest> signOneByOne()
+  {
+    List<OAuthRequest> batch = createBatch();
+    for (OAuthRequest request : batch)
+    {
+      service.signRequest(token, request);
+    }
+    return batch;
+  }
+
+  @Benchmark
+  public List<OAuthRequest> signRequests()
+  {
+    List<OAuthRequest> batch = createBatch();
+    service.signRequests(token, batch, executor);
+    return batch;
+  }
+}
@@ -0,0 +1,77 @@
+package org.scribe.benchmarks;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.scribe.services.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureServiceBenchmark
+{
+  private static final String API_SECRET = "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw";
+  private static final String TOKEN_SECRET = "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE";
+
+  @Param({"HMAC-SHA1", "HMAC-SHA1-cached", "RSA-SHA1", "RSA-SHA1-pooled", "PLAINTEXT"})
+  public String method;
+
+  @Param({"64", "1024", "16384"})
+  public int baseStringLength;
+
+  private SignatureService service;
+  private String baseString;
+  private byte[] baseStringBytes;
+
+  @Setup
+  public void setup() throws Exception
+  {
+    if (method.equals("HMAC-SHA1"))
+    {
+      service = new HMACSha1SignatureService();
+    }
+    else if (method.equals("HMAC-SHA1-cached"))
+    {
+      service = new HMACSha1SignatureService(64);
+    }
+    else if (method.equals("RSA-SHA1"))
+    {
+      service = new RSASha1SignatureService(Fixtures.privateKey());
+    }
+    else if (method.equals("RSA-SHA1-pooled"))
+    {
+      service = new RSASha1SignatureService(Fixtures.privateKey(), true);
+    }
+    else
+    {
+      service = new PlaintextSignatureService();
+    }
+    baseString = Fixtures.value(baseStringLength, 7);
+    baseStringBytes = baseString.getBytes("UTF-8");
+  }
+
+  @Benchmark
+  public String sign()
+  {
+    return service.getSignature(baseString, API_SECRET, TOKEN_SECRET);
+  }
+
+  /**
+   * Plaintext signatures can't be streamed, they fall back to {@link #sign()}.
+   */
+  @Benchmark
+  public String signStreamed() throws IOException
+  {
+    if (!(service instanceof StreamingSignatureService))
+    {
+      return sign();
+    }
+    SignatureOutputStream stream = ((StreamingSignatureService) service).newSignatureStream(API_SECRET, TOKEN_SECRET);
+    stream.write(baseStringBytes);
+    return stream.getSignature();
+  }
+}
@@ -0,0 +1,70 @@
+package org.scribe.benchmarks;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.scribe.services.*;
+
+/**
+ * Nonce and timestamp generation, on one thread and on every core (throughput should grow with the cores).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampServiceBenchmark
+{
+  private TimestampService legacy;
+  private TimestampService unique;
+
+  @Setup
+  public void setup()
+  {
+    legacy = new TimestampServiceImpl();
+    unique = new UniqueTimestampService();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String legacyNonceSingleThread()
+  {
+    return legacy.getNonce();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public String legacyNonceAllCores()
+  {
+    return legacy.getNonce();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String uniqueNonceSingleThread()
+  {
+    return unique.getNonce();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public String uniqueNonceAllCores()
+  {
+    return unique.getNonce();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public String legacyTimestampAllCores()
+  {
+    return legacy.getTimestampInSeconds();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public String uniqueTimestampAllCores()
+  {
+    return unique.getTimestampInSeconds();
+  }
+}
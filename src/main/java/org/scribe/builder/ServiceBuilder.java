@@ -1,10 +1,16 @@
 package org.scribe.builder;
 
 import java.io.*;
+import java.util.concurrent.*;
+
 import org.scribe.builder.api.*;
 import org.scribe.exceptions.*;
+import org.scribe.log.*;
+import org.scribe.metrics.*;
 import org.scribe.model.*;
 import org.scribe.oauth.*;
+import org.scribe.services.*;
+import org.scribe.transport.*;
 import org.scribe.utils.*;
 
 /**
@@ -23,6 +29,18 @@ public class ServiceBuilder
   private String scope;
   private SignatureType signatureType;
   private OutputStream debugStream;
+  private HttpTransport transport;
+  private AsyncDispatcher asyncDispatcher;
+  private SignatureService signatureService;
+  private boolean responseCompression;
+  private int bodyCompressionThreshold;
+  private TokenStore tokenStore;
+  private long refreshAhead;
+  private ScheduledExecutorService refreshScheduler;
+  private RetryPolicy retryPolicy;
+  private RateLimitTracker rateLimitTracker;
+  private MetricsListener metricsListener;
+  private Logger logger;
   
   /**
    * Default constructor
@@ -32,6 +50,8 @@ public class ServiceBuilder
     this.callback = OAuthConstants.OUT_OF_BAND;
     this.signatureType = SignatureType.Header;
     this.debugStream = null;
+    this.responseCompression = true;
+    this.bodyCompressionThreshold = -1;
   }
   
   /**
@@ -141,6 +161,182 @@ public class ServiceBuilder
     return this;
   }
 
+  /**
+   * Configures the {@link HttpTransport} requests are sent through. Defaults to a shared {@link RouteLimitingHttpTransport}
+   *
+   * @param transport the transport
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder transport(HttpTransport transport)
+  {
+    Preconditions.checkNotNull(transport, "Transport can't be null");
+    this.transport = transport;
+    return this;
+  }
+
+  /**
+   * Configures the {@link AsyncDispatcher} running asynchronous calls (executor and in-flight limit)
+   *
+   * @param asyncDispatcher the dispatcher
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder asyncDispatcher(AsyncDispatcher asyncDispatcher)
+  {
+    Preconditions.checkNotNull(asyncDispatcher, "Async dispatcher can't be null");
+    this.asyncDispatcher = asyncDispatcher;
+    return this;
+  }
+
+  /**
+   * Opts into thread-per-call execution: every asynchronous call runs on a fresh thread from the factory,
+   * at most {@link AsyncDispatcher#DEFAULT_MAX_IN_FLIGHT} at a time. Meant for virtual threads
+   * (<code>Thread.ofVirtual().factory()</code>), which the signing and sending pipeline never pins.
+   *
+   * @param threadFactory factory creating one thread per call
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder threadPerCall(ThreadFactory threadFactory)
+  {
+    Preconditions.checkNotNull(threadFactory, "Thread factory can't be null");
+    return asyncDispatcher(new AsyncDispatcher(threadFactory, AsyncDispatcher.DEFAULT_MAX_IN_FLIGHT));
+  }
+
+  /**
+   * Overrides the {@link SignatureService} of the api (OAuth 1.0a only). The same instance signs every request,
+   * e.g. <code>new HMACSha1SignatureService(256)</code> to reuse initialized Macs.
+   *
+   * @param signatureService the signature service
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder signatureService(SignatureService signatureService)
+  {
+    Preconditions.checkNotNull(signatureService, "Signature service can't be null");
+    this.signatureService = signatureService;
+    return this;
+  }
+
+  /**
+   * Configures whether responses may come gzip/deflate compressed (decoded on the fly). Defaults to true
+   *
+   * @param responseCompression false to always ask for uncompressed responses
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder responseCompression(boolean responseCompression)
+  {
+    this.responseCompression = responseCompression;
+    return this;
+  }
+
+  /**
+   * Gzips request bodies of at least <code>threshold</code> bytes while sending them (Content-Encoding: gzip).
+   * Only for providers accepting compressed requests. Off by default
+   *
+   * @param threshold minimum body length to compress, in bytes
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder bodyCompression(int threshold)
+  {
+    if (threshold < 0)
+    {
+      throw new IllegalArgumentException("Body compression threshold can't be negative");
+    }
+    this.bodyCompressionThreshold = threshold;
+    return this;
+  }
+
+  /**
+   * Configures the {@link TokenStore} access tokens are kept in by user, see {@link OAuthService#signRequest(String, OAuthRequest)}.
+   * Defaults to an {@link InMemoryTokenStore}
+   *
+   * @param tokenStore the token store, e.g. a {@link FileTokenStore}
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder tokenStore(TokenStore tokenStore)
+  {
+    Preconditions.checkNotNull(tokenStore, "Token store can't be null");
+    this.tokenStore = tokenStore;
+    return this;
+  }
+
+  /**
+   * Refreshes OAuth 2.0 access tokens kept in the {@link TokenStore} in the background, <code>time</code> before
+   * they expire (tokens need a refresh token and an expiration time). Off by default
+   *
+   * @param time how long before expiring
+   * @param unit unit of time
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder refreshAhead(long time, TimeUnit unit)
+  {
+    if (time <= 0)
+    {
+      throw new IllegalArgumentException("Refresh ahead time must be positive");
+    }
+    this.refreshAhead = unit.toMillis(time);
+    return this;
+  }
+
+  /**
+   * Same as {@link #refreshAhead(long, TimeUnit)}, timing the refreshes with the given scheduler
+   * instead of a shared daemon thread
+   *
+   * @param time how long before expiring
+   * @param unit unit of time
+   * @param scheduler scheduler timing the refreshes
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder refreshAhead(long time, TimeUnit unit, ScheduledExecutorService scheduler)
+  {
+    Preconditions.checkNotNull(scheduler, "Refresh scheduler can't be null");
+    this.refreshScheduler = scheduler;
+    return refreshAhead(time, unit);
+  }
+
+  /**
+   * Retries the requests of the service (token requests and signed requests) that fail with a connection error
+   * or an overloaded provider answer, and stops sending them while the provider keeps failing.
+   * OAuth 1.0a requests are signed again, with a fresh timestamp and nonce, on each attempt. Off by default
+   *
+   * Build every service of the same provider with the same policy, so they share its {@link CircuitBreaker}.
+   *
+   * @param retryPolicy the policy, e.g. a default {@link RetryPolicy}
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder retryPolicy(RetryPolicy retryPolicy)
+  {
+    Preconditions.checkNotNull(retryPolicy, "Retry policy can't be null");
+    this.retryPolicy = retryPolicy;
+    return this;
+  }
+
+  /**
+   * Keeps the rate limits the provider reports in its response headers, per access token (and per app for the
+   * token requests), and holds back requests that would exceed them. Off by default
+   *
+   * @param rateLimitTracker the tracker, also giving the current budgets to schedulers
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder rateLimitTracker(RateLimitTracker rateLimitTracker)
+  {
+    Preconditions.checkNotNull(rateLimitTracker, "Rate limit tracker can't be null");
+    this.rateLimitTracker = rateLimitTracker;
+    return this;
+  }
+
+  /**
+   * Reports the timings of each phase of the calls (base string, signature, connect, first byte, body read),
+   * the bytes sent and received and the errors, per endpoint. Off by default
+   *
+   * @param metricsListener the listener, e.g. a {@link HistogramMetrics} published over JMX
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder metricsListener(MetricsListener metricsListener)
+  {
+    Preconditions.checkNotNull(metricsListener, "Metrics listener can't be null");
+    this.metricsListener = metricsListener;
+    return this;
+  }
+
   public ServiceBuilder debugStream(OutputStream stream)
   {
     Preconditions.checkNotNull(stream, "debug stream can't be null");
@@ -153,6 +349,21 @@ public class ServiceBuilder
     this.debugStream(System.out);
     return this;
   }
+
+  /**
+   * Configures the logging of the service, in place of the debug stream: the level, the sampling and where the
+   * messages go, e.g. {@code new Logger(new AsyncLogSink(new StreamLogSink(System.out)), LogLevel.DEBUG, 10)} to keep
+   * the writes off the request threads
+   *
+   * @param logger the logger
+   * @return the {@link ServiceBuilder} instance for method chaining
+   */
+  public ServiceBuilder logger(Logger logger)
+  {
+    Preconditions.checkNotNull(logger, "Logger can't be null");
+    this.logger = logger;
+    return this;
+  }
   
   /**
    * Returns the fully configured {@link OAuthService}
@@ -164,6 +375,18 @@ public class ServiceBuilder
     Preconditions.checkNotNull(api, "You must specify a valid api through the provider() method");
     Preconditions.checkEmptyString(apiKey, "You must provide an api key");
     Preconditions.checkEmptyString(apiSecret, "You must provide an api secret");
-    return api.createService(new OAuthConfig(apiKey, apiSecret, callback, signatureType, scope, debugStream));
+    OAuthConfig.Options options = new OAuthConfig.Options()
+        .transport(transport)
+        .asyncDispatcher(asyncDispatcher)
+        .signatureService(signatureService)
+        .responseCompression(responseCompression)
+        .bodyCompressionThreshold(bodyCompressionThreshold)
+        .tokenStore(tokenStore)
+        .refreshAhead(refreshAhead, refreshScheduler)
+        .retryPolicy(retryPolicy)
+        .rateLimitTracker(rateLimitTracker)
+        .metrics(metricsListener == null ? null : new Metrics(metricsListener, api.getClass().getSimpleName()))
+        .logger(logger);
+    return api.createService(new OAuthConfig(apiKey, apiSecret, callback, signatureType, scope, debugStream, options));
   }
 }
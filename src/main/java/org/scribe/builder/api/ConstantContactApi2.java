@@ -1,7 +1,5 @@
 package org.scribe.builder.api;
 
-import java.util.regex.*;
-import org.scribe.exceptions.*;
 import org.scribe.extractors.*;
 import org.scribe.model.*;
 import org.scribe.utils.*;
@@ -31,25 +29,6 @@ public class ConstantContactApi2 extends DefaultApi20
   @Override
   public AccessTokenExtractor getAccessTokenExtractor()
   {
-    return new AccessTokenExtractor()
-    {
-
-      public Token extract(String response)
-      {
-        Preconditions.checkEmptyString(response, "Response body is incorrect. Can't extract a token from an empty string");
-
-        String regex = "\"access_token\"\\s*:\\s*\"([^&\"]+)\"";
-        Matcher matcher = Pattern.compile(regex).matcher(response);
-        if (matcher.find())
-        {
-          String token = OAuthEncoder.decode(matcher.group(1));
-          return new Token(token, "", response);
-        } 
-        else
-        {
-          throw new OAuthException("Response body is incorrect. Can't extract a token from this: '" + response + "'", null);
-        }
-      }
-    };
+    return new JsonTokenExtractor();
   }
 }
\ No newline at end of file
@@ -80,7 +80,7 @@ public abstract class DefaultApi10a implements Api
    */
   public TimestampService getTimestampService()
   {
-    return new TimestampServiceImpl();
+    return new UniqueTimestampService();
   }
   
   /**
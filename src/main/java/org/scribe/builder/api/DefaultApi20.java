@@ -49,6 +49,26 @@ public abstract class DefaultApi20 implements Api
    * @return access token URL
    */
   public abstract String getAccessTokenEndpoint();
+
+  /**
+   * Returns the verb for the refresh token endpoint (defaults to POST)
+   * 
+   * @return refresh token endpoint verb
+   */
+  public Verb getRefreshTokenVerb()
+  {
+    return Verb.POST;
+  }
+
+  /**
+   * Returns the URL that receives the refresh token requests (defaults to the access token endpoint)
+   * 
+   * @return refresh token URL
+   */
+  public String getRefreshTokenEndpoint()
+  {
+    return getAccessTokenEndpoint();
+  }
 	
   /**
    * Returns the URL where you should redirect your users to authenticate
@@ -0,0 +1,35 @@
+package org.scribe.exceptions;
+
+/**
+ * Specialized exception that represents a request held back because it would exceed the provider's rate limit
+ * 
+ * @author Pablo Fernandez
+ */
+public class OAuthRateLimitException extends OAuthException
+{
+  private static final long serialVersionUID = 1L;
+  private static final String MSG = "Rate limit exhausted until %tc";
+
+  private final long resetAt;
+
+  /**
+   * Default constructor
+   * 
+   * @param resetAt time the rate limit resets at, in milliseconds
+   */
+  public OAuthRateLimitException(long resetAt)
+  {
+    super(String.format(MSG, resetAt));
+    this.resetAt = resetAt;
+  }
+
+  /**
+   * Returns when requests can be sent again
+   * 
+   * @return time in milliseconds
+   */
+  public long getResetAt()
+  {
+    return resetAt;
+  }
+}
@@ -1,9 +1,8 @@
 package org.scribe.extractors;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.*;
+import java.util.*;
 
-import org.scribe.IParameter;
 import org.scribe.exceptions.*;
 import org.scribe.model.*;
 import org.scribe.utils.*;
@@ -14,38 +13,51 @@ import org.scribe.utils.*;
  * @author Pablo Fernandez
  *
  */
-public class BaseStringExtractorImpl implements BaseStringExtractor
+public class BaseStringExtractorImpl implements StreamingBaseStringExtractor
 {
-
-  private static final String AMPERSAND_SEPARATED_STRING = "%s&%s&%s";
+  private static final String ASCII = "US-ASCII";
+  private static final char SEPARATOR = '&';
+  private static final int ESTIMATED_LENGTH = 256;
 
   /**
    * {@inheritDoc}
    */
   public String extract(OAuthRequest request)
+  {
+    ByteArrayOutputStream baseString = new ByteArrayOutputStream(ESTIMATED_LENGTH);
+    try
+    {
+      extract(request, baseString);
+      return baseString.toString(ASCII);
+    }
+    catch (IOException e)
+    {
+      throw new OAuthException("Error while building the base string of " + request, e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void extract(OAuthRequest request, OutputStream out) throws IOException
   {
     checkPreconditions(request);
-    String verb = OAuthEncoder.encode(request.getVerb().name());
-    String url = OAuthEncoder.encode(request.getSanitizedUrl());
-    String params = getSortedAndEncodedParams(request);
-    return String.format(AMPERSAND_SEPARATED_STRING, verb, url, params);
+    OAuthEncoder.encode(request.getVerb().name(), out);
+    out.write(SEPARATOR);
+    OAuthEncoder.encode(request.getSanitizedUrl(), out);
+    out.write(SEPARATOR);
+    getSortedParams(request).writeOAuthBase(out);
   }
 
-  private String getSortedAndEncodedParams(OAuthRequest request)
+  private ParameterList getSortedParams(OAuthRequest request)
   {
-    ParameterList params = new ParameterList();
-    params.addAll(request.getQueryStringParams());
+    ParameterList params = request.getQueryStringParams();
     params.addAll(request.getBodyParams());
-    params.addAll(new ParameterList(request.getOauthParameters()));
-    ByteArrayOutputStream bOutStr = new ByteArrayOutputStream();
-    params.sort().writeTo(IParameter.ENCODING_OAUTHBASE, bOutStr);
-    final String baseStr = bOutStr.toString();
-    try {
-		bOutStr.close();
-	} catch (IOException e) {
-		e.printStackTrace();
-	}
-    return baseStr;
+    for (Map.Entry<String, String> entry : request.getOauthParameters().entrySet())
+    {
+      params.add(entry.getKey(), entry.getValue());
+    }
+    return params.sort();
   }
 
   private void checkPreconditions(OAuthRequest request)
@@ -33,7 +33,17 @@ public class HeaderExtractorImpl implements HeaderExtractor
       { 
         header.append(PARAM_SEPARATOR);
       }
-      header.append(String.format("%s=\"%s\"", entry.getKey(), OAuthEncoder.encode(entry.getValue())));
+      header.append(entry.getKey()).append("=\"");
+      String encoded = request.getEncodedOAuthParameter(entry.getKey());
+      if (encoded != null)
+      {
+        header.append(encoded);
+      }
+      else
+      {
+        OAuthEncoder.encode(entry.getValue(), header);
+      }
+      header.append('"');
     }
     return header.toString();
   }
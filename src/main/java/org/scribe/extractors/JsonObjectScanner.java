@@ -0,0 +1,233 @@
+package org.scribe.extractors;
+
+import org.scribe.exceptions.*;
+
+/**
+ * Single pass scanner over the fields of a JSON object, without building a tree: keys are compared in place, and
+ * only the values asked for are copied out. Nested objects and arrays are skipped over, or returned as their JSON
+ * text. Anything before the opening brace (e.g. a JSONP wrapper) or after the closing one is ignored.
+ *
+ * @author Pablo Fernandez
+ */
+class JsonObjectScanner
+{
+  private final String json;
+  private int pos;
+  private int keyStart;
+  private int keyEnd;
+  private boolean keyEscaped;
+  private boolean first = true;
+
+  /**
+   * @param json text holding the object
+   * @throws OAuthException if there's no object
+   */
+  JsonObjectScanner(String json)
+  {
+    this.json = json;
+    this.pos = json.indexOf('{');
+    if (pos < 0)
+    {
+      throw malformed("no JSON object");
+    }
+    pos++;
+  }
+
+  /**
+   * Moves to the next field, its value is then read with {@link #value()} or skipped with {@link #skip()}
+   *
+   * @return false once the object is over
+   */
+  boolean next()
+  {
+    skipWhitespace();
+    if (peek() == '}')
+    {
+      return false;
+    }
+    if (!first)
+    {
+      expect(',');
+      skipWhitespace();
+    }
+    first = false;
+    expect('"');
+    keyStart = pos;
+    keyEscaped = scanString();
+    keyEnd = pos - 1;
+    skipWhitespace();
+    expect(':');
+    skipWhitespace();
+    return true;
+  }
+
+  /**
+   * Whether the current field has the given name
+   */
+  boolean isKey(String name)
+  {
+    if (keyEscaped)
+    {
+      return key().equals(name);
+    }
+    return keyEnd - keyStart == name.length() && json.regionMatches(keyStart, name, 0, name.length());
+  }
+
+  /**
+   * Returns the name of the current field
+   */
+  String key()
+  {
+    return keyEscaped ? unescape(keyStart, keyEnd) : json.substring(keyStart, keyEnd);
+  }
+
+  /**
+   * Reads the value of the current field
+   *
+   * @return strings unescaped, null for null, the JSON text of anything else (numbers, booleans, objects, arrays)
+   */
+  String value()
+  {
+    if (peek() == '"')
+    {
+      pos++;
+      int start = pos;
+      boolean escaped = scanString();
+      return escaped ? unescape(start, pos - 1) : json.substring(start, pos - 1);
+    }
+    int start = pos;
+    skip();
+    String value = json.substring(start, pos);
+    return value.equals("null") ? null : value;
+  }
+
+  /**
+   * Skips the value of the current field
+   */
+  void skip()
+  {
+    int depth = 0;
+    while (pos < json.length())
+    {
+      char c = json.charAt(pos);
+      if (c == '"')
+      {
+        pos++;
+        scanString();
+        continue;
+      }
+      if (c == '{' || c == '[')
+      {
+        depth++;
+      }
+      else if (c == '}' || c == ']')
+      {
+        if (depth == 0)
+        {
+          return;
+        }
+        depth--;
+      }
+      else if (depth == 0 && (c == ',' || Character.isWhitespace(c)))
+      {
+        return;
+      }
+      pos++;
+    }
+  }
+
+  /**
+   * Moves past the closing quote of the string starting at the current position
+   *
+   * @return whether the string holds escapes
+   */
+  private boolean scanString()
+  {
+    boolean escaped = false;
+    while (pos < json.length())
+    {
+      char c = json.charAt(pos++);
+      if (c == '"')
+      {
+        return escaped;
+      }
+      if (c == '\\')
+      {
+        escaped = true;
+        pos++;
+      }
+    }
+    throw malformed("unterminated string");
+  }
+
+  private String unescape(int start, int end)
+  {
+    StringBuilder result = new StringBuilder(end - start);
+    for (int i = start; i < end; i++)
+    {
+      char c = json.charAt(i);
+      if (c != '\\')
+      {
+        result.append(c);
+        continue;
+      }
+      char escape = json.charAt(++i);
+      switch (escape)
+      {
+        case 'b': result.append('\b'); break;
+        case 'f': result.append('\f'); break;
+        case 'n': result.append('\n'); break;
+        case 'r': result.append('\r'); break;
+        case 't': result.append('\t'); break;
+        case 'u':
+          if (i + 4 >= end)
+          {
+            throw malformed("truncated unicode escape");
+          }
+          try
+          {
+            result.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+          }
+          catch (NumberFormatException e)
+          {
+            throw malformed("invalid unicode escape");
+          }
+          i += 4;
+          break;
+        default: result.append(escape);
+      }
+    }
+    return result.toString();
+  }
+
+  private char peek()
+  {
+    if (pos >= json.length())
+    {
+      throw malformed("unexpected end");
+    }
+    return json.charAt(pos);
+  }
+
+  private void expect(char c)
+  {
+    if (peek() != c)
+    {
+      throw malformed("expected '" + c + "' at " + pos);
+    }
+    pos++;
+  }
+
+  private void skipWhitespace()
+  {
+    while (pos < json.length() && Character.isWhitespace(json.charAt(pos)))
+    {
+      pos++;
+    }
+  }
+
+  private OAuthException malformed(String problem)
+  {
+    return new OAuthException("Cannot extract an acces token, malformed JSON (" + problem + "). Response was: " + json);
+  }
+}
@@ -1,27 +1,118 @@
 package org.scribe.extractors;
 
-import java.util.regex.*;
+import java.util.*;
 
 import org.scribe.exceptions.*;
 import org.scribe.model.*;
 import org.scribe.utils.*;
 
+/**
+ * Extracts OAuth 2.0 tokens from JSON responses in a single pass: the access token, its type, expiration, refresh
+ * token and scope, and the other fields of the response as token parameters (see {@link Token#getParameter(String)}).
+ *
+ * Nested objects and arrays are kept as their JSON text. When only some extra fields are wanted, naming them stops
+ * the scan as soon as they and the standard fields are found.
+ */
 public class JsonTokenExtractor implements AccessTokenExtractor
 {
-  private Pattern accessTokenPattern = Pattern.compile("\"access_token\":\\s*\"(\\S*?)\"");
+  private static final String ACCESS_TOKEN = "access_token";
+  private static final String TOKEN_TYPE = "token_type";
+  private static final String EXPIRES_IN = "expires_in";
+  private static final String REFRESH_TOKEN = "refresh_token";
+  private static final String SCOPE = "scope";
+  private static final int STANDARD_FIELDS = 5;
+
+  private final Set<String> extraFields;
+
+  /**
+   * Keeps every field of the response
+   */
+  public JsonTokenExtractor()
+  {
+    this.extraFields = null;
+  }
+
+  /**
+   * Keeps only the given fields besides the standard ones
+   *
+   * @param extraFields names of the fields kept as token parameters
+   */
+  public JsonTokenExtractor(String... extraFields)
+  {
+    this.extraFields = new HashSet<String>(Arrays.asList(extraFields));
+  }
 
   public Token extract(String response)
   {
     Preconditions.checkEmptyString(response, "Cannot extract a token from a null or empty String");
-    Matcher matcher = accessTokenPattern.matcher(response);
-    if(matcher.find())
+    JsonObjectScanner scanner = new JsonObjectScanner(response);
+    String accessToken = null;
+    String tokenType = null;
+    String expiresIn = null;
+    String refreshToken = null;
+    String scope = null;
+    Map<String, String> parameters = null;
+    int wanted = extraFields == null ? -1 : STANDARD_FIELDS + extraFields.size();
+    int found = 0;
+    while (found != wanted && scanner.next())
     {
-      return new Token(matcher.group(1), "", response);
+      if (scanner.isKey(ACCESS_TOKEN))
+      {
+        accessToken = scanner.value();
+      }
+      else if (scanner.isKey(TOKEN_TYPE))
+      {
+        tokenType = scanner.value();
+      }
+      else if (scanner.isKey(EXPIRES_IN))
+      {
+        expiresIn = scanner.value();
+      }
+      else if (scanner.isKey(REFRESH_TOKEN))
+      {
+        refreshToken = scanner.value();
+      }
+      else if (scanner.isKey(SCOPE))
+      {
+        scope = scanner.value();
+      }
+      else
+      {
+        String key = scanner.key();
+        if (extraFields != null && !extraFields.contains(key))
+        {
+          scanner.skip();
+          continue;
+        }
+        if (parameters == null)
+        {
+          parameters = new LinkedHashMap<String, String>();
+        }
+        parameters.put(key, scanner.value());
+      }
+      found++;
     }
-    else
+    if (accessToken == null)
     {
       throw new OAuthException("Cannot extract an acces token. Response was: " + response);
     }
+    return new Token(accessToken, "", response, expiresIn != null ? expiresAt(expiresIn) : 0, refreshToken, tokenType,
+        scope, parameters);
   }
 
-}
\ No newline at end of file
+  /**
+   * Turns a token lifetime in seconds into an expiration time, 0 (doesn't expire) if it can't be parsed
+   */
+  static long expiresAt(String expiresIn)
+  {
+    try
+    {
+      long seconds = Long.parseLong(expiresIn);
+      return seconds > 0 ? System.currentTimeMillis() + seconds * 1000 : 0;
+    }
+    catch (NumberFormatException e)
+    {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package org.scribe.extractors;
+
+import java.io.*;
+
+import org.scribe.model.*;
+
+/**
+ * {@link BaseStringExtractor} that can write the base string straight to a stream (usually the one
+ * computing the signature), so the base string is never materialized.
+ *
+ * @author Pablo Fernandez
+ */
+public interface StreamingBaseStringExtractor extends BaseStringExtractor
+{
+  /**
+   * Writes the url-encoded base string of the {@link OAuthRequest} to the stream, as ASCII bytes.
+   *
+   * @param request the OAuthRequest
+   * @param out the stream to write the base string to
+   * @throws IOException if the stream fails
+   */
+  void extract(OAuthRequest request, OutputStream out) throws IOException;
+}
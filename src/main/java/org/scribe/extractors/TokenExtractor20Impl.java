@@ -9,10 +9,13 @@ import org.scribe.utils.*;
 /**
  * Default implementation of {@AccessTokenExtractor}. Conforms to OAuth 2.0
  *
+ * Besides the access token, extracts its lifetime (expires_in, or Facebook's expires) and the refresh token, if any.
  */
 public class TokenExtractor20Impl implements AccessTokenExtractor
 {
-  private static final String TOKEN_REGEX = "access_token=([^&]+)";
+  private static final Pattern TOKEN_REGEX = Pattern.compile("access_token=([^&]+)");
+  private static final Pattern EXPIRES_REGEX = Pattern.compile("(?:^|&)expires(?:_in)?=([0-9]+)");
+  private static final Pattern REFRESH_TOKEN_REGEX = Pattern.compile("refresh_token=([^&]+)");
   private static final String EMPTY_SECRET = "";
 
   /**
@@ -22,15 +25,27 @@ public class TokenExtractor20Impl implements AccessTokenExtractor
   {
     Preconditions.checkEmptyString(response, "Response body is incorrect. Can't extract a token from an empty string");
 
-    Matcher matcher = Pattern.compile(TOKEN_REGEX).matcher(response);
+    Matcher matcher = TOKEN_REGEX.matcher(response);
     if (matcher.find())
     {
       String token = OAuthEncoder.decode(matcher.group(1));
-      return new Token(token, EMPTY_SECRET, response);
+      return new Token(token, EMPTY_SECRET, response, extractExpiresAt(response), extractRefreshToken(response));
     } 
     else
     {
       throw new OAuthException("Response body is incorrect. Can't extract a token from this: '" + response + "'", null);
     }
   }
+
+  private static long extractExpiresAt(String response)
+  {
+    Matcher matcher = EXPIRES_REGEX.matcher(response);
+    return matcher.find() ? JsonTokenExtractor.expiresAt(matcher.group(1)) : 0;
+  }
+
+  private static String extractRefreshToken(String response)
+  {
+    Matcher matcher = REFRESH_TOKEN_REGEX.matcher(response);
+    return matcher.find() ? OAuthEncoder.decode(matcher.group(1)) : null;
+  }
 }
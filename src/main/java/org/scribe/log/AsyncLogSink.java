@@ -0,0 +1,157 @@
+package org.scribe.log;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Takes the writes of another {@link LogSink} off the request threads: messages go into a bounded ring buffer,
+ * drained in order by a background thread. Logging never blocks, and never holds a lock shared with the writes: when
+ * the buffer is full the message is dropped, and the number of dropped messages is logged once the drainer catches up.
+ *
+ * The drainer is a daemon thread, {@link #close()} writes what is still buffered (e.g. on shutdown).
+ *
+ * @author Pablo Fernandez
+ */
+public class AsyncLogSink implements LogSink
+{
+  public static final int DEFAULT_CAPACITY = 8192;
+
+  private static final int BATCH = 256;
+  private static final Entry CLOSE = new Entry(LogLevel.OFF, null);
+
+  private final LogSink delegate;
+  private final BlockingQueue<Entry> buffer;
+  private final AtomicLong dropped = new AtomicLong();
+  private final Thread drainer;
+  private volatile boolean closed;
+
+  /**
+   * Buffers up to 8192 messages
+   *
+   * @param delegate sink the messages are written to, from the background thread
+   */
+  public AsyncLogSink(LogSink delegate)
+  {
+    this(delegate, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param delegate sink the messages are written to, from the background thread
+   * @param capacity messages buffered before dropping
+   */
+  public AsyncLogSink(LogSink delegate, int capacity)
+  {
+    this.delegate = delegate;
+    this.buffer = new ArrayBlockingQueue<Entry>(capacity);
+    this.drainer = new Thread(new Runnable()
+    {
+      public void run()
+      {
+        drain();
+      }
+    }, "scribe-log");
+    drainer.setDaemon(true);
+    drainer.start();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void write(LogLevel level, String message)
+  {
+    if (closed || !buffer.offer(new Entry(level, message)))
+    {
+      dropped.incrementAndGet();
+    }
+  }
+
+  /**
+   * Returns how many messages were dropped so far, because the buffer was full or the sink closed
+   *
+   * @return dropped messages
+   */
+  public long getDropped()
+  {
+    return dropped.get();
+  }
+
+  /**
+   * Writes the buffered messages and stops the background thread. Later messages are dropped.
+   */
+  public void close()
+  {
+    if (closed)
+    {
+      return;
+    }
+    closed = true;
+    try
+    {
+      buffer.put(CLOSE);
+      drainer.join();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drain()
+  {
+    List<Entry> batch = new ArrayList<Entry>(BATCH);
+    long reported = 0;
+    try
+    {
+      while (true)
+      {
+        batch.add(buffer.take());
+        buffer.drainTo(batch, BATCH - 1);
+        for (Entry entry : batch)
+        {
+          if (entry == CLOSE)
+          {
+            return;
+          }
+          write(entry);
+        }
+        batch.clear();
+        long lost = dropped.get();
+        if (lost > reported)
+        {
+          write(new Entry(LogLevel.WARN, (lost - reported) + " log messages dropped, the log sink can't keep up"));
+          reported = lost;
+        }
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write(Entry entry)
+  {
+    try
+    {
+      delegate.write(entry.level, entry.message);
+    }
+    catch (RuntimeException e)
+    {
+      // a failing sink must not stop the drainer
+      dropped.incrementAndGet();
+    }
+  }
+
+  private static class Entry
+  {
+    private final LogLevel level;
+    private final String message;
+
+    Entry(LogLevel level, String message)
+    {
+      this.level = level;
+      this.message = message;
+    }
+  }
+}
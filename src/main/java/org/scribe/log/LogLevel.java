@@ -0,0 +1,34 @@
+package org.scribe.log;
+
+/**
+ * Levels of the messages logged by the services, from the most verbose to none
+ *
+ * @author Pablo Fernandez
+ */
+public enum LogLevel
+{
+  /**
+   * Base strings, OAuth parameters and response bodies: verbose, and holding request data
+   */
+  TRACE,
+
+  /**
+   * Each step of the OAuth flows (endpoints, tokens, signature types)
+   */
+  DEBUG,
+
+  /**
+   * Noteworthy events
+   */
+  INFO,
+
+  /**
+   * Problems the library recovered from. Never sampled
+   */
+  WARN,
+
+  /**
+   * Logs nothing
+   */
+  OFF
+}
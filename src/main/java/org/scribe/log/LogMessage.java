@@ -0,0 +1,16 @@
+package org.scribe.log;
+
+/**
+ * Message built only if it's going to be logged, for messages too costly to build on every call
+ *
+ * @author Pablo Fernandez
+ */
+public interface LogMessage
+{
+  /**
+   * Builds the message
+   *
+   * @return message
+   */
+  public String get();
+}
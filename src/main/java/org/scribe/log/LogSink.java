@@ -0,0 +1,17 @@
+package org.scribe.log;
+
+/**
+ * Where the messages of a {@link Logger} end up
+ *
+ * @author Pablo Fernandez
+ */
+public interface LogSink
+{
+  /**
+   * Writes a message. Called concurrently by every thread sending requests.
+   *
+   * @param level level of the message
+   * @param message the message, formatted
+   */
+  public void write(LogLevel level, String message);
+}
@@ -0,0 +1,148 @@
+package org.scribe.log;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.scribe.utils.*;
+
+/**
+ * Levelled logging of the services.
+ *
+ * Messages below the level are never built: formats are only filled in ("{}" placeholders, maps and
+ * {@link LogMessage} arguments included) once a message is known to be logged, so logging costs a comparison when
+ * it's off. Messages below {@link LogLevel#WARN} can be sampled, keeping one out of every {@code sampleRate} of them to
+ * bound the logging cost on busy services.
+ *
+ * Safe to share between threads.
+ *
+ * @author Pablo Fernandez
+ */
+public class Logger
+{
+  public static final Logger OFF = new Logger(null, LogLevel.OFF);
+
+  private static final String PLACEHOLDER = "{}";
+
+  private final LogSink sink;
+  private final LogLevel level;
+  private final int sampleRate;
+  private final AtomicLong sampled = new AtomicLong();
+
+  /**
+   * @param sink where messages are written (null logs nothing)
+   * @param level lowest level logged
+   */
+  public Logger(LogSink sink, LogLevel level)
+  {
+    this(sink, level, 1);
+  }
+
+  /**
+   * @param sink where messages are written (null logs nothing)
+   * @param level lowest level logged
+   * @param sampleRate one out of how many messages below {@link LogLevel#WARN} are logged (1 logs them all)
+   */
+  public Logger(LogSink sink, LogLevel level, int sampleRate)
+  {
+    if (sampleRate <= 0)
+    {
+      throw new IllegalArgumentException("Sample rate must be positive");
+    }
+    this.sink = sink;
+    this.level = sink == null ? LogLevel.OFF : level;
+    this.sampleRate = sampleRate;
+  }
+
+  /**
+   * Whether messages of a level are logged (possibly sampled)
+   *
+   * @param messageLevel level of the message
+   * @return true if enabled
+   */
+  public boolean isEnabled(LogLevel messageLevel)
+  {
+    return messageLevel != LogLevel.OFF && messageLevel.compareTo(level) >= 0;
+  }
+
+  /**
+   * Logs a message
+   *
+   * @param messageLevel level of the message
+   * @param message the message
+   */
+  public void log(LogLevel messageLevel, String message)
+  {
+    if (isLogged(messageLevel))
+    {
+      sink.write(messageLevel, message);
+    }
+  }
+
+  /**
+   * Logs a message built only if it's logged
+   *
+   * @param messageLevel level of the message
+   * @param message builds the message
+   */
+  public void log(LogLevel messageLevel, LogMessage message)
+  {
+    if (isLogged(messageLevel))
+    {
+      sink.write(messageLevel, message.get());
+    }
+  }
+
+  /**
+   * Logs a message formatted only if it's logged
+   *
+   * @param messageLevel level of the message
+   * @param format the message, each "{}" replaced by the next argument
+   * @param args arguments of the message, maps and {@link LogMessage}s are only turned into strings if logged
+   */
+  public void log(LogLevel messageLevel, String format, Object... args)
+  {
+    if (isLogged(messageLevel))
+    {
+      sink.write(messageLevel, format(format, args));
+    }
+  }
+
+  private boolean isLogged(LogLevel messageLevel)
+  {
+    if (!isEnabled(messageLevel))
+    {
+      return false;
+    }
+    return sampleRate == 1 || messageLevel.compareTo(LogLevel.WARN) >= 0 || sampled.getAndIncrement() % sampleRate == 0;
+  }
+
+  static String format(String format, Object... args)
+  {
+    StringBuilder message = new StringBuilder(format.length() + 16 * args.length);
+    int from = 0;
+    for (Object arg : args)
+    {
+      int at = format.indexOf(PLACEHOLDER, from);
+      if (at < 0)
+      {
+        break;
+      }
+      message.append(format, from, at).append(toString(arg));
+      from = at + PLACEHOLDER.length();
+    }
+    return message.append(format, from, format.length()).toString();
+  }
+
+  private static String toString(Object arg)
+  {
+    if (arg instanceof Map)
+    {
+      return MapUtils.toString((Map<?, ?>) arg);
+    }
+    if (arg instanceof LogMessage)
+    {
+      return ((LogMessage) arg).get();
+    }
+    return String.valueOf(arg);
+  }
+}
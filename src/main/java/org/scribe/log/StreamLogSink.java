@@ -0,0 +1,49 @@
+package org.scribe.log;
+
+import java.io.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Writes every message as a line of an {@link OutputStream}, on the logging thread (see {@link AsyncLogSink} to take
+ * the writes off the request threads). Lines are kept whole with a lock rather than a monitor, so virtual threads
+ * logging through it don't pin their carrier.
+ *
+ * @author Pablo Fernandez
+ */
+public class StreamLogSink implements LogSink
+{
+  private final OutputStream stream;
+  private final Lock lock = new ReentrantLock();
+
+  /**
+   * @param stream stream the messages are written to, e.g. System.out
+   */
+  public StreamLogSink(OutputStream stream)
+  {
+    this.stream = stream;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void write(LogLevel level, String message)
+  {
+    try
+    {
+      byte[] line = (message + "\n").getBytes("UTF8");
+      lock.lock();
+      try
+      {
+        stream.write(line);
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException("there were problems while writting to the debug stream", e);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package org.scribe.metrics;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Metrics of one endpoint of an api: a {@link LatencyHistogram} per {@link Phase}, bytes and error counts.
+ *
+ * @author Pablo Fernandez
+ */
+public class EndpointMetrics implements EndpointMetricsMBean
+{
+  private final Map<Phase, LatencyHistogram> histograms = new EnumMap<Phase, LatencyHistogram>(Phase.class);
+  private final AtomicLong bytesSent = new AtomicLong();
+  private final AtomicLong bytesReceived = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+
+  public EndpointMetrics()
+  {
+    // filled upfront, read without locks afterwards
+    for (Phase phase : Phase.values())
+    {
+      histograms.put(phase, new LatencyHistogram());
+    }
+  }
+
+  /**
+   * Returns the durations of a phase
+   *
+   * @param phase the phase
+   * @return histogram
+   */
+  public LatencyHistogram getHistogram(Phase phase)
+  {
+    return histograms.get(phase);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getBytesSent()
+  {
+    return bytesSent.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getBytesReceived()
+  {
+    return bytesReceived.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getErrors()
+  {
+    return errors.get();
+  }
+
+  void addBytesSent(long bytes)
+  {
+    bytesSent.addAndGet(bytes);
+  }
+
+  void addBytesReceived(long bytes)
+  {
+    bytesReceived.addAndGet(bytes);
+  }
+
+  void addError()
+  {
+    errors.incrementAndGet();
+  }
+}
@@ -0,0 +1,15 @@
+package org.scribe.metrics;
+
+/**
+ * JMX view of the {@link EndpointMetrics} of an endpoint
+ *
+ * @author Pablo Fernandez
+ */
+public interface EndpointMetricsMBean
+{
+  public long getBytesSent();
+
+  public long getBytesReceived();
+
+  public long getErrors();
+}
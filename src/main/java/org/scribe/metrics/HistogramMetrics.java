@@ -0,0 +1,191 @@
+package org.scribe.metrics;
+
+import java.lang.management.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.management.*;
+
+/**
+ * Built-in {@link MetricsListener}, keeping {@link EndpointMetrics} for each endpoint of each api and publishing them
+ * over JMX as they show up:
+ * <code>org.scribe:api="...",endpoint="...",type=Endpoint</code> for bytes and errors and
+ * <code>org.scribe:api="...",endpoint="...",type=Latency,phase=...</code> for the durations of each phase.
+ *
+ * Endpoints are urls without their query string: apis with ids in their paths make one entry per id. Past
+ * {@code maxEndpoints} distinct endpoints, calls to new ones are all counted under the {@link #OTHER_ENDPOINT} entry of
+ * their api, so the number of metrics and MBeans stays bounded.
+ *
+ * @author Pablo Fernandez
+ */
+public class HistogramMetrics implements MetricsListener
+{
+  public static final String DEFAULT_DOMAIN = "org.scribe";
+  public static final int DEFAULT_MAX_ENDPOINTS = 200;
+  public static final String OTHER_ENDPOINT = "other";
+
+  private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<String, EndpointMetrics>();
+  private final AtomicInteger distinct = new AtomicInteger();
+  private final MBeanServer server;
+  private final String domain;
+  private final int maxEndpoints;
+
+  /**
+   * Default constructor, publishing to the platform {@link MBeanServer}
+   */
+  public HistogramMetrics()
+  {
+    this(ManagementFactory.getPlatformMBeanServer(), DEFAULT_DOMAIN);
+  }
+
+  /**
+   * @param server server the metrics are published to, null to keep them local
+   * @param domain JMX domain of the metrics
+   */
+  public HistogramMetrics(MBeanServer server, String domain)
+  {
+    this(server, domain, DEFAULT_MAX_ENDPOINTS);
+  }
+
+  /**
+   * @param server server the metrics are published to, null to keep them local
+   * @param domain JMX domain of the metrics
+   * @param maxEndpoints distinct endpoints kept apart, the others being counted under {@link #OTHER_ENDPOINT}
+   */
+  public HistogramMetrics(MBeanServer server, String domain, int maxEndpoints)
+  {
+    if (maxEndpoints <= 0)
+    {
+      throw new IllegalArgumentException("Max endpoints must be positive");
+    }
+    this.server = server;
+    this.domain = domain;
+    this.maxEndpoints = maxEndpoints;
+  }
+
+  /**
+   * Returns the metrics of an endpoint
+   *
+   * @param api name of the api
+   * @param endpoint url of the endpoint, without query string
+   * @return metrics, null if no call was made to it or it was counted under {@link #OTHER_ENDPOINT}
+   */
+  public EndpointMetrics getEndpoint(String api, String endpoint)
+  {
+    return endpoints.get(key(api, endpoint));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void onTiming(String api, String endpoint, Phase phase, long nanos)
+  {
+    endpoint(api, endpoint).getHistogram(phase).record(nanos);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void onBytesSent(String api, String endpoint, long bytes)
+  {
+    endpoint(api, endpoint).addBytesSent(bytes);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void onBytesReceived(String api, String endpoint, long bytes)
+  {
+    endpoint(api, endpoint).addBytesReceived(bytes);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void onError(String api, String endpoint, int code, Exception error)
+  {
+    endpoint(api, endpoint).addError();
+  }
+
+  /**
+   * Removes the metrics from JMX
+   */
+  public void unregister()
+  {
+    if (server == null)
+    {
+      return;
+    }
+    try
+    {
+      for (ObjectName name : server.queryNames(new ObjectName(domain + ":*"), null))
+      {
+        server.unregisterMBean(name);
+      }
+    }
+    catch (JMException e)
+    {
+      // already gone
+    }
+  }
+
+  private EndpointMetrics endpoint(String api, String endpoint)
+  {
+    EndpointMetrics metrics = endpoints.get(key(api, endpoint));
+    if (metrics != null)
+    {
+      return metrics;
+    }
+    if (distinct.incrementAndGet() > maxEndpoints)
+    {
+      distinct.decrementAndGet();
+      metrics = endpoints.get(key(api, OTHER_ENDPOINT));
+      return metrics != null ? metrics : add(api, OTHER_ENDPOINT, new EndpointMetrics());
+    }
+    EndpointMetrics created = new EndpointMetrics();
+    metrics = add(api, endpoint, created);
+    if (metrics != created)
+    {
+      // another thread added it first
+      distinct.decrementAndGet();
+    }
+    return metrics;
+  }
+
+  private EndpointMetrics add(String api, String endpoint, EndpointMetrics created)
+  {
+    EndpointMetrics metrics = endpoints.putIfAbsent(key(api, endpoint), created);
+    if (metrics != null)
+    {
+      return metrics;
+    }
+    register(api, endpoint, created);
+    return created;
+  }
+
+  private void register(String api, String endpoint, EndpointMetrics metrics)
+  {
+    if (server == null)
+    {
+      return;
+    }
+    String name = domain + ":api=" + ObjectName.quote(api) + ",endpoint=" + ObjectName.quote(endpoint);
+    try
+    {
+      server.registerMBean(metrics, new ObjectName(name + ",type=Endpoint"));
+      for (Phase phase : Phase.values())
+      {
+        server.registerMBean(metrics.getHistogram(phase), new ObjectName(name + ",type=Latency,phase=" + phase));
+      }
+    }
+    catch (JMException e)
+    {
+      // e.g. another instance publishing the same endpoint, the metrics are still kept here
+    }
+  }
+
+  private static String key(String api, String endpoint)
+  {
+    return api + ' ' + endpoint;
+  }
+}
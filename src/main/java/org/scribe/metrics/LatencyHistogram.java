@@ -0,0 +1,146 @@
+package org.scribe.metrics;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Lock-free histogram of durations (in nanoseconds), with log-linear buckets: every power of two is split in
+ * 8 buckets, so percentiles are within 12.5% of the recorded values, from nanoseconds to centuries, in a fixed
+ * 488 counters. Recording is a few atomic increments, reading never blocks recording (percentiles taken
+ * while recording are a close approximation).
+ *
+ * @author Pablo Fernandez
+ */
+public class LatencyHistogram implements LatencyHistogramMBean
+{
+  private static final int SUB_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a duration
+   *
+   * @param nanos duration in nanoseconds, negative ones count as 0
+   */
+  public void record(long nanos)
+  {
+    long value = Math.max(nanos, 0);
+    counts.incrementAndGet(indexOf(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value))
+    {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Returns the value below which the given fraction of the durations fall
+   *
+   * @param quantile between 0 and 1 (e.g. 0.99)
+   * @return upper bound of the bucket holding that duration, 0 if nothing was recorded
+   */
+  public long getPercentile(double quantile)
+  {
+    long total = count.get();
+    if (total == 0)
+    {
+      return 0;
+    }
+    long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++)
+    {
+      seen += counts.get(i);
+      if (seen >= rank && seen > 0)
+      {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getCount()
+  {
+    return count.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getMean()
+  {
+    long total = count.get();
+    return total == 0 ? 0 : sum.get() / total;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getMax()
+  {
+    return max.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getP50()
+  {
+    return getPercentile(0.5);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getP90()
+  {
+    return getPercentile(0.9);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getP99()
+  {
+    return getPercentile(0.99);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getP999()
+  {
+    return getPercentile(0.999);
+  }
+
+  static int indexOf(long value)
+  {
+    if (value < SUB_BUCKETS)
+    {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  static long upperBound(int index)
+  {
+    if (index < SUB_BUCKETS)
+    {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lower + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,23 @@
+package org.scribe.metrics;
+
+/**
+ * JMX view of a {@link LatencyHistogram}, all durations in nanoseconds
+ *
+ * @author Pablo Fernandez
+ */
+public interface LatencyHistogramMBean
+{
+  public long getCount();
+
+  public long getMean();
+
+  public long getMax();
+
+  public long getP50();
+
+  public long getP90();
+
+  public long getP99();
+
+  public long getP999();
+}
@@ -0,0 +1,52 @@
+package org.scribe.metrics;
+
+/**
+ * A {@link MetricsListener} bound to the api of a service, what requests report to.
+ *
+ * @author Pablo Fernandez
+ */
+public final class Metrics
+{
+  private final MetricsListener listener;
+  private final String api;
+
+  /**
+   * @param listener listener receiving the metrics
+   * @param api name of the api the metrics are reported for
+   */
+  public Metrics(MetricsListener listener, String api)
+  {
+    this.listener = listener;
+    this.api = api;
+  }
+
+  public MetricsListener getListener()
+  {
+    return listener;
+  }
+
+  public String getApi()
+  {
+    return api;
+  }
+
+  public void timing(String endpoint, Phase phase, long nanos)
+  {
+    listener.onTiming(api, endpoint, phase, nanos);
+  }
+
+  public void bytesSent(String endpoint, long bytes)
+  {
+    listener.onBytesSent(api, endpoint, bytes);
+  }
+
+  public void bytesReceived(String endpoint, long bytes)
+  {
+    listener.onBytesReceived(api, endpoint, bytes);
+  }
+
+  public void error(String endpoint, int code, Exception error)
+  {
+    listener.onError(api, endpoint, code, error);
+  }
+}
@@ -0,0 +1,51 @@
+package org.scribe.metrics;
+
+/**
+ * Receives the metrics of the calls made by a service, see
+ * {@link org.scribe.builder.ServiceBuilder#metricsListener(MetricsListener)}.
+ *
+ * Called on the threads making the calls, in the middle of them: implementations must be fast, thread safe and
+ * never throw. {@link HistogramMetrics} is the built-in one.
+ *
+ * @author Pablo Fernandez
+ */
+public interface MetricsListener
+{
+  /**
+   * A phase of a call completed
+   *
+   * @param api name of the api (e.g. TwitterApi)
+   * @param endpoint url of the endpoint, without query string
+   * @param phase the phase
+   * @param nanos how long it took, in nanoseconds
+   */
+  public void onTiming(String api, String endpoint, Phase phase, long nanos);
+
+  /**
+   * A request body was sent
+   *
+   * @param api name of the api
+   * @param endpoint url of the endpoint, without query string
+   * @param bytes bytes sent (compressed size of compressed bodies)
+   */
+  public void onBytesSent(String api, String endpoint, long bytes);
+
+  /**
+   * A response body was read
+   *
+   * @param api name of the api
+   * @param endpoint url of the endpoint, without query string
+   * @param bytes bytes received (decompressed)
+   */
+  public void onBytesReceived(String api, String endpoint, long bytes);
+
+  /**
+   * A call failed, either with an error status or without a response
+   *
+   * @param api name of the api
+   * @param endpoint url of the endpoint, without query string
+   * @param code http status code, -1 if there's no response
+   * @param error exception thrown, null for error statuses
+   */
+  public void onError(String api, String endpoint, int code, Exception error);
+}
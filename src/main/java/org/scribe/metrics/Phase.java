@@ -0,0 +1,40 @@
+package org.scribe.metrics;
+
+/**
+ * Phases of a signed call reported to {@link MetricsListener#onTiming(String, String, Phase, long)}
+ *
+ * @author Pablo Fernandez
+ */
+public enum Phase
+{
+  /**
+   * Building the OAuth 1.0a base string. With streaming signature services the base string is hashed while it's
+   * built, so this includes the hashing.
+   */
+  BASE_STRING,
+
+  /**
+   * Computing the OAuth 1.0a signature (only the final step and its encoding with streaming signature services)
+   */
+  SIGNATURE,
+
+  /**
+   * Connecting (TCP and TLS handshakes), nothing when reusing a kept-alive connection
+   */
+  CONNECT,
+
+  /**
+   * Writing the request headers and body (PUT and POST only)
+   */
+  UPLOAD,
+
+  /**
+   * Waiting for the response status line once the request is written (headers included when there's no body)
+   */
+  FIRST_BYTE,
+
+  /**
+   * Reading the response body
+   */
+  BODY_READ
+}
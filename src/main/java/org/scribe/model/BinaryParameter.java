@@ -0,0 +1,105 @@
+/**
+ * 
+ */
+package org.scribe.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Base class for parameters whose content is sent as a multipart file part
+ * (files, streams, buffers). They are never part of the base string.
+ * 
+ * @author Jermaine
+ * 
+ */
+public abstract class BinaryParameter extends Parameter {
+
+	public static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+	/** Size of the buffer content is copied through, allocated once per write. */
+	public static final int COPY_BUFFER_SIZE = 1024 * 8;
+
+	private String mimeType;
+
+	protected BinaryParameter(final String key) {
+		super(key, (String) null);
+	}
+
+	/**
+	 * Gets the name which should be sent as the filename
+	 * in the request.
+	 * @return The filename to be sent.
+	 */
+	public abstract String getFileName();
+
+	/* (non-Javadoc)
+	 * @see org.scribe.model.Parameter#writeAdditionAttributes(java.io.OutputStream)
+	 */
+	@Override
+	protected long writeAdditionalProperties(OutputStream writeTo) throws IOException {
+		long byteCount = super.writeAdditionalProperties(writeTo);
+		final byte[] newLineBytes = SEQUENCE_NEW_LINE.getBytes();
+		final byte[] fileNameTag = String.format("filename=\"%1$s\"", this.getFileName()).getBytes();
+		final byte[] contentTypeTag = String.format("Content-Type: %1$s",this.getMimeType()).getBytes();
+		writeTo.write( fileNameTag );//Filename
+		byteCount += fileNameTag.length;
+		writeTo.write( newLineBytes );//New Line
+		byteCount += newLineBytes.length;
+		writeTo.write( contentTypeTag );//Mime/Content type
+		byteCount += contentTypeTag.length;
+		return byteCount;
+	}
+
+	/**
+	 * Copies a channel to the stream through a single small buffer.
+	 * @param source The channel to read until its end.
+	 * @param writeTo The stream to write to.
+	 * @return The number of bytes copied.
+	 * @throws IOException
+	 */
+	protected static long copy(final ReadableByteChannel source, final OutputStream writeTo) throws IOException {
+		final byte[] copyBuf = new byte[COPY_BUFFER_SIZE];
+		final ByteBuffer buffer = ByteBuffer.wrap(copyBuf);
+		long byteCount = 0;
+		int readCnt;
+		while ((readCnt = source.read(buffer)) >= 0) {
+			if (readCnt > 0) {
+				writeTo.write(copyBuf, 0, readCnt);
+				byteCount += readCnt;
+			}
+			buffer.clear();
+		}
+		return byteCount;
+	}
+
+	/**
+	 * Gets the MIME-Type for this parameter.
+	 * @return The mime type specified for this parameter.
+	 */
+	public String getMimeType() {
+		if( this.mimeType == null ) {
+			//TODO Attempt to get the MIME-Type based on the file
+			this.mimeType = DEFAULT_MIME_TYPE;
+		}
+		return mimeType;
+	}
+
+	/**
+	 * Sets the mime type to be used for this parameter.
+	 * @param newMimeType The new mime type to be used.
+	 * 
+	 */
+	public void setMimeType(final String newMimeType) {
+		this.mimeType = newMimeType;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.scribe.model.Parameter#usedInBaseString()
+	 */
+	@Override
+	public boolean isUsedInBaseString() {
+		return false;
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ * 
+ */
+package org.scribe.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.scribe.utils.Preconditions;
+
+/**
+ * A file part backed by a {@link ByteBuffer}, typically a memory-mapped file
+ * (see {@link #map(String, File)}). The remaining bytes of the buffer are sent
+ * without touching its position, so it can be sent again.
+ * 
+ * @author Jermaine
+ * 
+ */
+public class ByteBufferParameter extends BinaryParameter {
+
+	private final String fileName;
+	private final ByteBuffer content;
+
+	public ByteBufferParameter(final String key, final String fileName, final ByteBuffer content) {
+		super(key);
+		Preconditions.checkNotNull(content, "Content can't be null");
+		this.fileName = fileName;
+		this.content = content;
+	}
+
+	/**
+	 * Maps a file read-only into memory, the pages are loaded by the OS as
+	 * they are sent.
+	 * 
+	 * @param key The name of the parameter.
+	 * @param file The file to map.
+	 * @return The parameter.
+	 * @throws IOException If the file can't be mapped.
+	 */
+	public static ByteBufferParameter map(final String key, final File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			// The mapping stays valid after the channel is closed
+			return new ByteBufferParameter(key, file.getName(), channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.scribe.model.Parameter#getValue()
+	 */
+	@Override
+	public String getValue() {
+		return this.fileName;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.scribe.model.Parameter#writeValue(java.io.OutputStream)
+	 */
+	@Override
+	protected long writeValue(final OutputStream writeTo) throws IOException {
+		final ByteBuffer buffer = this.content.duplicate();
+		final int length = buffer.remaining();
+		if (buffer.hasArray()) {
+			writeTo.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+			return length;
+		}
+		final byte[] copyBuf = new byte[Math.min(COPY_BUFFER_SIZE, length)];
+		while (buffer.hasRemaining()) {
+			final int chunk = Math.min(copyBuf.length, buffer.remaining());
+			buffer.get(copyBuf, 0, chunk);
+			writeTo.write(copyBuf, 0, chunk);
+		}
+		return length;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.scribe.model.Parameter#getValueLength()
+	 */
+	@Override
+	protected long getValueLength() {
+		return this.content.remaining();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.scribe.model.BinaryParameter#getFileName()
+	 */
+	@Override
+	public String getFileName() {
+		return this.fileName;
+	}
+}
@@ -0,0 +1,24 @@
+package org.scribe.model;
+
+/**
+ * Receives the outcome of an asynchronous call, on the thread that completed it.
+ *
+ * @param <T> type of the result (a {@link Response}, a {@link Token}, etc)
+ * @author Pablo Fernandez
+ */
+public interface OAuthAsyncCallback<T>
+{
+  /**
+   * Called when the call completes successfully.
+   *
+   * @param result the result of the call
+   */
+  public void onCompleted(T result);
+
+  /**
+   * Called when the call fails or is cancelled.
+   *
+   * @param t the cause of the failure
+   */
+  public void onThrowable(Throwable t);
+}
@@ -1,6 +1,12 @@
 package org.scribe.model;
 
 import java.io.*;
+import java.util.concurrent.*;
+
+import org.scribe.log.*;
+import org.scribe.metrics.*;
+import org.scribe.services.*;
+import org.scribe.transport.*;
 
 /**
  * Parameter object that groups OAuth config values
@@ -14,7 +20,18 @@ public class OAuthConfig
   private final String callback;
   private final SignatureType signatureType;
   private final String scope;
-  private final OutputStream debugStream;
+  private final Logger logger;
+  private final HttpTransport transport;
+  private final AsyncDispatcher asyncDispatcher;
+  private final SignatureService signatureService;
+  private final boolean responseCompression;
+  private final int bodyCompressionThreshold;
+  private final TokenStore tokenStore;
+  private final long refreshAhead;
+  private final ScheduledExecutorService refreshScheduler;
+  private final RetryPolicy retryPolicy;
+  private final RateLimitTracker rateLimitTracker;
+  private final Metrics metrics;
   
   public OAuthConfig(String key, String secret)
   {
@@ -22,13 +39,38 @@ public class OAuthConfig
   }
 
   public OAuthConfig(String key, String secret, String callback, SignatureType type, String scope, OutputStream stream)
+  {
+    this(key, secret, callback, type, scope, stream, new Options());
+  }
+
+  public OAuthConfig(String key, String secret, String callback, SignatureType type, String scope, OutputStream stream,
+      Options options)
   {
     this.apiKey = key;
     this.apiSecret = secret;
     this.callback = callback;
     this.signatureType = type;
     this.scope = scope;
-    this.debugStream = stream;
+    if (options.logger != null)
+    {
+      this.logger = options.logger;
+    }
+    else
+    {
+      // a bare debug stream logs everything, as it always did
+      this.logger = stream != null ? new Logger(new StreamLogSink(stream), LogLevel.TRACE) : Logger.OFF;
+    }
+    this.transport = options.transport;
+    this.asyncDispatcher = options.asyncDispatcher;
+    this.signatureService = options.signatureService;
+    this.responseCompression = options.responseCompression;
+    this.bodyCompressionThreshold = options.bodyCompressionThreshold;
+    this.tokenStore = options.tokenStore != null ? options.tokenStore : new InMemoryTokenStore();
+    this.refreshAhead = options.refreshAhead;
+    this.refreshScheduler = options.refreshScheduler;
+    this.retryPolicy = options.retryPolicy;
+    this.rateLimitTracker = options.rateLimitTracker;
+    this.metrics = options.metrics;
   }
 
   public String getApiKey()
@@ -61,19 +103,305 @@ public class OAuthConfig
     return scope != null;
   }
 
-  public void log(String message)
+  public HttpTransport getTransport()
+  {
+    return transport;
+  }
+
+  /**
+   * Returns the {@link SignatureService} overriding the api's one, if any.
+   *
+   * @return signature service or null
+   */
+  public SignatureService getSignatureService()
+  {
+    return signatureService;
+  }
+
+  /**
+   * Returns the {@link TokenStore} keeping access tokens by user, an {@link InMemoryTokenStore} if none was configured.
+   *
+   * @return token store
+   */
+  public TokenStore getTokenStore()
+  {
+    return tokenStore;
+  }
+
+  /**
+   * Returns how long before expiring OAuth 2.0 access tokens kept in the {@link TokenStore} are refreshed
+   * in the background, 0 if they aren't.
+   *
+   * @return time in milliseconds
+   */
+  public long getRefreshAhead()
+  {
+    return refreshAhead;
+  }
+
+  /**
+   * Returns the scheduler timing background token refreshes, or a shared single daemon thread.
+   *
+   * @return refresh scheduler
+   */
+  public ScheduledExecutorService getRefreshScheduler()
+  {
+    return refreshScheduler != null ? refreshScheduler : RefreshSchedulerHolder.INSTANCE;
+  }
+
+  /**
+   * Returns the policy retrying the requests of the service, or null if they're sent once.
+   *
+   * @return retry policy or null
+   */
+  public RetryPolicy getRetryPolicy()
+  {
+    return retryPolicy;
+  }
+
+  /**
+   * Returns the tracker keeping the rate limits of the service, or null if they're ignored.
+   *
+   * @return rate limit tracker or null
+   */
+  public RateLimitTracker getRateLimitTracker()
+  {
+    return rateLimitTracker;
+  }
+
+  /**
+   * Returns the metrics the calls of the service are reported to, or null if they aren't.
+   *
+   * @return metrics or null
+   */
+  public Metrics getMetrics()
+  {
+    return metrics;
+  }
+
+  /**
+   * Returns whether requests accept gzip/deflate compressed responses.
+   *
+   * @return true if compressed responses are accepted
+   */
+  public boolean isResponseCompression()
+  {
+    return responseCompression;
+  }
+
+  /**
+   * Returns the minimum body length gzipped on the way out, negative if bodies aren't compressed.
+   *
+   * @return threshold in bytes
+   */
+  public int getBodyCompressionThreshold()
+  {
+    return bodyCompressionThreshold;
+  }
+
+  /**
+   * Returns the configured {@link AsyncDispatcher}, or the shared default one.
+   *
+   * @return dispatcher for asynchronous calls
+   */
+  public AsyncDispatcher getAsyncDispatcher()
+  {
+    return asyncDispatcher != null ? asyncDispatcher : AsyncDispatcher.getDefault();
+  }
+
+  /**
+   * Sends the request through the configured {@link HttpTransport} and {@link AsyncDispatcher},
+   * with the configured response and body compression, retry policy, rate limit tracker and metrics, unless the
+   * request already has its own.
+   *
+   * @param request the request about to be sent
+   */
+  public void applyTo(Request request)
   {
-    if (debugStream != null)
+    if (transport != null && request.getTransport() == null)
     {
-      message = message + "\n";
-      try
+      request.setTransport(transport);
+    }
+    if (asyncDispatcher != null && request.getAsyncDispatcher() == null)
+    {
+      request.setAsyncDispatcher(asyncDispatcher);
+    }
+    if (request.getResponseCompression() == null)
+    {
+      request.setResponseCompression(responseCompression);
+    }
+    if (bodyCompressionThreshold >= 0 && request.getBodyCompressionThreshold() == null)
+    {
+      request.setBodyCompressionThreshold(bodyCompressionThreshold);
+    }
+    if (retryPolicy != null && request.getRetryPolicy() == null)
+    {
+      request.setRetryPolicy(retryPolicy);
+    }
+    if (rateLimitTracker != null && request.getRateLimitTracker() == null)
+    {
+      request.setRateLimitTracker(rateLimitTracker);
+      if (request.getAppRateLimitKey() == null)
       {
-        debugStream.write(message.getBytes("UTF8"));
+        request.setAppRateLimitKey(RateLimitTracker.appKey(apiKey));
       }
-      catch (Exception e)
+    }
+    if (metrics != null && request.getMetrics() == null)
+    {
+      request.setMetrics(metrics);
+    }
+  }
+
+  /**
+   * Returns the logger of the service, {@link Logger#OFF} if nothing is logged
+   *
+   * @return logger
+   */
+  public Logger getLogger()
+  {
+    return logger;
+  }
+
+  public boolean isDebug()
+  {
+    return logger.isEnabled(LogLevel.DEBUG);
+  }
+
+  public void log(String message)
+  {
+    logger.log(LogLevel.DEBUG, message);
+  }
+
+  /**
+   * Logs a message without arguments, so no array is allocated for them
+   *
+   * @param level level of the message
+   * @param message the message
+   */
+  public void log(LogLevel level, String message)
+  {
+    logger.log(level, message);
+  }
+
+  /**
+   * Logs a message, formatted only if it's logged. The arguments are still allocated and boxed, calls on hot paths
+   * check {@link Logger#isEnabled(LogLevel)} first (see {@link Logger#log(LogLevel, String, Object...)})
+   *
+   * @param level level of the message
+   * @param format the message, each "{}" replaced by the next argument
+   * @param args arguments of the message
+   */
+  public void log(LogLevel level, String format, Object... args)
+  {
+    logger.log(level, format, args);
+  }
+
+  /**
+   * Optional settings of a config, all unset by default. Each setter returns the options so they can be chained.
+   */
+  public static class Options
+  {
+    private HttpTransport transport;
+    private AsyncDispatcher asyncDispatcher;
+    private SignatureService signatureService;
+    private boolean responseCompression = true;
+    private int bodyCompressionThreshold = -1;
+    private TokenStore tokenStore;
+    private long refreshAhead;
+    private ScheduledExecutorService refreshScheduler;
+    private RetryPolicy retryPolicy;
+    private RateLimitTracker rateLimitTracker;
+    private Metrics metrics;
+    private Logger logger;
+
+    public Options transport(HttpTransport transport)
+    {
+      this.transport = transport;
+      return this;
+    }
+
+    public Options asyncDispatcher(AsyncDispatcher asyncDispatcher)
+    {
+      this.asyncDispatcher = asyncDispatcher;
+      return this;
+    }
+
+    public Options signatureService(SignatureService signatureService)
+    {
+      this.signatureService = signatureService;
+      return this;
+    }
+
+    public Options responseCompression(boolean responseCompression)
+    {
+      this.responseCompression = responseCompression;
+      return this;
+    }
+
+    /**
+     * @param bodyCompressionThreshold minimum body length gzipped on the way out, negative to never compress
+     */
+    public Options bodyCompressionThreshold(int bodyCompressionThreshold)
+    {
+      this.bodyCompressionThreshold = bodyCompressionThreshold;
+      return this;
+    }
+
+    public Options tokenStore(TokenStore tokenStore)
+    {
+      this.tokenStore = tokenStore;
+      return this;
+    }
+
+    /**
+     * @param refreshAhead milliseconds before expiring stored tokens are refreshed, 0 to never refresh them
+     * @param refreshScheduler scheduler timing the refreshes, null for the shared one
+     */
+    public Options refreshAhead(long refreshAhead, ScheduledExecutorService refreshScheduler)
+    {
+      this.refreshAhead = refreshAhead;
+      this.refreshScheduler = refreshScheduler;
+      return this;
+    }
+
+    public Options retryPolicy(RetryPolicy retryPolicy)
+    {
+      this.retryPolicy = retryPolicy;
+      return this;
+    }
+
+    public Options rateLimitTracker(RateLimitTracker rateLimitTracker)
+    {
+      this.rateLimitTracker = rateLimitTracker;
+      return this;
+    }
+
+    public Options metrics(Metrics metrics)
+    {
+      this.metrics = metrics;
+      return this;
+    }
+
+    /**
+     * @param logger logger of the service, null to log everything to the debug stream if there's one
+     */
+    public Options logger(Logger logger)
+    {
+      this.logger = logger;
+      return this;
+    }
+  }
+
+  private static class RefreshSchedulerHolder
+  {
+    private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+    {
+      public Thread newThread(Runnable runnable)
       {
-        throw new RuntimeException("there were problems while writting to the debug stream", e);
+        Thread thread = new Thread(runnable, "scribe-token-refresh");
+        thread.setDaemon(true);
+        return thread;
       }
-    }
+    });
   }
 }
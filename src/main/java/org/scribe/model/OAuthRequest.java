@@ -1,7 +1,11 @@
 package org.scribe.model;
 
+import java.io.*;
+import java.net.*;
 import java.util.*;
 
+import org.scribe.services.*;
+
 /**
  * The representation of an OAuth HttpRequest.
  * 
@@ -12,7 +16,13 @@ import java.util.*;
 public class OAuthRequest extends Request
 {
   private static final String OAUTH_PREFIX = "oauth_";
+  private static final String DATE = "Date";
+  private static final String WWW_AUTHENTICATE = "WWW-Authenticate";
+  private static final String OAUTH_PROBLEM = "oauth_problem";
   private Map<String, String> oauthParameters;
+  private Map<String, String> encodedOAuthParameters;
+  private ClockSkew clockSkew;
+  private RequestTuner signer;
 
   /**
    * Default constructor.
@@ -37,6 +47,29 @@ public class OAuthRequest extends Request
   public void addOAuthParameter(String key, String value)
   {
     oauthParameters.put(checkKey(key), value);
+    if (encodedOAuthParameters != null)
+    {
+      encodedOAuthParameters.remove(key);
+    }
+  }
+
+  /**
+   * Adds an OAuth parameter whose percent encoded value is already known, so it isn't encoded again.
+   * 
+   * @param key name of the parameter
+   * @param value value of the parameter
+   * @param encodedValue the value, percent encoded
+   * 
+   * @throws IllegalArgumentException if the parameter is not an OAuth parameter
+   */
+  public void addOAuthParameter(String key, String value, String encodedValue)
+  {
+    oauthParameters.put(checkKey(key), value);
+    if (encodedOAuthParameters == null)
+    {
+      encodedOAuthParameters = new HashMap<String, String>();
+    }
+    encodedOAuthParameters.put(key, encodedValue);
   }
 
   private String checkKey(String key)
@@ -61,6 +94,79 @@ public class OAuthRequest extends Request
     return oauthParameters;
   }
 
+  /**
+   * Returns the percent encoded value of an OAuth parameter, if it was given when adding it.
+   * 
+   * @param key name of the parameter
+   * @return encoded value or null if unknown
+   */
+  public String getEncodedOAuthParameter(String key)
+  {
+    return encodedOAuthParameters == null ? null : encodedOAuthParameters.get(key);
+  }
+
+  /**
+   * Sets the {@link ClockSkew} the response to this request teaches (see {@link ClockSkewAware}).
+   * 
+   * @param clockSkew skew of the provider's clock
+   */
+  public void setClockSkew(ClockSkew clockSkew)
+  {
+    this.clockSkew = clockSkew;
+  }
+
+  public ClockSkew getClockSkew()
+  {
+    return clockSkew;
+  }
+
+  /**
+   * Sets what signs this request again before it's retried, with a fresh timestamp and nonce.
+   * 
+   * @param signer tuner adding the oauth parameters and the signature (null to retry as is)
+   */
+  public void setSigner(RequestTuner signer)
+  {
+    this.signer = signer;
+  }
+
+  @Override
+  void prepareRetry()
+  {
+    if (signer != null)
+    {
+      // querystring signatures were appended to the querystring
+      removeQuerystringParameters(oauthParameters.keySet());
+      // the signature isn't part of what is signed
+      oauthParameters.remove(OAuthConstants.SIGNATURE);
+      signer.tune(this);
+    }
+  }
+
+  @Override
+  Response doSend(RequestTuner tuner) throws IOException
+  {
+    if (clockSkew == null)
+    {
+      return super.doSend(tuner);
+    }
+    long sentAt = System.currentTimeMillis();
+    Response response = super.doSend(tuner);
+    long receivedAt = System.currentTimeMillis();
+    String problem = null;
+    int code = response.getCode();
+    if (code == HttpURLConnection.HTTP_BAD_REQUEST || code == HttpURLConnection.HTTP_UNAUTHORIZED)
+    {
+      problem = response.findHeader(WWW_AUTHENTICATE);
+      if (problem == null || !problem.contains(OAUTH_PROBLEM))
+      {
+        problem = response.getBody();
+      }
+    }
+    clockSkew.learn(response.findHeader(DATE), problem, sentAt, receivedAt);
+    return response;
+  }
+
   @Override
   public String toString()
   {
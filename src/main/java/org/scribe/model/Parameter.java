@@ -62,18 +62,7 @@ public class Parameter implements IParameter {
 			switch( encoding ) {
 				case ENCODING_MULTIPART:
 					final byte[] newLineBytes = SEQUENCE_NEW_LINE.getBytes();
-					final byte[] dispTag = String.format("Content-Disposition: %1$s; ",	this.getDisposition()).getBytes();
-					final byte[] nameTag = String.format("name=\"%1$s\"; ", OAuthEncoder.encode( this.getKey() ) ).getBytes();
-					writeTo.write( dispTag );
-					byteCount += dispTag.length;
-					writeTo.write( nameTag );
-					byteCount += nameTag.length;
-					//Write any special fields/attributes
-					byteCount += this.writeAdditionalProperties(writeTo);
-					writeTo.write( newLineBytes );
-					byteCount += newLineBytes.length;
-					writeTo.write( newLineBytes );
-					byteCount += newLineBytes.length;
+					byteCount += this.writeMultipartHeaders( writeTo );
 					//Write the content to stream
 					byteCount += this.writeValue( writeTo );
 					writeTo.write( newLineBytes );
@@ -82,12 +71,9 @@ public class Parameter implements IParameter {
 				case ENCODING_OAUTHBASE:
 				case ENCODING_RAW:
 				case ENCODING_URL:
-					final byte[] encKey = OAuthEncoder.encode( this.getKey() ).getBytes();
-					final byte[] encValue = OAuthEncoder.encode( this.getValue() ).getBytes();
-					writeTo.write( encKey );
+					byteCount += OAuthEncoder.encode( this.getKey(), writeTo );
 					writeTo.write( '=' );
-					writeTo.write( encValue );
-					byteCount += encKey.length + encValue.length + 1;
+					byteCount += OAuthEncoder.encode( this.getValue(), writeTo ) + 1;
 					break;
 			}		
 		} catch (Throwable error) {
@@ -95,6 +81,62 @@ public class Parameter implements IParameter {
 		}
 		return byteCount;
 	}	
+
+	/* (non-Javadoc)
+	 * @see org.scribe.IParameter#getLength(int)
+	 */
+	@Override
+	public long getLength(final int encoding) {
+		switch( encoding ) {
+			case ENCODING_MULTIPART:
+				final long valueLength = this.getValueLength();
+				if( valueLength < 0 ) {
+					return -1;
+				}
+				try {
+					// Dry run of the headers, they are tiny
+					final ByteCounter counter = new ByteCounter();
+					this.writeMultipartHeaders( counter );
+					return counter.count + valueLength + SEQUENCE_NEW_LINE.length();
+				} catch (IOException error) {
+					return -1;
+				}
+			case ENCODING_OAUTHBASE:
+			case ENCODING_RAW:
+			case ENCODING_URL:
+				if( this.getValue() == null ) {
+					return -1;
+				}
+				return OAuthEncoder.encodedLength( this.getKey() ) + 1 + OAuthEncoder.encodedLength( this.getValue() );
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Writes the multipart headers of this parameter, up to (and including)
+	 * the blank line preceding the content.
+	 * @param writeTo The stream to which the headers should be written.
+	 * @return The number of bytes written.
+	 * @throws IOException
+	 */
+	private long writeMultipartHeaders(final OutputStream writeTo) throws IOException {
+		long byteCount = 0;
+		final byte[] newLineBytes = SEQUENCE_NEW_LINE.getBytes();
+		final byte[] dispTag = String.format("Content-Disposition: %1$s; ",	this.getDisposition()).getBytes();
+		final byte[] nameTag = String.format("name=\"%1$s\"; ", OAuthEncoder.encode( this.getKey() ) ).getBytes();
+		writeTo.write( dispTag );
+		byteCount += dispTag.length;
+		writeTo.write( nameTag );
+		byteCount += nameTag.length;
+		//Write any special fields/attributes
+		byteCount += this.writeAdditionalProperties(writeTo);
+		writeTo.write( newLineBytes );
+		byteCount += newLineBytes.length;
+		writeTo.write( newLineBytes );
+		byteCount += newLineBytes.length;
+		return byteCount;
+	}
 	
 	/**
 	 * Adds any addition Multipart properties to this
@@ -117,6 +159,14 @@ public class Parameter implements IParameter {
 		writeTo.write( valueBytes );
 		return valueBytes.length;
 	}
+
+	/**
+	 * Gets the number of bytes {@link #writeValue(OutputStream)} writes.
+	 * @return The length of the content, or -1 if unknown.
+	 */
+	protected long getValueLength() {
+		return this.getValue().getBytes().length;
+	}
 	
 	/**
 	 * Gets the content disposition to be used for this parameter.
@@ -175,4 +225,21 @@ public class Parameter implements IParameter {
 		return keyDiff != 0 ? keyDiff : getValue().compareTo(
 				parameter.getValue());
 	}
+
+	/**
+	 * Counts the bytes written to it, for dry runs.
+	 */
+	private static class ByteCounter extends OutputStream {
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
 }
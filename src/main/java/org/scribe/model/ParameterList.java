@@ -4,7 +4,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -21,6 +23,8 @@ public class ParameterList {
 	private static final String PARAM_SEPARATOR = "&";
 	private static final String PAIR_SEPARATOR = "=";
 	private static final String EMPTY_STRING = "";
+	private static final byte[] ENCODED_PARAM_SEPARATOR = { '%', '2', '6' };
+	private static final byte[] ENCODED_PAIR_SEPARATOR = { '%', '3', 'D' };
 
 	private static String boundary;
 
@@ -68,12 +72,41 @@ public class ParameterList {
 		if (newParam != null) {
 			// Add it to the list.
 			params.add(newParam);
-			if (newParam instanceof FileParameter) {
+			if (newParam instanceof BinaryParameter) {
 				this.chunkingRecommended = true;
 			}
 		}
 	}
 
+	/**
+	 * Determines whether or not the parameters can be written more than once
+	 * (streams can only be read once).
+	 * 
+	 * @return Whether or not the list can be sent again.
+	 */
+	boolean isReplayable() {
+		for (IParameter param : params) {
+			if (param instanceof StreamParameter) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes every parameter with one of the given names.
+	 * 
+	 * @param keys
+	 *            The names of the parameters to be removed.
+	 */
+	void removeAll(Collection<String> keys) {
+		for (Iterator<IParameter> it = params.iterator(); it.hasNext();) {
+			if (keys.contains(it.next().getKey())) {
+				it.remove();
+			}
+		}
+	}
+
 	public String appendTo(String url) {
 		Preconditions.checkNotNull(url, "Cannot append to null URL");
 		// String queryString = asFormUrlEncodedString();
@@ -138,10 +171,9 @@ public class ParameterList {
 					byteCount += strBytes.length;
 					break;
 				case IParameter.ENCODING_OAUTHBASE:
-					final byte[] oAuthBaseStrBytes = OAuthEncoder.encode(
-							this.buildURLParamStr(true)).getBytes();
-					writeTo.write(oAuthBaseStrBytes);
-					byteCount += oAuthBaseStrBytes.length;
+					// Swallows errors like the other encodings, signatures go
+					// through writeOAuthBase(OutputStream) directly.
+					byteCount += this.writeOAuthBase(writeTo);
 					break;
 				}
 			} catch (Throwable error) {
@@ -151,6 +183,85 @@ public class ParameterList {
 		return byteCount;
 	}
 
+	/**
+	 * Computes the number of bytes {@link #writeTo(int, OutputStream)} would
+	 * write (multipart headers, boundaries and contents), without writing
+	 * anything.
+	 * 
+	 * @param encoding
+	 *            {@link IParameter#ENCODING_URL} or
+	 *            {@link IParameter#ENCODING_MULTIPART}.
+	 * @return The exact number of bytes, or -1 if it can't be known upfront.
+	 */
+	public long getLength(final int encoding) {
+		if (params.size() == 0) {
+			return 0;
+		}
+		long byteCount = 0;
+		switch (encoding) {
+		case IParameter.ENCODING_MULTIPART:
+			final int boundaryLength = getBoundary().getBytes().length;
+			final int newLineLength = IParameter.SEQUENCE_NEW_LINE.length();
+			final int paramSepLength = 2 + boundaryLength + newLineLength;
+			byteCount += paramSepLength;
+			for (final IParameter p : params) {
+				final long length = p.getLength(IParameter.ENCODING_MULTIPART);
+				if (length < 0) {
+					return -1;
+				}
+				byteCount += length + paramSepLength;
+			}
+			// new line, --boundary--, new line
+			return byteCount + newLineLength + 2 + boundaryLength + 2 + newLineLength;
+		case IParameter.ENCODING_URL:
+			for (final IParameter p : params) {
+				final long length = p.getLength(IParameter.ENCODING_URL);
+				if (length < 0) {
+					return -1;
+				}
+				byteCount += length;
+			}
+			// '&' between parameters
+			return byteCount + params.size() - 1;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Streams the parameters as they appear in the OAuth base string:
+	 * url-encoded key=value pairs joined by '&', the whole thing encoded
+	 * once more. The pairs string is never built, each key and value is
+	 * double-encoded straight into the stream.
+	 * 
+	 * Unlike {@link #writeTo(int, OutputStream)} errors are thrown, so a
+	 * signature stream that fails halfway never signs a truncated base
+	 * string.
+	 * 
+	 * @param writeTo The stream to write to.
+	 * @return The number of bytes written.
+	 * @throws IOException If the stream fails.
+	 */
+	public long writeOAuthBase(final OutputStream writeTo) throws IOException {
+		long byteCount = 0;
+		boolean first = true;
+		for (IParameter p : params) {
+			if (!p.isUsedInBaseString()) {
+				continue;
+			}
+			if (!first) {
+				writeTo.write(ENCODED_PARAM_SEPARATOR);
+				byteCount += ENCODED_PARAM_SEPARATOR.length;
+			}
+			first = false;
+			byteCount += OAuthEncoder.encodeTwice(p.getKey(), writeTo);
+			writeTo.write(ENCODED_PAIR_SEPARATOR);
+			byteCount += ENCODED_PAIR_SEPARATOR.length;
+			byteCount += OAuthEncoder.encodeTwice(p.getValue(), writeTo);
+		}
+		return byteCount;
+	}
+
 	/**
 	 * @param forBase Is this being built as a base string
 	 * @return The string which was created.
@@ -7,13 +7,25 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.scribe.IParameter;
 import org.scribe.exceptions.OAuthConnectionException;
 import org.scribe.exceptions.OAuthException;
+import org.scribe.metrics.Metrics;
+import org.scribe.metrics.Phase;
+import org.scribe.transport.AsyncDispatcher;
+import org.scribe.transport.CircuitBreaker;
+import org.scribe.transport.HttpTransport;
+import org.scribe.transport.RouteLimitingHttpTransport;
+import org.scribe.transport.RateLimitTracker;
+import org.scribe.transport.RetryPolicy;
+import org.scribe.utils.DeflatingOutputStream;
 
 /**
  * Represents an HTTP Request object
@@ -23,6 +35,13 @@ import org.scribe.exceptions.OAuthException;
 public class Request
 {
   private static final String CONTENT_TYPE = "Content-Type";
+  private static final String CONNECTION = "Connection";
+  private static final String ACCEPT_ENCODING = "Accept-Encoding";
+  private static final String COMPRESSED_ENCODINGS = "gzip, deflate";
+  private static final String CONTENT_ENCODING = "Content-Encoding";
+  private static final String RETRY_AFTER = "Retry-After";
+  private static final char QUERY_STRING_SEPARATOR = '?';
+  private static final HttpTransport DEFAULT_TRANSPORT = new RouteLimitingHttpTransport();
   private static RequestTuner NOOP = new RequestTuner() {
     @Override public void tune(Request _){}
   };
@@ -38,7 +57,16 @@ public class Request
   private HttpURLConnection connection;
   private String charset;
   private byte[] bytePayload = null;
-  private boolean connectionKeepAlive = false;
+  private Boolean connectionKeepAlive = null;
+  private Boolean responseCompression = null;
+  private Integer bodyCompressionThreshold = null;
+  private HttpTransport transport;
+  private AsyncDispatcher asyncDispatcher;
+  private RetryPolicy retryPolicy;
+  private RateLimitTracker rateLimitTracker;
+  private String rateLimitKey;
+  private String appRateLimitKey;
+  private Metrics metrics;
   private Long connectTimeout = null;
   private Long readTimeout = null;
   private String contentType;
@@ -68,7 +96,7 @@ public class Request
 	  //If the chunk length is not set and it is recommended
 	  if( this.chunkLen <= 0 
 		  && this.bodyParams.isChunkingRecommended() ) {
-		  this.chunkLen = FileParameter.BUFFER_SIZE;
+		  return FileParameter.BUFFER_SIZE;
 	  }
 	  return this.chunkLen;
   }
@@ -107,21 +135,154 @@ public class Request
   /**
    * Execute the request and return a {@link Response}
    * 
+   * With a {@link RetryPolicy}, connection failures and overloaded provider answers are sent again (after a backoff)
+   * when the policy allows it, the response of the last attempt is returned.
+   * 
    * @return Http Response
    * @throws RuntimeException
    *           if the connection cannot be created.
    */
   public Response send(RequestTuner tuner)
   {
+    if (retryPolicy == null)
+    {
+      acquireRateLimit();
+      return sendOnce(tuner);
+    }
+    CircuitBreaker breaker = retryPolicy.getCircuitBreaker();
+    int attempts = retryPolicy.isRetryable(verb) && bodyParams.isReplayable() ? retryPolicy.getMaxAttempts() : 1;
+    for (int attempt = 1;; attempt++)
+    {
+      if (attempt > 1)
+      {
+        prepareRetry();
+      }
+      // before the breaker, a request held back by the rate limit must not take its probe
+      acquireRateLimit();
+      if (breaker != null && !breaker.allowRequest())
+      {
+        throw new OAuthConnectionException(new IOException("Circuit open, not sending " + getSanitizedUrl()));
+      }
+      Response response = null;
+      OAuthConnectionException failure = null;
+      try
+      {
+        response = sendOnce(tuner);
+      }
+      catch (OAuthConnectionException e)
+      {
+        failure = e;
+      }
+      finally
+      {
+        // whatever was thrown, a half-open breaker must learn the outcome of its probe
+        if (breaker != null)
+        {
+          if (response != null && !retryPolicy.isFailure(response.getCode()))
+          {
+            breaker.onSuccess();
+          }
+          else
+          {
+            breaker.onFailure();
+          }
+        }
+      }
+      if (failure != null)
+      {
+        if (attempt >= attempts)
+        {
+          throw failure;
+        }
+        backOff(retryPolicy.getDelay(attempt, null));
+        continue;
+      }
+      if (!retryPolicy.isFailure(response.getCode()) || attempt >= attempts)
+      {
+        return response;
+      }
+      String retryAfter = response.findHeader(RETRY_AFTER);
+      discard(response);
+      backOff(retryPolicy.getDelay(attempt, retryAfter));
+    }
+  }
+
+  private void acquireRateLimit()
+  {
+    if (rateLimitTracker != null)
+    {
+      rateLimitTracker.acquire(appRateLimitKey);
+      rateLimitTracker.acquire(rateLimitKey);
+    }
+  }
+
+  private Response sendOnce(RequestTuner tuner)
+  {
+    // the response tells the budget of the token it was sent for, the app's otherwise
+    String limitedKey = rateLimitKey != null ? rateLimitKey : appRateLimitKey;
+    boolean limited = rateLimitTracker != null && limitedKey != null;
+    boolean opened = false;
     try
     {
-      createConnection();
-      return doSend(tuner);
+      opened = createConnection();
+      Response response = doSend(tuner);
+      if (limited)
+      {
+        rateLimitTracker.update(limitedKey, response);
+      }
+      return response;
     }
     catch (Exception e)
     {
+      if (metrics != null)
+      {
+        metrics.error(getSanitizedUrl(), -1, e);
+      }
       throw new OAuthConnectionException(e);
     }
+    finally
+    {
+      if (opened)
+      {
+        resolveTransport().releaseConnection(this, connection);
+        connection = null;
+      }
+    }
+  }
+
+  /**
+   * Called before sending the request again, e.g. to sign it again.
+   */
+  void prepareRetry()
+  {
+  }
+
+  private static void backOff(long delay)
+  {
+    try
+    {
+      Thread.sleep(delay);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new OAuthConnectionException(e);
+    }
+  }
+
+  private static void discard(Response response)
+  {
+    try
+    {
+      if (response.getStream() != null)
+      {
+        response.getStream().close();
+      }
+    }
+    catch (IOException e)
+    {
+      // the next attempt uses another connection anyway
+    }
   }
 
   public Response send()
@@ -129,14 +290,40 @@ public class Request
     return send(NOOP);
   }
 
-  private void createConnection() throws IOException
+  /**
+   * Execute the request without blocking the caller thread.
+   *
+   * The request is still sent with blocking I/O, on a thread of the {@link AsyncDispatcher}: each call in flight
+   * holds one thread until its response is read.
+   *
+   * @param tuner tuner applied right before the request is sent
+   * @param callback notified with the {@link Response} or the failure (can be null)
+   * @return a {@link Future} of the Http Response
+   */
+  public Future<Response> sendAsync(final RequestTuner tuner, OAuthAsyncCallback<Response> callback)
+  {
+    return resolveDispatcher().submit(new Callable<Response>()
+    {
+      public Response call()
+      {
+        return send(tuner);
+      }
+    }, callback);
+  }
+
+  public Future<Response> sendAsync(OAuthAsyncCallback<Response> callback)
+  {
+    return sendAsync(NOOP, callback);
+  }
+
+  private boolean createConnection() throws IOException
   {
-    String completeUrl = getCompleteUrl();
     if (connection == null)
     {
-      System.setProperty("http.keepAlive", connectionKeepAlive ? "true" : "false");
-      connection = (HttpURLConnection) new URL(completeUrl).openConnection();
+      connection = resolveTransport().openConnection(this);
+      return true;
     }
+    return false;
   }
 
   /**
@@ -151,6 +338,7 @@ public class Request
 
   Response doSend(RequestTuner tuner) throws IOException
   {
+    long start = metrics == null ? 0 : System.nanoTime();
     connection.setRequestMethod(this.verb.name());
     if (connectTimeout != null) 
     {
@@ -161,21 +349,69 @@ public class Request
       connection.setReadTimeout(readTimeout.intValue());
     }
     addHeaders(connection);
-    if (verb.equals(Verb.PUT) || verb.equals(Verb.POST))
+    boolean hasBody = verb.equals(Verb.PUT) || verb.equals(Verb.POST);
+    boolean compressed = hasBody && prepareBody(connection);
+    tuner.tune(this);
+    if (metrics == null)
     {
-      addBody(connection);
+      if (hasBody)
+      {
+        writeBody(connection, compressed);
+      }
+      return new Response(connection, isResponseCompressionEnabled());
     }
-    tuner.tune(this);
-    return new Response(connection);
+    String endpoint = getSanitizedUrl();
+    // connecting apart times the handshakes alone, the headers go out with the body or once waiting for the response
+    connection.connect();
+    long connected = System.nanoTime();
+    metrics.timing(endpoint, Phase.CONNECT, connected - start);
+    long written = connected;
+    if (hasBody)
+    {
+      metrics.bytesSent(endpoint, writeBody(connection, compressed));
+      written = System.nanoTime();
+      metrics.timing(endpoint, Phase.UPLOAD, written - connected);
+    }
+    Response response = new Response(connection, isResponseCompressionEnabled());
+    metrics.timing(endpoint, Phase.FIRST_BYTE, System.nanoTime() - written);
+    response.setMetrics(metrics, endpoint);
+    if (!response.isSuccessful())
+    {
+      metrics.error(endpoint, response.getCode(), null);
+    }
+    return response;
   }
 
   void addHeaders(HttpURLConnection conn)
   {
+    if (connectionKeepAlive != null && !connectionKeepAlive)
+    {
+      // HttpURLConnection drops "Connection: keep-alive", only close can be asked for
+      conn.setRequestProperty(CONNECTION, "close");
+    }
+    if (isResponseCompressionEnabled())
+    {
+      // an Accept-Encoding header added by hand still wins
+      conn.setRequestProperty(ACCEPT_ENCODING, COMPRESSED_ENCODINGS);
+    }
     for (String key : headers.keySet())
       conn.setRequestProperty(key, headers.get(key));
   }
 
-  void addBody(HttpURLConnection conn) throws IOException
+  /**
+   * @return bytes written to the connection
+   */
+  long addBody(HttpURLConnection conn) throws IOException
+  {
+    return writeBody(conn, prepareBody(conn));
+  }
+
+  /**
+   * Sets the body headers and streaming mode, before connecting
+   * 
+   * @return whether the body is compressed
+   */
+  private boolean prepareBody(HttpURLConnection conn)
   {
     // Set default content type if none is set.
     if (conn.getRequestProperty(CONTENT_TYPE) == null)
@@ -183,11 +419,76 @@ public class Request
     	conn.setRequestProperty(CONTENT_TYPE, this.getContentType());
     }
     conn.setDoOutput(true);
-    //If a chunk length is set
-    if( this.getChunkLength() > 0 ) {
+    if( this.isBodyCompressed() ) {
+    	//The compressed length is only known once sent
+    	conn.setRequestProperty(CONTENT_ENCODING, DeflatingOutputStream.GZIP);
     	conn.setChunkedStreamingMode( this.getChunkLength() );
+    	return true;
+    }
+    //If a chunk length is set explicitly
+    if( this.chunkLen > 0 ) {
+    	conn.setChunkedStreamingMode( this.chunkLen );
+    } else if( this.bodyParams.isChunkingRecommended() ) {
+    	//Stream large bodies with their exact length, chunked only when it's unknown
+    	final long length = this.getBodyLength();
+    	if( length >= 0 && length <= Integer.MAX_VALUE ) {
+    		conn.setFixedLengthStreamingMode( (int) length );
+    	} else {
+    		conn.setChunkedStreamingMode( this.getChunkLength() );
+    	}
+    }
+    return false;
+  }
+
+  /**
+   * @return bytes written to the connection
+   */
+  private long writeBody(HttpURLConnection conn, boolean compressed) throws IOException
+  {
+    if( compressed ) {
+    	final DeflatingOutputStream gzip = new DeflatingOutputStream(conn.getOutputStream());
+    	writeBodyContents(gzip);
+    	gzip.finish();
+    	return gzip.getCompressedSize();
+    }
+    return writeBodyContents(conn.getOutputStream());
+  }
+
+  /**
+   * Computes the number of bytes {@link #writeBodyContents(OutputStream)} writes, without writing them.
+   * 
+   * @return body length or -1 if unknown
+   */
+  long getBodyLength()
+  {
+    if (bytePayload != null)
+    {
+      return bytePayload.length;
+    }
+    if (payload != null)
+    {
+      return payload.getBytes().length;
+    }
+    return bodyParams.getLength(getBodyEncoding());
+  }
+
+  /**
+   * Bodies are gzipped when compression is on and they are at least as long as the threshold,
+   * or of unknown length.
+   */
+  boolean isBodyCompressed()
+  {
+    if (bodyCompressionThreshold == null || bodyCompressionThreshold < 0)
+    {
+      return false;
     }
-    writeBodyContents(conn.getOutputStream());
+    long length = getBodyLength();
+    return length < 0 || length >= bodyCompressionThreshold;
+  }
+
+  private int getBodyEncoding()
+  {
+    return this.getContentType().startsWith(CONTENT_TYPE_MULTIPART) ? IParameter.ENCODING_MULTIPART : IParameter.ENCODING_URL;
   }
 
   /**
@@ -223,6 +524,17 @@ public class Request
 	public void addFile(final String key, final File file) {
 		this.bodyParams.add(new FileParameter(key, file));
 	}
+
+	/**
+	 * Add a body parameter of any kind (for POST/ PUT Requests), e.g. a
+	 * {@link StreamParameter} or a memory-mapped {@link ByteBufferParameter}
+	 * 
+	 * @param param
+	 *            the parameter
+	 */
+	public void addBodyParameter(final IParameter param) {
+		this.bodyParams.add(param);
+	}
 	
   /**
    * Add a QueryString parameter
@@ -309,7 +621,8 @@ public class Request
    */
   public String getSanitizedUrl()
   {
-    return url.replaceAll("\\?.*", "").replace("\\:\\d{4}", "");
+    int queryStart = url.indexOf(QUERY_STRING_SEPARATOR);
+    return queryStart < 0 ? url : url.substring(0, queryStart);
   }
 
   long  writeBodyContents(final OutputStream outStream)
@@ -325,11 +638,7 @@ public class Request
 	    	outStream.write(plBytes);
 	    	byteCount += plBytes.length;
 	    } else {
-	    	int encoding = IParameter.ENCODING_URL;
-	    	if( this.getContentType().startsWith(CONTENT_TYPE_MULTIPART) ){//It is to use multipart encoding
-	    		encoding = IParameter.ENCODING_MULTIPART;
-	    	}
-	    	byteCount += bodyParams.writeTo(encoding, outStream);
+	    	byteCount += bodyParams.writeTo(getBodyEncoding(), outStream);
 	    }
 	} catch (Throwable error) {
 		error.printStackTrace();
@@ -379,6 +688,16 @@ public class Request
     this.connectTimeout = unit.toMillis(duration);
   }
 
+  /**
+   * Returns the connect timeout in milliseconds, or null if none was set.
+   *
+   * @return connect timeout or null
+   */
+  public Long getConnectTimeout()
+  {
+    return connectTimeout;
+  }
+
   /**
    * Sets the read timeout for the underlying {@link HttpURLConnection}
    * 
@@ -403,6 +722,10 @@ public class Request
 
   /**
    * Sets whether the underlying Http Connection is persistent or not.
+   * False sends <code>Connection: close</code>. True leaves the JVM default, which is the most that can be asked:
+   * {@link HttpURLConnection} ignores a <code>Connection: keep-alive</code> header, so neither this nor the
+   * {@link HttpTransport} can turn persistent connections on when the <code>http.keepAlive</code> system property
+   * is false.
    *
    * @see http://download.oracle.com/javase/1.5.0/docs/guide/net/http-keepalive.html
    * @param connectionKeepAlive
@@ -412,6 +735,200 @@ public class Request
     this.connectionKeepAlive = connectionKeepAlive;
   }
 
+  /**
+   * Sets whether the response may come gzip/deflate compressed (Accept-Encoding: gzip, deflate).
+   * Compressed responses are decoded on the fly by {@link Response}. Enabled when not set.
+   *
+   * @param responseCompression false to always get the identity encoding
+   */
+  public void setResponseCompression(boolean responseCompression)
+  {
+    this.responseCompression = responseCompression;
+  }
+
+  /**
+   * Returns whether compressed responses are accepted, or null if not set (they are in that case).
+   *
+   * @return response compression setting or null
+   */
+  public Boolean getResponseCompression()
+  {
+    return responseCompression;
+  }
+
+  private boolean isResponseCompressionEnabled()
+  {
+    return responseCompression == null || responseCompression;
+  }
+
+  /**
+   * Sends the body gzip compressed (Content-Encoding: gzip) when it is at least <code>threshold</code> bytes long.
+   * It's compressed while being written, in chunked mode. Only for servers accepting compressed requests.
+   *
+   * @param threshold minimum body length to compress, negative to never compress (the default)
+   */
+  public void setBodyCompressionThreshold(int threshold)
+  {
+    this.bodyCompressionThreshold = threshold;
+  }
+
+  /**
+   * Returns the body compression threshold, or null if not set (bodies aren't compressed in that case).
+   *
+   * @return threshold in bytes or null
+   */
+  public Integer getBodyCompressionThreshold()
+  {
+    return bodyCompressionThreshold;
+  }
+
+  /**
+   * Sets the {@link HttpTransport} this request is sent through.
+   *
+   * @param transport the transport to use
+   */
+  public void setTransport(HttpTransport transport)
+  {
+    this.transport = transport;
+  }
+
+  /**
+   * Returns the {@link HttpTransport} this request is sent through, or null if none was set
+   * (a shared, uncapped {@link RouteLimitingHttpTransport} is used in that case).
+   *
+   * @return transport or null
+   */
+  public HttpTransport getTransport()
+  {
+    return transport;
+  }
+
+  private HttpTransport resolveTransport()
+  {
+    return transport != null ? transport : DEFAULT_TRANSPORT;
+  }
+
+  /**
+   * Sets the {@link AsyncDispatcher} used by {@link #sendAsync(RequestTuner, OAuthAsyncCallback)}.
+   *
+   * @param asyncDispatcher the dispatcher to use
+   */
+  public void setAsyncDispatcher(AsyncDispatcher asyncDispatcher)
+  {
+    this.asyncDispatcher = asyncDispatcher;
+  }
+
+  /**
+   * Returns the {@link AsyncDispatcher} of this request, or null if none was set
+   * (a shared dispatcher is used in that case).
+   *
+   * @return dispatcher or null
+   */
+  public AsyncDispatcher getAsyncDispatcher()
+  {
+    return asyncDispatcher;
+  }
+
+  private AsyncDispatcher resolveDispatcher()
+  {
+    return asyncDispatcher != null ? asyncDispatcher : AsyncDispatcher.getDefault();
+  }
+
+  /**
+   * Sets the {@link RetryPolicy} applied when sending this request.
+   *
+   * @param retryPolicy the policy to use, null to never retry
+   */
+  public void setRetryPolicy(RetryPolicy retryPolicy)
+  {
+    this.retryPolicy = retryPolicy;
+  }
+
+  /**
+   * Returns the {@link RetryPolicy} of this request, or null if none was set (it's sent once in that case).
+   *
+   * @return retry policy or null
+   */
+  public RetryPolicy getRetryPolicy()
+  {
+    return retryPolicy;
+  }
+
+  /**
+   * Sets the {@link RateLimitTracker} holding this request back when the rate limit of its key is spent.
+   *
+   * @param rateLimitTracker the tracker to use, null to ignore rate limits
+   */
+  public void setRateLimitTracker(RateLimitTracker rateLimitTracker)
+  {
+    this.rateLimitTracker = rateLimitTracker;
+  }
+
+  /**
+   * Returns the {@link RateLimitTracker} of this request, or null if none was set.
+   *
+   * @return tracker or null
+   */
+  public RateLimitTracker getRateLimitTracker()
+  {
+    return rateLimitTracker;
+  }
+
+  /**
+   * Sets the token whose rate limit this request counts against, besides the app's (see {@link RateLimitTracker}).
+   *
+   * @param rateLimitKey the key, e.g. {@link RateLimitTracker#tokenKey(String)}, null if not sent for a token
+   */
+  public void setRateLimitKey(String rateLimitKey)
+  {
+    this.rateLimitKey = rateLimitKey;
+  }
+
+  public String getRateLimitKey()
+  {
+    return rateLimitKey;
+  }
+
+  /**
+   * Sets the app whose rate limit this request counts against (requests without any key aren't tracked).
+   *
+   * @param appRateLimitKey the key, e.g. {@link RateLimitTracker#appKey(String)}
+   */
+  public void setAppRateLimitKey(String appRateLimitKey)
+  {
+    this.appRateLimitKey = appRateLimitKey;
+  }
+
+  public String getAppRateLimitKey()
+  {
+    return appRateLimitKey;
+  }
+
+  /**
+   * Sets the {@link Metrics} the timings, sizes and errors of this request are reported to.
+   *
+   * @param metrics the metrics to use, null to report nothing
+   */
+  public void setMetrics(Metrics metrics)
+  {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the {@link Metrics} of this request, or null if none were set.
+   *
+   * @return metrics or null
+   */
+  public Metrics getMetrics()
+  {
+    return metrics;
+  }
+
+  void removeQuerystringParameters(Collection<String> keys)
+  {
+    querystringParams.removeAll(keys);
+  }
+
   /*
    * We need this in order to stub the connection object for test cases
    */
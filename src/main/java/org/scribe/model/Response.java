@@ -2,9 +2,11 @@ package org.scribe.model;
 
 import java.io.*;
 import java.net.*;
+import java.nio.charset.*;
 import java.util.*;
 
 import org.scribe.exceptions.*;
+import org.scribe.metrics.*;
 import org.scribe.utils.*;
 
 /**
@@ -15,20 +17,42 @@ import org.scribe.utils.*;
 public class Response
 {
   //private static final String EMPTY = "";
+  private static final String CONTENT_TYPE = "Content-Type";
+  private static final String CONTENT_LENGTH = "Content-Length";
+  private static final String CONTENT_ENCODING = "Content-Encoding";
+  private static final String CHARSET = "charset=";
+  private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
 
   private int code;
   private String body;
+  private byte[] bodyBytes;
   private InputStream stream;
+  private HttpURLConnection connection;
+  private Map<String, List<String>> headerFields;
   private Map<String, String> headers;
+  private Metrics metrics;
+  private String endpoint;
 
   Response(HttpURLConnection connection) throws IOException
+  {
+    this(connection, false);
+  }
+
+  /**
+   * @param decompress whether gzip/deflate encoded bodies are decoded (the request asked for them)
+   */
+  Response(HttpURLConnection connection, boolean decompress) throws IOException
   {
     try
     {
       connection.connect();
       code = connection.getResponseCode();
-      headers = parseHeaders(connection);
+      this.connection = connection;
       stream = isSuccessful() ? connection.getInputStream() : connection.getErrorStream();
+      if (decompress)
+      {
+        stream = InflatingInputStream.decode(stream, findHeader(CONTENT_ENCODING));
+      }
     }
     catch (UnknownHostException e)
     {
@@ -38,18 +62,81 @@ public class Response
 
   private String parseBodyContents()
   {
-    body = StreamUtils.getStreamContents(getStream());
+    body = StreamUtils.decode(getBodyBytes(), getCharset());
     return body;
   }
 
-  private Map<String, String> parseHeaders(HttpURLConnection conn)
+  /**
+   * Charset from the Content-Type header, UTF-8 if missing or unsupported
+   */
+  private Charset getCharset()
   {
-    Map<String, String> headers = new HashMap<String, String>();
-    for (String key : conn.getHeaderFields().keySet())
+    String contentType = findHeader(CONTENT_TYPE);
+    int start = contentType == null ? -1 : contentType.toLowerCase(Locale.ENGLISH).indexOf(CHARSET);
+    if (start < 0)
     {
-      headers.put(key, conn.getHeaderFields().get(key).get(0));
+      return DEFAULT_CHARSET;
     }
-    return headers;
+    String name = contentType.substring(start + CHARSET.length());
+    int end = name.indexOf(';');
+    name = (end < 0 ? name : name.substring(0, end)).trim().replace("\"", "");
+    try
+    {
+      return Charset.forName(name);
+    }
+    catch (IllegalArgumentException e)
+    {
+      return DEFAULT_CHARSET;
+    }
+  }
+
+  /**
+   * Content-Length, only a size hint for compressed bodies (it's the encoded length)
+   */
+  private int getContentLength()
+  {
+    String length = findHeader(CONTENT_LENGTH);
+    try
+    {
+      return length == null ? -1 : Integer.parseInt(length.trim());
+    }
+    catch (NumberFormatException e)
+    {
+      return -1;
+    }
+  }
+
+  /**
+   * Single header lookup that doesn't materialize the header map
+   */
+  String findHeader(String name)
+  {
+    return headerFields != null ? getHeader(name) : connection.getHeaderField(name);
+  }
+
+  private Map<String, List<String>> parseHeaders()
+  {
+    Map<String, List<String>> fields = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+    for (Map.Entry<String, List<String>> field : connection.getHeaderFields().entrySet())
+    {
+      // the null key holds the status line
+      if (field.getKey() == null || field.getValue() == null || field.getValue().isEmpty())
+      {
+        continue;
+      }
+      List<String> values = fields.get(field.getKey());
+      if (values == null)
+      {
+        fields.put(field.getKey(), Collections.unmodifiableList(field.getValue()));
+      }
+      else
+      {
+        List<String> merged = new ArrayList<String>(values);
+        merged.addAll(field.getValue());
+        fields.put(field.getKey(), Collections.unmodifiableList(merged));
+      }
+    }
+    return Collections.unmodifiableMap(fields);
   }
 
   public boolean isSuccessful()
@@ -67,15 +154,46 @@ public class Response
     return body != null ? body : parseBodyContents();
   }
 
+  /**
+   * Obtains the raw HTTP Response body, for binary responses
+   * 
+   * @return response body bytes
+   */
+  public byte[] getBodyBytes()
+  {
+    if (bodyBytes == null)
+    {
+      long start = metrics == null ? 0 : System.nanoTime();
+      bodyBytes = StreamUtils.getStreamBytes(getStream(), getContentLength());
+      if (metrics != null)
+      {
+        metrics.timing(endpoint, Phase.BODY_READ, System.nanoTime() - start);
+        metrics.bytesReceived(endpoint, bodyBytes.length);
+      }
+    }
+    return bodyBytes;
+  }
+
+  /**
+   * Reports the body read to the metrics of the request
+   */
+  void setMetrics(Metrics metrics, String endpoint)
+  {
+    this.metrics = metrics;
+    this.endpoint = endpoint;
+  }
+
   /**
    * Obtains the meaningful stream of the HttpUrlConnection, either inputStream
-   * or errorInputStream, depending on the status code
+   * or errorInputStream, depending on the status code.
+   * Already decoded if the request accepted compressed responses (Content-Encoding stays in the headers).
+   * Once the body was read, a stream over it.
    * 
    * @return input stream / error stream
    */
   public InputStream getStream()
   {
-    return stream;
+    return bodyBytes != null ? new ByteArrayInputStream(bodyBytes) : stream;
   }
 
   /**
@@ -89,25 +207,63 @@ public class Response
   }
 
   /**
-   * Obtains a {@link Map} containing the HTTP Response Headers
+   * Obtains a {@link Map} containing the HTTP Response Headers (first value of each), keyed case-insensitively
    * 
    * @return headers
    */
   public Map<String, String> getHeaders()
   {
+    if (headers == null)
+    {
+      Map<String, String> firstValues = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+      for (Map.Entry<String, List<String>> field : getHeaderFields().entrySet())
+      {
+        firstValues.put(field.getKey(), field.getValue().get(0));
+      }
+      headers = Collections.unmodifiableMap(firstValues);
+    }
     return headers;
   }
 
   /**
-   * Obtains a single HTTP Header value, or null if undefined
+   * Obtains every value of every HTTP Response Header, keyed case-insensitively.
+   * Built on first use, responses that are only asked for their code and body never copy their headers.
    * 
-   * @param name the header name.
+   * @return header values by name
+   */
+  public Map<String, List<String>> getHeaderFields()
+  {
+    if (headerFields == null)
+    {
+      headerFields = parseHeaders();
+    }
+    return headerFields;
+  }
+
+  /**
+   * Obtains a single HTTP Header value (the first one if repeated), or null if undefined
+   * 
+   * @param name the header name, case-insensitive.
    * 
    * @return header value or null.
    */
   public String getHeader(String name)
   {
-    return headers.get(name);
+    List<String> values = getHeaderFields().get(name);
+    return values == null ? null : values.get(0);
+  }
+
+  /**
+   * Obtains all the values of a repeated HTTP Header (e.g. Set-Cookie)
+   * 
+   * @param name the header name, case-insensitive.
+   * 
+   * @return header values, empty if undefined
+   */
+  public List<String> getHeaderValues(String name)
+  {
+    List<String> values = getHeaderFields().get(name);
+    return values != null ? values : Collections.<String>emptyList();
   }
 
 }
\ No newline at end of file
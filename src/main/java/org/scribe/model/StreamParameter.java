@@ -0,0 +1,93 @@
+/**
+ * 
+ */
+package org.scribe.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import org.scribe.utils.Preconditions;
+
+/**
+ * A file part read from an {@link InputStream} or a
+ * {@link ReadableByteChannel}. The source is read (and closed) once, when the
+ * request is sent, so the parameter can't be sent twice.
+ * 
+ * When the length of the content is given the request is sent with a fixed
+ * Content-Length, otherwise it is sent chunked. A wrong length makes the
+ * request fail.
+ * 
+ * @author Jermaine
+ * 
+ */
+public class StreamParameter extends BinaryParameter {
+
+	private final String fileName;
+	private final ReadableByteChannel source;
+	private final long contentLength;
+
+	public StreamParameter(final String key, final String fileName, final InputStream source) {
+		this(key, fileName, Channels.newChannel(source));
+	}
+
+	public StreamParameter(final String key, final String fileName, final InputStream source, final long contentLength) {
+		this(key, fileName, Channels.newChannel(source), contentLength);
+	}
+
+	public StreamParameter(final String key, final String fileName, final ReadableByteChannel source) {
+		this(key, fileName, source, -1);
+	}
+
+	/**
+	 * @param key The name of the parameter.
+	 * @param fileName The filename to be sent.
+	 * @param source The content.
+	 * @param contentLength The exact number of bytes in the source, or -1 if unknown.
+	 */
+	public StreamParameter(final String key, final String fileName, final ReadableByteChannel source, final long contentLength) {
+		super(key);
+		Preconditions.checkNotNull(source, "Source can't be null");
+		this.fileName = fileName;
+		this.source = source;
+		this.contentLength = contentLength;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.scribe.model.Parameter#getValue()
+	 */
+	@Override
+	public String getValue() {
+		return this.fileName;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.scribe.model.Parameter#writeValue(java.io.OutputStream)
+	 */
+	@Override
+	protected long writeValue(final OutputStream writeTo) throws IOException {
+		try {
+			return copy(this.source, writeTo);
+		} finally {
+			this.source.close();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.scribe.model.Parameter#getValueLength()
+	 */
+	@Override
+	protected long getValueLength() {
+		return this.contentLength;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.scribe.model.BinaryParameter#getFileName()
+	 */
+	@Override
+	public String getFileName() {
+		return this.fileName;
+	}
+}
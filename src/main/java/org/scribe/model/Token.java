@@ -1,6 +1,7 @@
 package org.scribe.model;
 
 import java.io.*;
+import java.util.*;
 import org.scribe.utils.*;
 
 /**
@@ -15,6 +16,11 @@ public class Token implements Serializable
   private final String token;
   private final String secret;
   private final String rawResponse;
+  private final long expiresAt;
+  private final String refreshToken;
+  private final String tokenType;
+  private final String scope;
+  private final Map<String, String> parameters;
 
   /**
    * Default constructor
@@ -28,6 +34,36 @@ public class Token implements Serializable
   }
 
   public Token(String token, String secret, String rawResponse)
+  {
+    this(token, secret, rawResponse, 0);
+  }
+
+  /**
+   * @param expiresAt expiration time in milliseconds since the epoch, 0 if the token doesn't expire
+   */
+  public Token(String token, String secret, String rawResponse, long expiresAt)
+  {
+    this(token, secret, rawResponse, expiresAt, null);
+  }
+
+  /**
+   * @param expiresAt expiration time in milliseconds since the epoch, 0 if the token doesn't expire
+   * @param refreshToken OAuth 2.0 refresh token, null if none
+   */
+  public Token(String token, String secret, String rawResponse, long expiresAt, String refreshToken)
+  {
+    this(token, secret, rawResponse, expiresAt, refreshToken, null, null, null);
+  }
+
+  /**
+   * @param expiresAt expiration time in milliseconds since the epoch, 0 if the token doesn't expire
+   * @param refreshToken OAuth 2.0 refresh token, null if none
+   * @param tokenType OAuth 2.0 token type (e.g. "bearer"), null if not given
+   * @param scope OAuth 2.0 scope granted, null if not given
+   * @param parameters every other field of the response, by name. Null if none
+   */
+  public Token(String token, String secret, String rawResponse, long expiresAt, String refreshToken, String tokenType,
+      String scope, Map<String, String> parameters)
   {
     Preconditions.checkNotNull(token, "Token can't be null");
     Preconditions.checkNotNull(secret, "Secret can't be null");
@@ -35,6 +71,12 @@ public class Token implements Serializable
     this.token = token;
     this.secret = secret;
     this.rawResponse = rawResponse;
+    this.expiresAt = expiresAt;
+    this.refreshToken = refreshToken;
+    this.tokenType = tokenType;
+    this.scope = scope;
+    this.parameters = parameters == null || parameters.isEmpty() ? Collections.<String, String>emptyMap()
+        : Collections.unmodifiableMap(new LinkedHashMap<String, String>(parameters));
   }
 
   public String getToken()
@@ -56,6 +98,76 @@ public class Token implements Serializable
     return rawResponse;
   }
 
+  /**
+   * Returns the expiration time in milliseconds since the epoch, 0 if the token doesn't expire
+   */
+  public long getExpiresAt()
+  {
+    return expiresAt;
+  }
+
+  /**
+   * Returns the OAuth 2.0 refresh token, null if none was issued
+   */
+  public String getRefreshToken()
+  {
+    return refreshToken;
+  }
+
+  /**
+   * Returns the OAuth 2.0 token type (e.g. "bearer"), null if the provider didn't say
+   */
+  public String getTokenType()
+  {
+    return tokenType;
+  }
+
+  /**
+   * Returns the OAuth 2.0 scope granted, null if the provider didn't say
+   */
+  public String getScope()
+  {
+    return scope;
+  }
+
+  /**
+   * Returns a field of the token response other than the token, its type, expiration, refresh token and scope
+   * (e.g. the user id some providers send along), null if absent
+   *
+   * @param name name of the field
+   */
+  public String getParameter(String name)
+  {
+    return getParameters().get(name);
+  }
+
+  /**
+   * Returns every field of the token response other than the token, its type, expiration, refresh token and scope
+   */
+  public Map<String, String> getParameters()
+  {
+    // null in tokens serialized before they were kept
+    return parameters != null ? parameters : Collections.<String, String>emptyMap();
+  }
+
+  /**
+   * Returns true if the token has an expiration time and it's passed
+   */
+  public boolean isExpired()
+  {
+    return isExpired(System.currentTimeMillis());
+  }
+
+  /**
+   * Returns true if the token has an expiration time and it's passed at the given time
+   *
+   * @param now time in milliseconds since the epoch
+   */
+  public boolean isExpired(long now)
+  {
+    return expiresAt > 0 && now >= expiresAt;
+  }
+
   @Override
   public String toString()
   {
@@ -0,0 +1,143 @@
+package org.scribe.oauth;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.scribe.exceptions.*;
+import org.scribe.model.*;
+
+/**
+ * Signs a batch of requests in parallel: the batch is cut into one contiguous slice per worker (never smaller than
+ * {@link #MIN_SLICE} requests, so small batches don't pay for task hand-offs), the caller thread signing the last one.
+ *
+ * @author Pablo Fernandez
+ */
+abstract class BatchSigner
+{
+  static final int MIN_SLICE = 64;
+
+  private final int processors;
+
+  BatchSigner()
+  {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param processors most slices the batch is cut into
+   */
+  BatchSigner(int processors)
+  {
+    this.processors = processors;
+  }
+
+  /**
+   * Signs every request, returning once they all are. A failing slice doesn't stop the others, they are all
+   * finished before the failure is thrown.
+   *
+   * @param requests requests to sign
+   * @param executor runs the slices but the last one (null to sign everything on the caller thread)
+   * @throws OAuthException (or the exception thrown by the signature) if any request could not be signed, the
+   *         message telling how many slices failed when there's more than one
+   */
+  void signAll(Collection<OAuthRequest> requests, ExecutorService executor)
+  {
+    final List<OAuthRequest> batch = requests instanceof List && requests instanceof RandomAccess ? (List<OAuthRequest>) requests : new ArrayList<OAuthRequest>(requests);
+    int size = batch.size();
+    int workers = executor == null ? 1 : Math.min(processors, (size + MIN_SLICE - 1) / MIN_SLICE);
+    if (workers <= 1)
+    {
+      sign(batch, 0, size);
+      return;
+    }
+    List<Future<?>> slices = new ArrayList<Future<?>>(workers - 1);
+    Throwable failure = null;
+    int failures = 0;
+    try
+    {
+      for (int worker = 0; worker < workers - 1; worker++)
+      {
+        final int from = size * worker / workers;
+        final int to = size * (worker + 1) / workers;
+        slices.add(executor.submit(new Runnable()
+        {
+          public void run()
+          {
+            sign(batch, from, to);
+          }
+        }));
+      }
+      sign(batch, size * (workers - 1) / workers, size);
+    }
+    catch (RuntimeException e)
+    {
+      failure = e;
+      failures++;
+    }
+    catch (Error e)
+    {
+      failure = e;
+      failures++;
+    }
+    boolean interrupted = false;
+    for (Future<?> slice : slices)
+    {
+      // the slices write to the requests, so they must all be over before returning, even when interrupted
+      while (true)
+      {
+        try
+        {
+          slice.get();
+          break;
+        }
+        catch (ExecutionException e)
+        {
+          if (failure == null)
+          {
+            failure = e.getCause();
+          }
+          failures++;
+          break;
+        }
+        catch (InterruptedException e)
+        {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+    if (failure instanceof Error)
+    {
+      throw (Error) failure;
+    }
+    if (failures > 1)
+    {
+      throw new OAuthException(failures + " of " + workers + " slices of the batch could not be signed", asException(failure));
+    }
+    if (failure instanceof RuntimeException)
+    {
+      throw (RuntimeException) failure;
+    }
+    if (failure != null)
+    {
+      throw new OAuthException("Could not sign the batch", asException(failure));
+    }
+  }
+
+  /**
+   * Signs a slice of the batch, on a single thread
+   *
+   * @param batch every request of the batch
+   * @param from first request of the slice
+   * @param to end of the slice (exclusive)
+   */
+  abstract void sign(List<OAuthRequest> batch, int from, int to);
+
+  private static Exception asException(Throwable failure)
+  {
+    return failure instanceof Exception ? (Exception) failure : new ExecutionException(failure);
+  }
+}
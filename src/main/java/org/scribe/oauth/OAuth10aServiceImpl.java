@@ -1,10 +1,19 @@
 package org.scribe.oauth;
 
+import java.io.*;
 import java.util.*;
 
 import org.scribe.builder.api.*;
+import org.scribe.exceptions.*;
+import org.scribe.extractors.*;
+import org.scribe.log.*;
+import org.scribe.metrics.*;
 import org.scribe.model.*;
-import org.scribe.utils.*;
+import org.scribe.services.*;
+import org.scribe.transport.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -15,9 +24,13 @@ import java.util.concurrent.TimeUnit;
 public class OAuth10aServiceImpl implements OAuthService
 {
   private static final String VERSION = "1.0";
+  private static final String ACCESS_FLIGHT = "access:";
 
   private OAuthConfig config;
   private DefaultApi10a api;
+  private final SigningContext context;
+  private final SigningContext batchContext;
+  private final SingleFlight<Token> flights = new SingleFlight<Token>();
 
   /**
    * Default constructor
@@ -29,6 +42,8 @@ public class OAuth10aServiceImpl implements OAuthService
   {
     this.api = api;
     this.config = config;
+    this.context = new SigningContext(api, config, VERSION);
+    this.batchContext = context.forBatch();
   }
 
   /**
@@ -46,34 +61,81 @@ public class OAuth10aServiceImpl implements OAuthService
 
   public Token getRequestToken(RequestTuner tuner)
   {
-    config.log("obtaining request token from " + api.getRequestTokenEndpoint());
+    OAuthRequest request = createRequestTokenRequest();
+    config.log(LogLevel.DEBUG, "sending request...");
+    return extractRequestToken(request.send(tuner));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Future<Token> getRequestTokenAsync(OAuthAsyncCallback<Token> callback)
+  {
+    return getRequestTokenAsync(new TimeoutTuner(2, TimeUnit.SECONDS), callback);
+  }
+
+  public Future<Token> getRequestTokenAsync(final RequestTuner tuner, OAuthAsyncCallback<Token> callback)
+  {
+    final OAuthRequest request = createRequestTokenRequest();
+    config.log(LogLevel.DEBUG, "sending request asynchronously...");
+    return config.getAsyncDispatcher().submit(new Callable<Token>()
+    {
+      public Token call()
+      {
+        return extractRequestToken(request.send(tuner));
+      }
+    }, callback);
+  }
+
+  private OAuthRequest createRequestTokenRequest()
+  {
+    if (config.getLogger().isEnabled(LogLevel.DEBUG))
+    {
+      config.log(LogLevel.DEBUG, "obtaining request token from {}", api.getRequestTokenEndpoint());
+    }
     OAuthRequest request = new OAuthRequest(api.getRequestTokenVerb(), api.getRequestTokenEndpoint());
 
-    config.log("setting oauth_callback to " + config.getCallback());
+    if (config.getLogger().isEnabled(LogLevel.DEBUG))
+    {
+      config.log(LogLevel.DEBUG, "setting oauth_callback to {}", config.getCallback());
+    }
     request.addOAuthParameter(OAuthConstants.CALLBACK, config.getCallback());
-    addOAuthParams(request, OAuthConstants.EMPTY_TOKEN);
+    addOAuthParams(request, OAuthConstants.EMPTY_TOKEN, context);
     appendSignature(request);
+    request.setSigner(new Resigner(OAuthConstants.EMPTY_TOKEN, context));
+    config.applyTo(request);
+    return request;
+  }
 
-    config.log("sending request...");
-    Response response = request.send(tuner);
+  private Token extractRequestToken(Response response)
+  {
     String body = response.getBody();
 
-    config.log("response status code: " + response.getCode());
-    config.log("response body: " + body);
+    if (config.getLogger().isEnabled(LogLevel.DEBUG))
+    {
+      config.log(LogLevel.DEBUG, "response status code: {}", response.getCode());
+      config.log(LogLevel.TRACE, "response body: {}", body);
+    }
     return api.getRequestTokenExtractor().extract(body);
   }
 
-  private void addOAuthParams(OAuthRequest request, Token token)
+  private void addOAuthParams(OAuthRequest request, Token token, SigningContext context)
   {
-    request.addOAuthParameter(OAuthConstants.TIMESTAMP, api.getTimestampService().getTimestampInSeconds());
-    request.addOAuthParameter(OAuthConstants.NONCE, api.getTimestampService().getNonce());
-    request.addOAuthParameter(OAuthConstants.CONSUMER_KEY, config.getApiKey());
-    request.addOAuthParameter(OAuthConstants.SIGN_METHOD, api.getSignatureService().getSignatureMethod());
-    request.addOAuthParameter(OAuthConstants.VERSION, getVersion());
+    TimestampService timestampService = context.getTimestampService();
+    if (request.getClockSkew() == null)
+    {
+      request.setClockSkew(context.getClockSkew());
+    }
+    request.addOAuthParameter(OAuthConstants.TIMESTAMP, timestampService.getTimestampInSeconds());
+    request.addOAuthParameter(OAuthConstants.NONCE, timestampService.getNonce());
+    context.addStaticParams(request);
     if(config.hasScope()) request.addOAuthParameter(OAuthConstants.SCOPE, config.getScope());
-    request.addOAuthParameter(OAuthConstants.SIGNATURE, getSignature(request, token));
+    request.addOAuthParameter(OAuthConstants.SIGNATURE, getSignature(request, token, context));
 
-    config.log("appended additional OAuth parameters: " + MapUtils.toString(request.getOauthParameters()));
+    if (config.getLogger().isEnabled(LogLevel.TRACE))
+    {
+      config.log(LogLevel.TRACE, "appended additional OAuth parameters: {}", request.getOauthParameters());
+    }
   }
 
   /**
@@ -89,18 +151,73 @@ public class OAuth10aServiceImpl implements OAuthService
     return getAccessToken(requestToken, verifier, 2, TimeUnit.SECONDS);
   }
 
+  /**
+   * Concurrent exchanges of the same request token and verifier share a single request.
+   * Callers arriving shortly after it completed get the same token.
+   */
   public Token getAccessToken(Token requestToken, Verifier verifier, RequestTuner tuner)
   {
-    config.log("obtaining access token from " + api.getAccessTokenEndpoint());
+    return flights.execute(accessFlight(requestToken, verifier), accessTokenCall(requestToken, verifier, tuner));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Future<Token> getAccessTokenAsync(Token requestToken, Verifier verifier, OAuthAsyncCallback<Token> callback)
+  {
+    return getAccessTokenAsync(requestToken, verifier, new TimeoutTuner(2, TimeUnit.SECONDS), callback);
+  }
+
+  public Future<Token> getAccessTokenAsync(Token requestToken, Verifier verifier, RequestTuner tuner, OAuthAsyncCallback<Token> callback)
+  {
+    final String flight = accessFlight(requestToken, verifier);
+    final Callable<Token> call = accessTokenCall(requestToken, verifier, tuner);
+    return config.getAsyncDispatcher().submit(new Callable<Token>()
+    {
+      public Token call()
+      {
+        return flights.execute(flight, call);
+      }
+    }, callback);
+  }
+
+  private static String accessFlight(Token requestToken, Verifier verifier)
+  {
+    return ACCESS_FLIGHT + requestToken.getToken() + '&' + verifier.getValue();
+  }
+
+  private Callable<Token> accessTokenCall(Token requestToken, Verifier verifier, final RequestTuner tuner)
+  {
+    final OAuthRequest request = createAccessTokenRequest(requestToken, verifier);
+    return new Callable<Token>()
+    {
+      public Token call()
+      {
+        Response response = request.send(tuner);
+        return api.getAccessTokenExtractor().extract(response.getBody());
+      }
+    };
+  }
+
+  private OAuthRequest createAccessTokenRequest(Token requestToken, Verifier verifier)
+  {
+    if (config.getLogger().isEnabled(LogLevel.DEBUG))
+    {
+      config.log(LogLevel.DEBUG, "obtaining access token from {}", api.getAccessTokenEndpoint());
+    }
     OAuthRequest request = new OAuthRequest(api.getAccessTokenVerb(), api.getAccessTokenEndpoint());
     request.addOAuthParameter(OAuthConstants.TOKEN, requestToken.getToken());
     request.addOAuthParameter(OAuthConstants.VERIFIER, verifier.getValue());
 
-    config.log("setting token to: " + requestToken + " and verifier to: " + verifier);
-    addOAuthParams(request, requestToken);
+    if (config.getLogger().isEnabled(LogLevel.DEBUG))
+    {
+      config.log(LogLevel.DEBUG, "setting token to: {} and verifier to: {}", requestToken, verifier);
+    }
+    addOAuthParams(request, requestToken, context);
     appendSignature(request);
-    Response response = request.send(tuner);
-    return api.getAccessTokenExtractor().extract(response.getBody());
+    request.setSigner(new Resigner(requestToken, context));
+    config.applyTo(request);
+    return request;
   }
 
   /**
@@ -108,16 +225,76 @@ public class OAuth10aServiceImpl implements OAuthService
    */
   public void signRequest(Token token, OAuthRequest request)
   {
-    config.log("signing request: " + request.getCompleteUrl());
+    signRequest(token, request, context);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void signRequests(final Token token, Collection<OAuthRequest> requests, ExecutorService executor)
+  {
+    new BatchSigner()
+    {
+      @Override
+      void sign(List<OAuthRequest> batch, int from, int to)
+      {
+        for (int i = from; i < to; i++)
+        {
+          signRequest(token, batch.get(i), batchContext);
+        }
+      }
+    }.signAll(requests, executor);
+  }
+
+  private void signRequest(Token token, OAuthRequest request, SigningContext context)
+  {
+    if (config.getLogger().isEnabled(LogLevel.DEBUG))
+    {
+      config.log(LogLevel.DEBUG, "signing request: {}", request.getCompleteUrl());
+    }
 
     // Do not append the token if empty. This is for two legged OAuth calls.
     if (!token.isEmpty())
     {
       request.addOAuthParameter(OAuthConstants.TOKEN, token.getToken());
     }
-    config.log("setting token to: " + token);
-    addOAuthParams(request, token);
+    if (config.getLogger().isEnabled(LogLevel.DEBUG))
+    {
+      config.log(LogLevel.DEBUG, "setting token to: {}", token);
+    }
+    addOAuthParams(request, token, context);
     appendSignature(request);
+    request.setSigner(new Resigner(token, context));
+    if (!token.isEmpty() && request.getRateLimitKey() == null && config.getRateLimitTracker() != null)
+    {
+      request.setRateLimitKey(RateLimitTracker.tokenKey(token.getToken()));
+    }
+    config.applyTo(request);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void signRequest(String userId, OAuthRequest request)
+  {
+    Token accessToken = config.getTokenStore().get(userId);
+    if (accessToken == null)
+    {
+      throw new OAuthException("No valid access token stored for user " + userId);
+    }
+    if (request.getRateLimitKey() == null && config.getRateLimitTracker() != null)
+    {
+      request.setRateLimitKey(RateLimitTracker.userKey(userId));
+    }
+    signRequest(accessToken, request);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public TokenStore getTokenStore()
+  {
+    return config.getTokenStore();
   }
 
   /**
@@ -136,14 +313,66 @@ public class OAuth10aServiceImpl implements OAuthService
     return api.getAuthorizationUrl(requestToken);
   }
 
-  private String getSignature(OAuthRequest request, Token token)
+  private String getSignature(OAuthRequest request, Token token, SigningContext context)
+  {
+    config.log(LogLevel.TRACE, "generating signature...");
+    BaseStringExtractor extractor = context.getBaseStringExtractor();
+    SignatureService signatureService = context.getSignatureService();
+    if (extractor instanceof StreamingBaseStringExtractor && signatureService instanceof StreamingSignatureService)
+    {
+      return getStreamedSignature(request, token, (StreamingBaseStringExtractor) extractor, (StreamingSignatureService) signatureService);
+    }
+    Metrics metrics = config.getMetrics();
+    long start = metrics == null ? 0 : System.nanoTime();
+    String baseString = extractor.extract(request);
+    long extracted = metrics == null ? 0 : System.nanoTime();
+    String signature = signatureService.getSignature(baseString, config.getApiSecret(), token.getSecret());
+    if (metrics != null)
+    {
+      String endpoint = request.getSanitizedUrl();
+      metrics.timing(endpoint, Phase.BASE_STRING, extracted - start);
+      metrics.timing(endpoint, Phase.SIGNATURE, System.nanoTime() - extracted);
+    }
+
+    if (config.getLogger().isEnabled(LogLevel.TRACE))
+    {
+      config.log(LogLevel.TRACE, "base string is: {}", baseString);
+      config.log(LogLevel.TRACE, "signature is: {}", signature);
+    }
+    return signature;
+  }
+
+  /**
+   * Writes the base string straight into the signature. It is only captured when debugging.
+   */
+  private String getStreamedSignature(OAuthRequest request, Token token, StreamingBaseStringExtractor extractor, StreamingSignatureService signatureService)
   {
-    config.log("generating signature...");
-    String baseString = api.getBaseStringExtractor().extract(request);
-    String signature = api.getSignatureService().getSignature(baseString, config.getApiSecret(), token.getSecret());
+    Metrics metrics = config.getMetrics();
+    long start = metrics == null ? 0 : System.nanoTime();
+    SignatureOutputStream signatureStream = signatureService.newSignatureStream(config.getApiSecret(), token.getSecret());
+    ByteArrayOutputStream captured = config.getLogger().isEnabled(LogLevel.TRACE) ? new ByteArrayOutputStream() : null;
+    try
+    {
+      extractor.extract(request, captured == null ? signatureStream : new TeeOutputStream(signatureStream, captured));
+    }
+    catch (IOException e)
+    {
+      throw new OAuthSignatureException(request.toString(), e);
+    }
+    long extracted = metrics == null ? 0 : System.nanoTime();
+    String signature = signatureStream.getSignature();
+    if (metrics != null)
+    {
+      String endpoint = request.getSanitizedUrl();
+      metrics.timing(endpoint, Phase.BASE_STRING, extracted - start);
+      metrics.timing(endpoint, Phase.SIGNATURE, System.nanoTime() - extracted);
+    }
 
-    config.log("base string is: " + baseString);
-    config.log("signature is: " + signature);
+    if (captured != null)
+    {
+      config.log(LogLevel.TRACE, "base string is: {}", new String(captured.toByteArray()));
+      config.log(LogLevel.TRACE, "signature is: {}", signature);
+    }
     return signature;
   }
 
@@ -152,13 +381,13 @@ public class OAuth10aServiceImpl implements OAuthService
     switch (config.getSignatureType())
     {
       case Header:
-        config.log("using Http Header signature");
+        config.log(LogLevel.DEBUG, "using Http Header signature");
 
-        String oauthHeader = api.getHeaderExtractor().extract(request);
+        String oauthHeader = context.getHeaderExtractor().extract(request);
         request.addHeader(OAuthConstants.HEADER, oauthHeader);
         break;
       case QueryString:
-        config.log("using Querystring signature");
+        config.log(LogLevel.DEBUG, "using Querystring signature");
 
         for (Map.Entry<String, String> entry : request.getOauthParameters().entrySet())
         {
@@ -168,6 +397,55 @@ public class OAuth10aServiceImpl implements OAuthService
     }
   }
 
+  /**
+   * Signs a request again (fresh timestamp and nonce) before it's retried
+   */
+  private class Resigner extends RequestTuner
+  {
+    private final Token token;
+    private final SigningContext context;
+
+    Resigner(Token token, SigningContext context)
+    {
+      this.token = token;
+      this.context = context;
+    }
+
+    @Override
+    public void tune(Request request)
+    {
+      OAuthRequest oauthRequest = (OAuthRequest) request;
+      addOAuthParams(oauthRequest, token, context);
+      appendSignature(oauthRequest);
+    }
+  }
+
+  private static class TeeOutputStream extends OutputStream
+  {
+    private final OutputStream first;
+    private final OutputStream second;
+
+    TeeOutputStream(OutputStream first, OutputStream second)
+    {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+      first.write(b);
+      second.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+      first.write(b, off, len);
+      second.write(b, off, len);
+    }
+  }
+
   private static class TimeoutTuner extends RequestTuner
   {
     private final int duration;
@@ -1,14 +1,24 @@
 package org.scribe.oauth;
 
+import java.util.*;
+import java.util.concurrent.*;
+
 import org.scribe.builder.api.*;
+import org.scribe.exceptions.*;
 import org.scribe.model.*;
+import org.scribe.services.*;
+import org.scribe.transport.*;
 
 public class OAuth20ServiceImpl implements OAuthService
 {
   private static final String VERSION = "2.0";
+  private static final String CODE_FLIGHT = "code:";
+  private static final String REFRESH_FLIGHT = "refresh:";
   
   private final DefaultApi20 api;
   private final OAuthConfig config;
+  private final TokenStore tokenStore;
+  private final SingleFlight<Token> flights = new SingleFlight<Token>();
   
   /**
    * Default constructor
@@ -20,12 +30,53 @@ public class OAuth20ServiceImpl implements OAuthService
   {
     this.api = api;
     this.config = config;
+    this.tokenStore = config.getRefreshAhead() > 0 ? new RefreshingTokenStore(this, config) : config.getTokenStore();
   }
 
   /**
    * {@inheritDoc}
+   *
+   * Concurrent exchanges of the same code share a single request.
+   * Callers arriving shortly after it completed get the same token.
    */
   public Token getAccessToken(Token requestToken, Verifier verifier)
+  {
+    return flights.execute(CODE_FLIGHT + verifier.getValue(), accessTokenCall(verifier));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Future<Token> getAccessTokenAsync(Token requestToken, Verifier verifier, OAuthAsyncCallback<Token> callback)
+  {
+    return submit(CODE_FLIGHT + verifier.getValue(), accessTokenCall(verifier), callback);
+  }
+
+  private Callable<Token> accessTokenCall(Verifier verifier)
+  {
+    final OAuthRequest request = createAccessTokenRequest(verifier);
+    return new Callable<Token>()
+    {
+      public Token call()
+      {
+        Response response = request.send();
+        return api.getAccessTokenExtractor().extract(response.getBody());
+      }
+    };
+  }
+
+  private Future<Token> submit(final String flight, final Callable<Token> call, OAuthAsyncCallback<Token> callback)
+  {
+    return config.getAsyncDispatcher().submit(new Callable<Token>()
+    {
+      public Token call()
+      {
+        return flights.execute(flight, call);
+      }
+    }, callback);
+  }
+
+  private OAuthRequest createAccessTokenRequest(Verifier verifier)
   {
     OAuthRequest request = new OAuthRequest(api.getAccessTokenVerb(), api.getAccessTokenEndpoint());
     request.addQuerystringParameter(OAuthConstants.CLIENT_ID, config.getApiKey());
@@ -33,8 +84,86 @@ public class OAuth20ServiceImpl implements OAuthService
     request.addQuerystringParameter(OAuthConstants.CODE, verifier.getValue());
     request.addQuerystringParameter(OAuthConstants.REDIRECT_URI, config.getCallback());
     if(config.hasScope()) request.addQuerystringParameter(OAuthConstants.SCOPE, config.getScope());
-    Response response = request.send();
-    return api.getAccessTokenExtractor().extract(response.getBody());
+    config.applyTo(request);
+    return request;
+  }
+
+  /**
+   * Exchanges the refresh token of an access token for a new access token (refresh_token grant).
+   * The refresh token is kept if the response doesn't carry a new one.
+   * Concurrent refreshes of the same refresh token share a single request.
+   * Callers arriving shortly after it completed get the same token.
+   *
+   * @param accessToken access token with a refresh token
+   * @return new access token
+   * @throws OAuthException if the token has no refresh token or the response has no access token
+   */
+  public Token refreshAccessToken(Token accessToken)
+  {
+    return flights.execute(REFRESH_FLIGHT + accessToken.getRefreshToken(), refreshCall(accessToken));
+  }
+
+  /**
+   * Refreshes an access token without blocking the caller thread, see {@link #refreshAccessToken(Token)}.
+   *
+   * @param accessToken access token with a refresh token
+   * @param callback notified with the new access token or the failure (can be null)
+   * @return a {@link Future} of the new access token
+   */
+  public Future<Token> refreshAccessTokenAsync(Token accessToken, OAuthAsyncCallback<Token> callback)
+  {
+    return submit(REFRESH_FLIGHT + accessToken.getRefreshToken(), refreshCall(accessToken), callback);
+  }
+
+  private Callable<Token> refreshCall(final Token accessToken)
+  {
+    final OAuthRequest request = createRefreshTokenRequest(accessToken);
+    return new Callable<Token>()
+    {
+      public Token call()
+      {
+        return extractRefreshedToken(accessToken, request.send());
+      }
+    };
+  }
+
+  private OAuthRequest createRefreshTokenRequest(Token accessToken)
+  {
+    if (accessToken.getRefreshToken() == null)
+    {
+      throw new OAuthException("Token has no refresh token: " + accessToken);
+    }
+    OAuthRequest request = new OAuthRequest(api.getRefreshTokenVerb(), api.getRefreshTokenEndpoint());
+    boolean inBody = api.getRefreshTokenVerb() == Verb.POST || api.getRefreshTokenVerb() == Verb.PUT;
+    addParameter(request, inBody, OAuthConstants.GRANT_TYPE, OAuthConstants.REFRESH_TOKEN);
+    addParameter(request, inBody, OAuthConstants.REFRESH_TOKEN, accessToken.getRefreshToken());
+    addParameter(request, inBody, OAuthConstants.CLIENT_ID, config.getApiKey());
+    addParameter(request, inBody, OAuthConstants.CLIENT_SECRET, config.getApiSecret());
+    config.applyTo(request);
+    return request;
+  }
+
+  private static void addParameter(OAuthRequest request, boolean inBody, String key, String value)
+  {
+    if (inBody)
+    {
+      request.addBodyParameter(key, value);
+    }
+    else
+    {
+      request.addQuerystringParameter(key, value);
+    }
+  }
+
+  private Token extractRefreshedToken(Token accessToken, Response response)
+  {
+    Token refreshed = api.getAccessTokenExtractor().extract(response.getBody());
+    if (refreshed.getRefreshToken() != null)
+    {
+      return refreshed;
+    }
+    return new Token(refreshed.getToken(), refreshed.getSecret(), response.getBody(), refreshed.getExpiresAt(),
+        accessToken.getRefreshToken(), refreshed.getTokenType(), refreshed.getScope(), refreshed.getParameters());
   }
 
   /**
@@ -45,6 +174,14 @@ public class OAuth20ServiceImpl implements OAuthService
     throw new UnsupportedOperationException("Unsupported operation, please use 'getAuthorizationUrl' and redirect your users there");
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public Future<Token> getRequestTokenAsync(OAuthAsyncCallback<Token> callback)
+  {
+    throw new UnsupportedOperationException("Unsupported operation, please use 'getAuthorizationUrl' and redirect your users there");
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -59,6 +196,54 @@ public class OAuth20ServiceImpl implements OAuthService
   public void signRequest(Token accessToken, OAuthRequest request)
   {
     request.addQuerystringParameter(OAuthConstants.ACCESS_TOKEN, accessToken.getToken());
+    if (request.getRateLimitKey() == null && config.getRateLimitTracker() != null)
+    {
+      request.setRateLimitKey(RateLimitTracker.tokenKey(accessToken.getToken()));
+    }
+    config.applyTo(request);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void signRequests(final Token accessToken, Collection<OAuthRequest> requests, ExecutorService executor)
+  {
+    new BatchSigner()
+    {
+      @Override
+      void sign(List<OAuthRequest> batch, int from, int to)
+      {
+        for (int i = from; i < to; i++)
+        {
+          signRequest(accessToken, batch.get(i));
+        }
+      }
+    }.signAll(requests, executor);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void signRequest(String userId, OAuthRequest request)
+  {
+    Token accessToken = tokenStore.get(userId);
+    if (accessToken == null)
+    {
+      throw new OAuthException("No valid access token stored for user " + userId);
+    }
+    if (request.getRateLimitKey() == null && config.getRateLimitTracker() != null)
+    {
+      request.setRateLimitKey(RateLimitTracker.userKey(userId));
+    }
+    signRequest(accessToken, request);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public TokenStore getTokenStore()
+  {
+    return tokenStore;
   }
 
   /**
@@ -1,6 +1,11 @@
 package org.scribe.oauth;
 
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.scribe.exceptions.*;
 import org.scribe.model.*;
+import org.scribe.services.*;
 
 /**
  * The main Scribe object. 
@@ -27,6 +32,24 @@ public interface OAuthService
    */
   public Token getAccessToken(Token requestToken, Verifier verifier);
 
+  /**
+   * Retrieve the request token without blocking the caller thread.
+   *
+   * @param callback notified with the request token or the failure (can be null)
+   * @return a {@link Future} of the request token
+   */
+  public Future<Token> getRequestTokenAsync(OAuthAsyncCallback<Token> callback);
+
+  /**
+   * Retrieve the access token without blocking the caller thread.
+   *
+   * @param requestToken request token (obtained previously)
+   * @param verifier verifier code
+   * @param callback notified with the access token or the failure (can be null)
+   * @return a {@link Future} of the access token
+   */
+  public Future<Token> getAccessTokenAsync(Token requestToken, Verifier verifier, OAuthAsyncCallback<Token> callback);
+
   /**
    * Signs am OAuth request
    * 
@@ -35,6 +58,35 @@ public interface OAuthService
    */
   public void signRequest(Token accessToken, OAuthRequest request);
 
+  /**
+   * Signs an OAuth request with the access token stored for the user in the {@link #getTokenStore() token store}
+   *
+   * @param userId user the request is sent for
+   * @param request request to sign
+   * @throws OAuthException if there's no valid access token stored for the user
+   */
+  public void signRequest(String userId, OAuthRequest request);
+
+  /**
+   * Signs a batch of OAuth requests with the same access token, in parallel.
+   * 
+   * The batch is split in one slice per core, run on the executor (e.g. a ForkJoinPool) but the last one,
+   * signed on the caller thread. Each slice reuses the signing setup from one request to the next.
+   * 
+   * @param accessToken access token (obtained previously)
+   * @param requests requests to sign
+   * @param executor runs the slices (null to sign the whole batch on the caller thread)
+   * @throws OAuthException if any request could not be signed, once the whole batch was processed
+   */
+  public void signRequests(Token accessToken, Collection<OAuthRequest> requests, ExecutorService executor);
+
+  /**
+   * Returns the {@link TokenStore} keeping the access tokens of each user
+   *
+   * @return token store
+   */
+  public TokenStore getTokenStore();
+
   /**
    * Returns the OAuth version of the service.
    * 
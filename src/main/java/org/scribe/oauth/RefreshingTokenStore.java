@@ -0,0 +1,250 @@
+package org.scribe.oauth;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.scribe.model.*;
+import org.scribe.services.*;
+
+/**
+ * {@link TokenStore} decorator refreshing OAuth 2.0 access tokens in the background, shortly before they expire.
+ *
+ * Every stored token with a refresh token and an expiration time gets its refresh scheduled
+ * {@link OAuthConfig#getRefreshAhead()} before expiring (but never before half its remaining lifetime), so request
+ * threads keep signing with valid tokens and never wait on a refresh. The scheduler only keeps time, refreshes are
+ * sent through the {@link org.scribe.transport.AsyncDispatcher} of the service. A failed refresh is retried while the
+ * current token is still valid.
+ *
+ * Tokens that were already in the delegate store get their refresh scheduled the first time they are read. A refresh
+ * is dropped as soon as the delegate no longer holds the token it was scheduled for (it was evicted, removed or
+ * replaced behind this store's back), so the scheduled refreshes never outgrow the tokens actually stored. Those
+ * checks {@link InMemoryTokenStore#peek(String) peek} into an {@link InMemoryTokenStore}, so scheduled users don't
+ * look recently used and still get evicted.
+ *
+ * @author Pablo Fernandez
+ */
+class RefreshingTokenStore implements TokenStore
+{
+  private static final long MIN_DELAY = 1000;
+  private static final int MIN_SWEEP = 64;
+
+  private final OAuth20ServiceImpl service;
+  private final TokenStore delegate;
+  private final ScheduledExecutorService scheduler;
+  private final long refreshAhead;
+  private final ConcurrentMap<String, Refresh> refreshes = new ConcurrentHashMap<String, Refresh>();
+  private final AtomicInteger sweepAt = new AtomicInteger(MIN_SWEEP);
+
+  RefreshingTokenStore(OAuth20ServiceImpl service, OAuthConfig config)
+  {
+    this.service = service;
+    this.delegate = config.getTokenStore();
+    this.scheduler = config.getRefreshScheduler();
+    this.refreshAhead = config.getRefreshAhead();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Token get(String userId)
+  {
+    Token token = delegate.get(userId);
+    if (token != null && token.getRefreshToken() != null && token.getExpiresAt() > 0 && !refreshes.containsKey(userId))
+    {
+      Refresh refresh = new Refresh(userId, token);
+      if (refreshes.putIfAbsent(userId, refresh) == null)
+      {
+        refresh.start(delayFor(token, System.currentTimeMillis()));
+        sweepIfGrown();
+      }
+    }
+    return token;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void put(String userId, Token token)
+  {
+    delegate.put(userId, token);
+    schedule(userId, token, System.currentTimeMillis());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void remove(String userId)
+  {
+    Refresh refresh = refreshes.remove(userId);
+    if (refresh != null)
+    {
+      refresh.cancel();
+    }
+    delegate.remove(userId);
+  }
+
+  /**
+   * Number of users with a refresh scheduled (for tests)
+   */
+  int getScheduled()
+  {
+    return refreshes.size();
+  }
+
+  private void schedule(String userId, Token token, long now)
+  {
+    Refresh previous;
+    if (token.getRefreshToken() == null || token.getExpiresAt() <= 0)
+    {
+      previous = refreshes.remove(userId);
+    }
+    else
+    {
+      Refresh refresh = new Refresh(userId, token);
+      previous = refreshes.put(userId, refresh);
+      refresh.start(delayFor(token, now));
+    }
+    if (previous != null)
+    {
+      previous.cancel();
+    }
+    sweepIfGrown();
+  }
+
+  /**
+   * Drops the refreshes of tokens the delegate has let go of, each time their number doubles.
+   */
+  private void sweepIfGrown()
+  {
+    int threshold = sweepAt.get();
+    if (refreshes.size() < threshold || !sweepAt.compareAndSet(threshold, Integer.MAX_VALUE))
+    {
+      return;
+    }
+    for (Refresh refresh : refreshes.values())
+    {
+      if (!refresh.isCurrent())
+      {
+        refresh.drop();
+      }
+    }
+    sweepAt.set(Math.max(refreshes.size() * 2, MIN_SWEEP));
+  }
+
+  /**
+   * Looks up the delegate without counting as a use where it can
+   */
+  private Token peek(String userId)
+  {
+    return delegate instanceof InMemoryTokenStore ? ((InMemoryTokenStore) delegate).peek(userId) : delegate.get(userId);
+  }
+
+  private long delayFor(Token token, long now)
+  {
+    long remaining = token.getExpiresAt() - now;
+    return Math.max(Math.max(remaining - refreshAhead, remaining / 2), MIN_DELAY);
+  }
+
+  /**
+   * Pending refresh of one user's token. Its result is only stored if it is still the user's current refresh,
+   * i.e. the token wasn't replaced nor removed meanwhile.
+   */
+  private class Refresh implements Runnable, OAuthAsyncCallback<Token>
+  {
+    private final String userId;
+    private final Token token;
+    private final AtomicReference<Future<?>> pending = new AtomicReference<Future<?>>();
+    private volatile boolean cancelled;
+
+    Refresh(String userId, Token token)
+    {
+      this.userId = userId;
+      this.token = token;
+    }
+
+    void start(long delay)
+    {
+      pending.set(scheduler.schedule(this, delay, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Whether the delegate still holds the token this refresh was scheduled for.
+     */
+    boolean isCurrent()
+    {
+      return token.equals(peek(userId));
+    }
+
+    void drop()
+    {
+      if (refreshes.remove(userId, this))
+      {
+        cancel();
+      }
+    }
+
+    void cancel()
+    {
+      cancelled = true;
+      Future<?> future = pending.get();
+      if (future != null)
+      {
+        future.cancel(false);
+      }
+    }
+
+    public void run()
+    {
+      if (cancelled)
+      {
+        return;
+      }
+      if (!isCurrent())
+      {
+        drop();
+        return;
+      }
+      try
+      {
+        pending.set(service.refreshAccessTokenAsync(token, this));
+      }
+      catch (RuntimeException e)
+      {
+        onThrowable(e);
+      }
+    }
+
+    public void onCompleted(Token refreshed)
+    {
+      if (cancelled || refreshes.get(userId) != this)
+      {
+        return;
+      }
+      if (isCurrent())
+      {
+        put(userId, refreshed);
+      }
+      else
+      {
+        drop();
+      }
+    }
+
+    public void onThrowable(Throwable t)
+    {
+      long now = System.currentTimeMillis();
+      if (cancelled || refreshes.get(userId) != this)
+      {
+        return;
+      }
+      if (isCurrent() && !token.isExpired(now + MIN_DELAY))
+      {
+        start(Math.max((token.getExpiresAt() - now) / 2, MIN_DELAY));
+      }
+      else
+      {
+        drop();
+      }
+    }
+  }
+}
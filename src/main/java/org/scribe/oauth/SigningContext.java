@@ -0,0 +1,120 @@
+package org.scribe.oauth;
+
+import org.scribe.builder.api.*;
+import org.scribe.extractors.*;
+import org.scribe.model.*;
+import org.scribe.services.*;
+import org.scribe.utils.*;
+
+/**
+ * Everything {@link OAuth10aServiceImpl} needs to sign a request that doesn't change between requests:
+ * the api's services and extractors, resolved once when the service is built, and the static oauth
+ * parameters along with their encoded forms.
+ *
+ * Immutable, so it's shared by every thread using the service.
+ *
+ * @author Pablo Fernandez
+ */
+final class SigningContext
+{
+  private static final int BATCH_CACHED_KEYS = 64;
+
+  private final TimestampService timestampService;
+  private final ClockSkew clockSkew;
+  private final SignatureService signatureService;
+  private final BaseStringExtractor baseStringExtractor;
+  private final HeaderExtractor headerExtractor;
+
+  private final String consumerKey;
+  private final String encodedConsumerKey;
+  private final String signatureMethod;
+  private final String encodedSignatureMethod;
+  private final String version;
+  private final String encodedVersion;
+
+  SigningContext(DefaultApi10a api, OAuthConfig config, String version)
+  {
+    this.timestampService = api.getTimestampService();
+    this.clockSkew = timestampService instanceof ClockSkewAware ? ((ClockSkewAware) timestampService).getClockSkew() : null;
+    this.signatureService = config.getSignatureService() != null ? config.getSignatureService() : api.getSignatureService();
+    this.baseStringExtractor = api.getBaseStringExtractor();
+    this.headerExtractor = api.getHeaderExtractor();
+    this.consumerKey = config.getApiKey();
+    this.encodedConsumerKey = OAuthEncoder.encode(consumerKey);
+    this.signatureMethod = signatureService.getSignatureMethod();
+    this.encodedSignatureMethod = OAuthEncoder.encode(signatureMethod);
+    this.version = version;
+    this.encodedVersion = OAuthEncoder.encode(version);
+  }
+
+  private SigningContext(SigningContext context, SignatureService signatureService)
+  {
+    this.timestampService = context.timestampService;
+    this.clockSkew = context.clockSkew;
+    this.signatureService = signatureService;
+    this.baseStringExtractor = context.baseStringExtractor;
+    this.headerExtractor = context.headerExtractor;
+    this.consumerKey = context.consumerKey;
+    this.encodedConsumerKey = context.encodedConsumerKey;
+    this.signatureMethod = context.signatureMethod;
+    this.encodedSignatureMethod = context.encodedSignatureMethod;
+    this.version = context.version;
+    this.encodedVersion = context.encodedVersion;
+  }
+
+  /**
+   * Context for batches: the default HMAC-SHA1 service initializes a {@link javax.crypto.Mac} per signature,
+   * batches get one that keeps them, so each worker reuses its key material from one request to the next.
+   * Any other signature service is kept as configured.
+   *
+   * @return context signing the same way
+   */
+  SigningContext forBatch()
+  {
+    if (signatureService.getClass() == HMACSha1SignatureService.class && !((HMACSha1SignatureService) signatureService).isCaching())
+    {
+      return new SigningContext(this, new HMACSha1SignatureService(BATCH_CACHED_KEYS));
+    }
+    return this;
+  }
+
+  /**
+   * Adds the oauth parameters that are the same on every request (consumer key, signature method and version).
+   *
+   * @param request request being signed
+   */
+  void addStaticParams(OAuthRequest request)
+  {
+    request.addOAuthParameter(OAuthConstants.CONSUMER_KEY, consumerKey, encodedConsumerKey);
+    request.addOAuthParameter(OAuthConstants.SIGN_METHOD, signatureMethod, encodedSignatureMethod);
+    request.addOAuthParameter(OAuthConstants.VERSION, version, encodedVersion);
+  }
+
+  TimestampService getTimestampService()
+  {
+    return timestampService;
+  }
+
+  /**
+   * Skew of the provider's clock, null if the timestamp service follows the local one
+   */
+  ClockSkew getClockSkew()
+  {
+    return clockSkew;
+  }
+
+  SignatureService getSignatureService()
+  {
+    return signatureService;
+  }
+
+  BaseStringExtractor getBaseStringExtractor()
+  {
+    return baseStringExtractor;
+  }
+
+  HeaderExtractor getHeaderExtractor()
+  {
+    return headerExtractor;
+  }
+}
@@ -0,0 +1,181 @@
+package org.scribe.oauth;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.scribe.exceptions.*;
+
+/**
+ * Collapses concurrent identical calls into one: while a call is in flight for a key, callers asking for the same
+ * key wait for it and get its result (or its exception) instead of starting their own.
+ *
+ * A successful result is also handed to callers arriving within a short grace period after it completed. Codes and
+ * refresh tokens are single use, so a caller that just missed the exchange would otherwise send them again and get
+ * invalid_grant. Failures aren't kept, the next caller starts a new call.
+ *
+ * @author Pablo Fernandez
+ */
+class SingleFlight<V>
+{
+  static final long DEFAULT_GRACE_PERIOD = TimeUnit.SECONDS.toNanos(5);
+
+  private final ConcurrentMap<String, Flight<V>> calls = new ConcurrentHashMap<String, Flight<V>>();
+  private final long gracePeriod;
+
+  SingleFlight()
+  {
+    this(DEFAULT_GRACE_PERIOD);
+  }
+
+  /**
+   * @param gracePeriod nanoseconds a successful result is kept for late callers
+   */
+  SingleFlight(long gracePeriod)
+  {
+    this.gracePeriod = gracePeriod;
+  }
+
+  /**
+   * Runs the call on the caller thread, unless one is already in flight for the key or completed successfully within
+   * the grace period
+   *
+   * @param key identifies identical calls (e.g. the credentials being exchanged)
+   * @param call the call
+   * @return result of the call, possibly run by another thread
+   */
+  V execute(String key, Callable<V> call)
+  {
+    Flight<V> flight = new Flight<V>(call);
+    while (true)
+    {
+      Flight<V> existing = calls.putIfAbsent(key, flight);
+      if (existing == null)
+      {
+        break;
+      }
+      if (!existing.isExpired(System.nanoTime()))
+      {
+        return await(existing);
+      }
+      calls.remove(key, existing);
+    }
+    boolean succeeded = false;
+    try
+    {
+      flight.run();
+      succeeded = flight.keep(System.nanoTime() + gracePeriod);
+    }
+    finally
+    {
+      if (!succeeded || gracePeriod <= 0)
+      {
+        calls.remove(key, flight);
+      }
+      purgeExpired();
+    }
+    return await(flight);
+  }
+
+  /**
+   * Number of calls in flight (for tests)
+   */
+  int getInFlight()
+  {
+    int inFlight = 0;
+    for (Flight<V> flight : calls.values())
+    {
+      if (!flight.isDone())
+      {
+        inFlight++;
+      }
+    }
+    return inFlight;
+  }
+
+  /**
+   * Number of results kept for late callers (for tests)
+   */
+  int getKept()
+  {
+    return calls.size() - getInFlight();
+  }
+
+  private void purgeExpired()
+  {
+    long now = System.nanoTime();
+    for (Map.Entry<String, Flight<V>> entry : calls.entrySet())
+    {
+      if (entry.getValue().isExpired(now))
+      {
+        calls.remove(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private V await(FutureTask<V> task)
+  {
+    try
+    {
+      return task.get();
+    }
+    catch (ExecutionException e)
+    {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException)
+      {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error)
+      {
+        throw (Error) cause;
+      }
+      throw new OAuthException("Token exchange failed", (Exception) cause);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new OAuthException("Interrupted while waiting for a token exchange", e);
+    }
+  }
+
+  /**
+   * A call and, once it succeeded, until when its result is handed out.
+   */
+  private static class Flight<V> extends FutureTask<V>
+  {
+    private volatile long keptUntil;
+    private volatile boolean kept;
+
+    Flight(Callable<V> call)
+    {
+      super(call);
+    }
+
+    /**
+     * Keeps the result until the given time, if the call succeeded
+     */
+    boolean keep(long keptUntil)
+    {
+      if (isCancelled())
+      {
+        return false;
+      }
+      try
+      {
+        get();
+      }
+      catch (Exception e)
+      {
+        return false;
+      }
+      this.keptUntil = keptUntil;
+      this.kept = true;
+      return true;
+    }
+
+    boolean isExpired(long now)
+    {
+      return kept && now - keptUntil >= 0;
+    }
+  }
+}
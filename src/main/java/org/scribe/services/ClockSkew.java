@@ -0,0 +1,141 @@
+package org.scribe.services;
+
+import java.text.*;
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Offset between the local clock and a provider's clock, learned from its responses.
+ *
+ * Every response carries the provider time in its Date header (to the second): the offset is only replaced when
+ * it's off by more than what that measure can tell (half a second plus half the round trip), so it doesn't jitter
+ * between requests, and only once {@link #AGREEING_SAMPLES} responses in a row agree on the new one, so a single
+ * stale Date (e.g. from a cache or a lagging node) doesn't shift every timestamp. A refused timestamp
+ * (oauth_problem=timestamp_refused, from the OAuth problem reporting extension) is trusted right away, taking the
+ * middle of oauth_acceptable_timestamps when the provider sends them.
+ *
+ * @author Pablo Fernandez
+ */
+public class ClockSkew
+{
+  private static final String TIMESTAMP_REFUSED = "timestamp_refused";
+  private static final Pattern ACCEPTABLE_TIMESTAMPS = Pattern.compile("oauth_acceptable_timestamps\"?\\s*=\\s*\"?(\\d+)-(\\d+)");
+  private static final String HTTP_DATE = "EEE, dd MMM yyyy HH:mm:ss zzz";
+  private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+  private static final long HALF_SECOND = 500;
+
+  /**
+   * Responses in a row whose Date must agree on a new offset before it's adopted
+   */
+  public static final int AGREEING_SAMPLES = 3;
+
+  private volatile long offset;
+  private volatile int agreeing;
+  private long candidate;
+
+  /**
+   * Milliseconds to add to the local clock to get the provider's
+   *
+   * @return offset, 0 until learned
+   */
+  public long getOffset()
+  {
+    return offset;
+  }
+
+  /**
+   * Sets the offset, e.g. when known from elsewhere
+   *
+   * @param offset milliseconds to add to the local clock to get the provider's
+   */
+  public void setOffset(long offset)
+  {
+    this.offset = offset;
+    forgetCandidate();
+  }
+
+  /**
+   * Learns from a provider response
+   *
+   * @param date the Date header of the response (can be null)
+   * @param problem the WWW-Authenticate header or body of a failed response, where oauth problems are reported (can be null)
+   * @param sentAt local time the request was sent at, in milliseconds
+   * @param receivedAt local time the response was received at, in milliseconds
+   */
+  public void learn(String date, String problem, long sentAt, long receivedAt)
+  {
+    boolean refused = problem != null && problem.contains(TIMESTAMP_REFUSED);
+    if (refused)
+    {
+      Matcher acceptable = ACCEPTABLE_TIMESTAMPS.matcher(problem);
+      if (acceptable.find())
+      {
+        setOffset((Long.parseLong(acceptable.group(1)) + Long.parseLong(acceptable.group(2))) * HALF_SECOND - receivedAt);
+        return;
+      }
+    }
+    long serverTime = parseDate(date);
+    if (serverTime < 0)
+    {
+      return;
+    }
+    long roundTrip = Math.max(receivedAt - sentAt, 0);
+    // the Date header truncates to the second and was set anywhere during the round trip
+    long measured = serverTime + HALF_SECOND - (sentAt + roundTrip / 2);
+    long precision = HALF_SECOND + roundTrip / 2;
+    if (refused)
+    {
+      setOffset(measured);
+    }
+    else if (Math.abs(measured - offset) > precision)
+    {
+      agreeOn(measured, precision);
+    }
+    else if (agreeing > 0)
+    {
+      forgetCandidate();
+    }
+  }
+
+  private synchronized void agreeOn(long measured, long precision)
+  {
+    if (agreeing > 0 && Math.abs(measured - candidate) <= precision)
+    {
+      agreeing++;
+    }
+    else
+    {
+      candidate = measured;
+      agreeing = 1;
+    }
+    if (agreeing >= AGREEING_SAMPLES)
+    {
+      offset = measured;
+      agreeing = 0;
+    }
+  }
+
+  private synchronized void forgetCandidate()
+  {
+    agreeing = 0;
+  }
+
+  private static long parseDate(String date)
+  {
+    if (date == null)
+    {
+      return -1;
+    }
+    // SimpleDateFormat isn't thread safe, and a shared one would need a lock
+    SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE, Locale.US);
+    format.setTimeZone(GMT);
+    try
+    {
+      return format.parse(date).getTime();
+    }
+    catch (ParseException e)
+    {
+      return -1;
+    }
+  }
+}
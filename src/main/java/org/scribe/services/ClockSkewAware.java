@@ -0,0 +1,18 @@
+package org.scribe.services;
+
+/**
+ * {@link TimestampService} whose timestamps follow the provider's clock rather than the local one.
+ *
+ * OAuth 1.0a services teach the {@link ClockSkew} from every response to the requests they sign.
+ *
+ * @author Pablo Fernandez
+ */
+public interface ClockSkewAware
+{
+  /**
+   * Returns the skew applied to the timestamps
+   *
+   * @return clock skew
+   */
+  public ClockSkew getClockSkew();
+}
@@ -0,0 +1,285 @@
+package org.scribe.services;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+import org.scribe.exceptions.*;
+import org.scribe.model.*;
+import org.scribe.utils.*;
+
+/**
+ * {@link TokenStore} persisted to a local file, surviving restarts.
+ *
+ * Tokens are loaded once and served from memory, every change rewrites the file (into a temporary file
+ * that is then renamed over it, so a crash never leaves it half written). Expired tokens are dropped on save.
+ * Where renaming can't replace a file, the old one is moved to a backup first and is loaded if the file is missing.
+ *
+ * The file holds the token secrets in the clear: it is written in a plain data format (no Java serialization, so
+ * loading it never instantiates arbitrary classes) and made readable and writable by its owner only. That doesn't
+ * hold on file systems without permissions, the directory it's kept in must be private there.
+ *
+ * @author Pablo Fernandez
+ */
+public class FileTokenStore implements TokenStore
+{
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final String BACKUP_SUFFIX = ".bak";
+  private static final int MAGIC = 0x53544b31; // "STK1"
+  private static final int MAX_STRING_LENGTH = 0x100000;
+
+  private final File file;
+  private final ConcurrentMap<String, Token> tokens = new ConcurrentHashMap<String, Token>();
+  private final Lock writeLock = new ReentrantLock();
+
+  /**
+   * @param file file the tokens are kept in, created on first change if missing
+   * @throws OAuthException if the file exists but can't be read
+   */
+  public FileTokenStore(File file)
+  {
+    Preconditions.checkNotNull(file, "Token file can't be null");
+    this.file = file;
+    load();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Token get(String userId)
+  {
+    Token token = tokens.get(userId);
+    return token == null || token.isExpired() ? null : token;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void put(String userId, Token token)
+  {
+    Preconditions.checkNotNull(userId, "User id can't be null");
+    Preconditions.checkNotNull(token, "Token can't be null");
+    writeLock.lock();
+    try
+    {
+      tokens.put(userId, token);
+      save();
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void remove(String userId)
+  {
+    writeLock.lock();
+    try
+    {
+      if (tokens.remove(userId) != null)
+      {
+        save();
+      }
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+  private void load()
+  {
+    File source = file.exists() ? file : backupFile();
+    if (!source.exists())
+    {
+      return;
+    }
+    try
+    {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(source)));
+      try
+      {
+        if (in.readInt() != MAGIC)
+        {
+          throw new IOException("Not a token file");
+        }
+        for (int count = in.readInt(); count > 0; count--)
+        {
+          String userId = readString(in);
+          tokens.put(userId, readToken(in));
+        }
+      }
+      finally
+      {
+        in.close();
+      }
+    }
+    catch (IOException e)
+    {
+      throw new OAuthException("Could not read tokens from " + source, e);
+    }
+    catch (IllegalArgumentException e)
+    {
+      throw new OAuthException("Could not read tokens from " + source, e);
+    }
+  }
+
+  private void save()
+  {
+    long now = System.currentTimeMillis();
+    Map<String, Token> snapshot = new HashMap<String, Token>();
+    for (Iterator<Map.Entry<String, Token>> it = tokens.entrySet().iterator(); it.hasNext();)
+    {
+      Map.Entry<String, Token> entry = it.next();
+      if (entry.getValue().isExpired(now))
+      {
+        it.remove();
+      }
+      else
+      {
+        snapshot.put(entry.getKey(), entry.getValue());
+      }
+    }
+    File temp = new File(file.getPath() + TEMP_SUFFIX);
+    try
+    {
+      temp.delete();
+      FileOutputStream created = new FileOutputStream(temp);
+      // restricted while still empty
+      restrictToOwner(temp);
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(created));
+      try
+      {
+        out.writeInt(MAGIC);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<String, Token> entry : snapshot.entrySet())
+        {
+          writeString(out, entry.getKey());
+          writeToken(out, entry.getValue());
+        }
+      }
+      finally
+      {
+        out.close();
+      }
+      replaceFile(temp);
+    }
+    catch (IOException e)
+    {
+      throw new OAuthException("Could not write tokens to " + file, e);
+    }
+  }
+
+  private void replaceFile(File temp) throws IOException
+  {
+    if (temp.renameTo(file))
+    {
+      return;
+    }
+    // renameTo doesn't replace existing files everywhere, keep the old one until the new one is in place
+    File backup = backupFile();
+    backup.delete();
+    if (!file.renameTo(backup) || !temp.renameTo(file))
+    {
+      throw new IOException("Could not rename " + temp + " to " + file);
+    }
+    backup.delete();
+  }
+
+  private File backupFile()
+  {
+    return new File(file.getPath() + BACKUP_SUFFIX);
+  }
+
+  /**
+   * Best effort, these fail on file systems without permissions
+   */
+  private static void restrictToOwner(File file)
+  {
+    file.setReadable(false, false);
+    file.setReadable(true, true);
+    file.setWritable(false, false);
+    file.setWritable(true, true);
+  }
+
+  private static void writeToken(DataOutputStream out, Token token) throws IOException
+  {
+    writeString(out, token.getToken());
+    writeString(out, token.getSecret());
+    writeString(out, rawResponseOf(token));
+    out.writeLong(token.getExpiresAt());
+    writeString(out, token.getRefreshToken());
+    writeString(out, token.getTokenType());
+    writeString(out, token.getScope());
+    Map<String, String> parameters = token.getParameters();
+    out.writeInt(parameters.size());
+    for (Map.Entry<String, String> parameter : parameters.entrySet())
+    {
+      writeString(out, parameter.getKey());
+      writeString(out, parameter.getValue());
+    }
+  }
+
+  private static Token readToken(DataInputStream in) throws IOException
+  {
+    String token = readString(in);
+    String secret = readString(in);
+    String rawResponse = readString(in);
+    long expiresAt = in.readLong();
+    String refreshToken = readString(in);
+    String tokenType = readString(in);
+    String scope = readString(in);
+    Map<String, String> parameters = new LinkedHashMap<String, String>();
+    for (int count = in.readInt(); count > 0; count--)
+    {
+      String name = readString(in);
+      parameters.put(name, readString(in));
+    }
+    return new Token(token, secret, rawResponse, expiresAt, refreshToken, tokenType, scope, parameters);
+  }
+
+  private static String rawResponseOf(Token token)
+  {
+    try
+    {
+      return token.getRawResponse();
+    }
+    catch (IllegalStateException e)
+    {
+      // built by hand, not from a response
+      return null;
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException
+  {
+    if (value == null)
+    {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes("UTF-8");
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException
+  {
+    int length = in.readInt();
+    if (length == -1)
+    {
+      return null;
+    }
+    if (length < 0 || length > MAX_STRING_LENGTH)
+    {
+      throw new IOException("Corrupt token file");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+}
@@ -1,7 +1,6 @@
 package org.scribe.services;
 
 import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 
 import org.scribe.exceptions.OAuthSignatureException;
 import org.scribe.utils.Base64;
@@ -11,16 +10,45 @@ import org.scribe.utils.Preconditions;
 /**
  * HMAC-SHA1 implementation of {@SignatureService}
  * 
+ * Created with a cache size it reuses initialized {@link Mac} instances, keyed by
+ * (consumer secret, token secret), the least recently used evicted first (approximately). A single instance
+ * is safe to share between threads in both modes.
+ * 
  * @author Pablo Fernandez
  *
  */
-public class HMACSha1SignatureService implements SignatureService
+public class HMACSha1SignatureService implements StreamingSignatureService
 {
   private static final String EMPTY_STRING = "";
   private static final String CARRIAGE_RETURN = "\r\n";
   private static final String UTF8 = "UTF-8";
   private static final String HMAC_SHA1 = "HmacSHA1";
   private static final String METHOD = "HMAC-SHA1";
+  private static final String STREAMED = "(streamed base string)";
+
+  private final MacCache cache;
+
+  /**
+   * Default constructor, a new {@link Mac} is created for every signature
+   */
+  public HMACSha1SignatureService()
+  {
+    this.cache = null;
+  }
+
+  /**
+   * Creates a service that caches initialized {@link Mac} instances
+   * 
+   * @param maxCachedKeys max number of (consumer secret, token secret) pairs kept around
+   */
+  public HMACSha1SignatureService(int maxCachedKeys)
+  {
+    if (maxCachedKeys <= 0)
+    {
+      throw new IllegalArgumentException("Cache size must be positive");
+    }
+    this.cache = new MacCache(HMAC_SHA1, maxCachedKeys);
+  }
 
   /**
    * {@inheritDoc}
@@ -31,7 +59,11 @@ public class HMACSha1SignatureService implements SignatureService
     {
       Preconditions.checkEmptyString(baseString, "Base string cant be null or empty string");
       Preconditions.checkEmptyString(apiSecret, "Api secret cant be null or empty string");
-      return doSign(baseString, OAuthEncoder.encode(apiSecret) + '&' + OAuthEncoder.encode(tokenSecret));
+      String keyString = keyString(apiSecret, tokenSecret);
+      Mac mac = borrowMac(keyString);
+      String signature = encode(mac.doFinal(baseString.getBytes(UTF8)));
+      releaseMac(keyString, mac);
+      return signature;
     } 
     catch (Exception e)
     {
@@ -39,13 +71,63 @@ public class HMACSha1SignatureService implements SignatureService
     }
   }
 
-  private String doSign(String toSign, String keyString) throws Exception
+  /**
+   * {@inheritDoc}
+   */
+  public SignatureOutputStream newSignatureStream(String apiSecret, String tokenSecret)
+  {
+    try
+    {
+      Preconditions.checkEmptyString(apiSecret, "Api secret cant be null or empty string");
+      String keyString = keyString(apiSecret, tokenSecret);
+      return new MacOutputStream(this, keyString, borrowMac(keyString));
+    }
+    catch (Exception e)
+    {
+      throw new OAuthSignatureException(STREAMED, e);
+    }
+  }
+
+  private static String keyString(String apiSecret, String tokenSecret)
+  {
+    StringBuilder keyString = OAuthEncoder.encode(apiSecret, new StringBuilder()).append('&');
+    return OAuthEncoder.encode(tokenSecret, keyString).toString();
+  }
+
+  private Mac borrowMac(String keyString) throws Exception
   {
-    SecretKeySpec key = new SecretKeySpec((keyString).getBytes(UTF8), HMAC_SHA1);
-    Mac mac = Mac.getInstance(HMAC_SHA1);
-    mac.init(key);
-    byte[] bytes = mac.doFinal(toSign.getBytes(UTF8));
-    return new String(Base64.encodeToByte(bytes, false), UTF8).replace(CARRIAGE_RETURN, EMPTY_STRING);
+    return cache == null ? MacCache.newMac(HMAC_SHA1, keyString) : cache.borrow(keyString);
+  }
+
+  /**
+   * doFinal leaves the {@link Mac} initialized with the same key, ready for the next signature
+   */
+  private void releaseMac(String keyString, Mac mac)
+  {
+    if (cache != null)
+    {
+      cache.release(keyString, mac);
+    }
+  }
+
+  /**
+   * Whether initialized {@link Mac} instances are reused
+   *
+   * @return true if created with a cache size
+   */
+  public boolean isCaching()
+  {
+    return cache != null;
+  }
+
+  int getCachedKeys()
+  {
+    return cache == null ? 0 : cache.size();
+  }
+
+  private static String encode(byte[] signature) throws Exception
+  {
+    return new String(Base64.encodeToByte(signature, false), UTF8).replace(CARRIAGE_RETURN, EMPTY_STRING);
   }
 
   /**
@@ -55,4 +137,45 @@ public class HMACSha1SignatureService implements SignatureService
   {
     return METHOD;
   }
+
+  private static class MacOutputStream extends SignatureOutputStream
+  {
+    private final HMACSha1SignatureService service;
+    private final String keyString;
+    private final Mac mac;
+
+    MacOutputStream(HMACSha1SignatureService service, String keyString, Mac mac)
+    {
+      this.service = service;
+      this.keyString = keyString;
+      this.mac = mac;
+    }
+
+    @Override
+    public void write(int b)
+    {
+      mac.update((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+    {
+      mac.update(b, off, len);
+    }
+
+    @Override
+    public String getSignature()
+    {
+      try
+      {
+        String signature = encode(mac.doFinal());
+        service.releaseMac(keyString, mac);
+        return signature;
+      }
+      catch (Exception e)
+      {
+        throw new OAuthSignatureException(STREAMED, e);
+      }
+    }
+  }
 }
@@ -0,0 +1,130 @@
+package org.scribe.services;
+
+import java.util.concurrent.*;
+
+import org.scribe.model.*;
+import org.scribe.utils.*;
+
+/**
+ * Bounded in-memory {@link TokenStore}: least recently used tokens are evicted once full,
+ * expired ones are dropped when looked up.
+ *
+ * Lock-free: lookups only stamp the entry they find. The bound is approximate, when a new user goes over it the
+ * least recently used of a few sampled users is evicted (see {@link SampledEviction}), and threads adding users at
+ * the same time may briefly go over it.
+ *
+ * @author Pablo Fernandez
+ */
+public class InMemoryTokenStore implements TokenStore
+{
+  public static final int DEFAULT_MAX_TOKENS = 10000;
+
+  private final ConcurrentMap<String, StoredToken> tokens = new ConcurrentHashMap<String, StoredToken>();
+  private final int maxTokens;
+
+  /**
+   * Creates a store keeping at most {@link #DEFAULT_MAX_TOKENS} tokens
+   */
+  public InMemoryTokenStore()
+  {
+    this(DEFAULT_MAX_TOKENS);
+  }
+
+  /**
+   * @param maxTokens number of tokens kept before evicting the least recently used ones
+   */
+  public InMemoryTokenStore(int maxTokens)
+  {
+    if (maxTokens <= 0)
+    {
+      throw new IllegalArgumentException("Token store must hold at least one token");
+    }
+    this.maxTokens = maxTokens;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Token get(String userId)
+  {
+    StoredToken stored = tokens.get(userId);
+    if (stored == null)
+    {
+      return null;
+    }
+    if (stored.token.isExpired())
+    {
+      tokens.remove(userId, stored);
+      return null;
+    }
+    stored.lastUsed = System.nanoTime();
+    return stored.token;
+  }
+
+  /**
+   * Returns the token of the user like {@link #get(String)}, without counting as a use: it doesn't keep the token
+   * from being evicted.
+   *
+   * @param userId user identifier
+   * @return token or null
+   */
+  public Token peek(String userId)
+  {
+    StoredToken stored = tokens.get(userId);
+    return stored == null || stored.token.isExpired() ? null : stored.token;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void put(String userId, Token token)
+  {
+    Preconditions.checkNotNull(userId, "User id can't be null");
+    Preconditions.checkNotNull(token, "Token can't be null");
+    if (tokens.put(userId, new StoredToken(userId, token)) == null)
+    {
+      SampledEviction.trim(tokens, maxTokens, userId);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void remove(String userId)
+  {
+    tokens.remove(userId);
+  }
+
+  /**
+   * Returns the number of tokens held, expired ones included until looked up
+   *
+   * @return number of tokens
+   */
+  public int size()
+  {
+    return tokens.size();
+  }
+
+  private static class StoredToken implements SampledEviction.Entry
+  {
+    private final String userId;
+    private final Token token;
+    private volatile long lastUsed = System.nanoTime();
+
+    StoredToken(String userId, Token token)
+    {
+      this.userId = userId;
+      this.token = token;
+    }
+
+    public String key()
+    {
+      return userId;
+    }
+
+    public long lastUsed()
+    {
+      return lastUsed;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package org.scribe.services;
+
+import java.util.concurrent.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Bounded cache of initialized {@link Mac} instances, keyed by signing key
+ * (encoded consumer secret '&' encoded token secret).
+ *
+ * Lock-free: each key has its own {@link ObjectPool} in a {@link ConcurrentHashMap}. The bound is approximate, when a
+ * new key goes over it the least recently used of a few sampled keys is evicted, and threads adding keys at the same
+ * time may briefly go over it (see {@link SampledEviction}).
+ *
+ * @author Pablo Fernandez
+ */
+class MacCache
+{
+  private static final int MAX_IDLE_PER_KEY = 8;
+
+  private final String algorithm;
+  private final int maxKeys;
+  private final ConcurrentMap<String, KeyPool> pools = new ConcurrentHashMap<String, KeyPool>();
+
+  MacCache(String algorithm, int maxKeys)
+  {
+    this.algorithm = algorithm;
+    this.maxKeys = maxKeys;
+  }
+
+  Mac borrow(String keyString) throws Exception
+  {
+    return poolFor(keyString).borrow();
+  }
+
+  /**
+   * Takes back a {@link Mac} that was reset (by doFinal). Dropped if its key got evicted meanwhile.
+   */
+  void release(String keyString, Mac mac)
+  {
+    KeyPool pool = pools.get(keyString);
+    if (pool != null)
+    {
+      pool.release(mac);
+    }
+  }
+
+  int size()
+  {
+    return pools.size();
+  }
+
+  boolean contains(String keyString)
+  {
+    return pools.containsKey(keyString);
+  }
+
+  private KeyPool poolFor(String keyString)
+  {
+    KeyPool pool = pools.get(keyString);
+    if (pool == null)
+    {
+      KeyPool created = new KeyPool(keyString);
+      pool = pools.putIfAbsent(keyString, created);
+      if (pool == null)
+      {
+        pool = created;
+        SampledEviction.trim(pools, maxKeys, keyString);
+      }
+    }
+    pool.lastUsed = System.nanoTime();
+    return pool;
+  }
+
+  static Mac newMac(String algorithm, String keyString) throws Exception
+  {
+    Mac mac = Mac.getInstance(algorithm);
+    mac.init(new SecretKeySpec(keyString.getBytes("UTF-8"), algorithm));
+    return mac;
+  }
+
+  private class KeyPool extends ObjectPool<Mac> implements SampledEviction.Entry
+  {
+    private final String keyString;
+    private volatile long lastUsed = System.nanoTime();
+
+    KeyPool(String keyString)
+    {
+      super(MAX_IDLE_PER_KEY);
+      this.keyString = keyString;
+    }
+
+    public String key()
+    {
+      return keyString;
+    }
+
+    public long lastUsed()
+    {
+      return lastUsed;
+    }
+
+    @Override
+    protected Mac create() throws Exception
+    {
+      return newMac(algorithm, keyString);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package org.scribe.services;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Lock-free pool of reusable, non thread-safe objects (initialized {@link javax.crypto.Mac} and
+ * {@link java.security.Signature} instances). Objects are handed to one caller at a time and are
+ * created on demand when the pool is empty; at most <code>maxIdle</code> of them are kept around.
+ *
+ * @author Pablo Fernandez
+ */
+abstract class ObjectPool<T>
+{
+  private final Queue<T> idle = new ConcurrentLinkedQueue<T>();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final int maxIdle;
+
+  ObjectPool(int maxIdle)
+  {
+    this.maxIdle = maxIdle;
+  }
+
+  T borrow() throws Exception
+  {
+    T object = idle.poll();
+    if (object != null)
+    {
+      idleCount.decrementAndGet();
+      return object;
+    }
+    return create();
+  }
+
+  void release(T object)
+  {
+    if (idleCount.incrementAndGet() <= maxIdle)
+    {
+      idle.offer(object);
+    }
+    else
+    {
+      idleCount.decrementAndGet();
+    }
+  }
+
+  int getIdle()
+  {
+    return idleCount.get();
+  }
+
+  protected abstract T create() throws Exception;
+}
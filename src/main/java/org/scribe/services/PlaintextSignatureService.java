@@ -21,7 +21,8 @@ public class PlaintextSignatureService implements SignatureService
     try
     {
       Preconditions.checkEmptyString(apiSecret, "Api secret cant be null or empty string");
-      return OAuthEncoder.encode(apiSecret) + '&' + OAuthEncoder.encode(tokenSecret);
+      StringBuilder signature = OAuthEncoder.encode(apiSecret, new StringBuilder()).append('&');
+      return OAuthEncoder.encode(tokenSecret, signature).toString();
     }
     catch (Exception e)
     {
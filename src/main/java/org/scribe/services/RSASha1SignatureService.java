@@ -1,7 +1,9 @@
 package org.scribe.services;
 
+import java.io.IOException;
 import java.security.PrivateKey;
 import java.security.Signature;
+import java.security.SignatureException;
 
 import org.scribe.exceptions.OAuthSignatureException;
 import org.scribe.utils.Base64;
@@ -9,18 +11,41 @@ import org.scribe.utils.Base64;
 
 /**
  * A signature service that uses the RSA-SHA1 algorithm.
+ * 
+ * When pooling is enabled, {@link Signature} objects initialized with the private key are reused
+ * (sign() resets them to their freshly initialized state) instead of being created per request.
  */
-public class RSASha1SignatureService implements SignatureService
+public class RSASha1SignatureService implements StreamingSignatureService
 {
   private static final String METHOD = "RSA-SHA1";
   private static final String RSA_SHA1 = "SHA1withRSA";
   private static final String UTF8 = "UTF-8";
+  private static final String STREAMED = "(streamed base string)";
+  private static final int MAX_IDLE_SIGNATURES = 16;
 
-  private PrivateKey privateKey;
+  private final PrivateKey privateKey;
+  private final ObjectPool<Signature> pool;
 
   public RSASha1SignatureService(PrivateKey privateKey)
+  {
+    this(privateKey, false);
+  }
+
+  /**
+   * @param privateKey key used to sign
+   * @param pooled whether initialized {@link Signature} instances are reused
+   */
+  public RSASha1SignatureService(final PrivateKey privateKey, boolean pooled)
   {
     this.privateKey = privateKey;
+    this.pool = !pooled ? null : new ObjectPool<Signature>(MAX_IDLE_SIGNATURES)
+    {
+      @Override
+      protected Signature create() throws Exception
+      {
+        return newSignature(privateKey);
+      }
+    };
   }
 
   /**
@@ -30,10 +55,11 @@ public class RSASha1SignatureService implements SignatureService
   {
     try
     {
-      Signature signature = Signature.getInstance(RSA_SHA1);
-      signature.initSign(privateKey);
+      Signature signature = borrowSignature();
       signature.update(baseString.getBytes(UTF8));
-      return new String(Base64.encodeToByte(signature.sign(), false), UTF8);
+      String encoded = new String(Base64.encodeToByte(signature.sign(), false), UTF8);
+      releaseSignature(signature);
+      return encoded;
     }
     catch (Exception e)
     {
@@ -41,6 +67,46 @@ public class RSASha1SignatureService implements SignatureService
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public SignatureOutputStream newSignatureStream(String apiSecret, String tokenSecret)
+  {
+    try
+    {
+      return new SigningOutputStream(this, borrowSignature());
+    }
+    catch (Exception e)
+    {
+      throw new OAuthSignatureException(STREAMED, e);
+    }
+  }
+
+  private Signature borrowSignature() throws Exception
+  {
+    return pool == null ? newSignature(privateKey) : pool.borrow();
+  }
+
+  private void releaseSignature(Signature signature)
+  {
+    if (pool != null)
+    {
+      pool.release(signature);
+    }
+  }
+
+  int getIdleSignatures()
+  {
+    return pool == null ? 0 : pool.getIdle();
+  }
+
+  private static Signature newSignature(PrivateKey privateKey) throws Exception
+  {
+    Signature signature = Signature.getInstance(RSA_SHA1);
+    signature.initSign(privateKey);
+    return signature;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -48,4 +114,57 @@ public class RSASha1SignatureService implements SignatureService
   {
     return METHOD;
   }
+
+  private static class SigningOutputStream extends SignatureOutputStream
+  {
+    private final RSASha1SignatureService service;
+    private final Signature signature;
+
+    SigningOutputStream(RSASha1SignatureService service, Signature signature)
+    {
+      this.service = service;
+      this.signature = signature;
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+      try
+      {
+        signature.update((byte) b);
+      }
+      catch (SignatureException e)
+      {
+        throw new IOException("Error while signing", e);
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+      try
+      {
+        signature.update(b, off, len);
+      }
+      catch (SignatureException e)
+      {
+        throw new IOException("Error while signing", e);
+      }
+    }
+
+    @Override
+    public String getSignature()
+    {
+      try
+      {
+        String encoded = new String(Base64.encodeToByte(signature.sign(), false), UTF8);
+        service.releaseSignature(signature);
+        return encoded;
+      }
+      catch (Exception e)
+      {
+        throw new OAuthSignatureException(STREAMED, e);
+      }
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package org.scribe.services;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Picks what the bounded, lock-free maps of this package evict: the least recently used of a few entries sampled
+ * from a random position of the map, wrapping around to its start. Every entry gets considered over time, and an
+ * entry used more recently than the rest of its sample is never picked.
+ *
+ * @author Pablo Fernandez
+ */
+final class SampledEviction
+{
+  static final int SAMPLES = 8;
+
+  private static final Random RANDOM = new Random();
+
+  /**
+   * Entry that knows when it was last used
+   */
+  interface Entry
+  {
+    String key();
+
+    long lastUsed();
+  }
+
+  private SampledEviction(){}
+
+  /**
+   * Evicts sampled entries until the map is back within its bound
+   *
+   * @param map map to trim
+   * @param maxSize bound of the map
+   * @param added key just added, never evicted
+   */
+  static <E extends Entry> void trim(ConcurrentMap<String, E> map, int maxSize, String added)
+  {
+    while (map.size() > maxSize)
+    {
+      Candidate<E> eldest = eldest(map.values(), added, RANDOM.nextInt(map.size()));
+      if (eldest == null)
+      {
+        return;
+      }
+      // used since it was sampled (this thread may have been descheduled meanwhile), sample again
+      if (eldest.entry.lastUsed() == eldest.lastUsed)
+      {
+        map.remove(eldest.entry.key(), eldest.entry);
+      }
+    }
+  }
+
+  private static <E extends Entry> Candidate<E> eldest(Collection<E> entries, String added, int offset)
+  {
+    E eldest = null;
+    long eldestUsed = 0;
+    int sampled = 0;
+    for (int pass = 0; pass < 2 && sampled < SAMPLES; pass++)
+    {
+      int index = 0;
+      for (E entry : entries)
+      {
+        boolean beforeOffset = index++ < offset;
+        if (pass == 1 && !beforeOffset)
+        {
+          break;
+        }
+        if ((pass == 0 && beforeOffset) || entry.key().equals(added))
+        {
+          continue;
+        }
+        long used = entry.lastUsed();
+        if (eldest == null || used - eldestUsed < 0)
+        {
+          eldest = entry;
+          eldestUsed = used;
+        }
+        if (++sampled == SAMPLES)
+        {
+          break;
+        }
+      }
+    }
+    return eldest == null ? null : new Candidate<E>(eldest, eldestUsed);
+  }
+
+  private static class Candidate<E extends Entry>
+  {
+    private final E entry;
+    private final long lastUsed;
+
+    Candidate(E entry, long lastUsed)
+    {
+      this.entry = entry;
+      this.lastUsed = lastUsed;
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package org.scribe.services;
+
+import java.io.*;
+
+/**
+ * Stream the url-encoded base string is written to, computing its signature on the fly.
+ *
+ * @author Pablo Fernandez
+ */
+public abstract class SignatureOutputStream extends OutputStream
+{
+  /**
+   * Finishes the signature of everything written so far. The stream can't be used afterwards.
+   *
+   * @return signature
+   */
+  public abstract String getSignature();
+}
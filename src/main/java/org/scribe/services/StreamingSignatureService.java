@@ -0,0 +1,20 @@
+package org.scribe.services;
+
+/**
+ * {@link SignatureService} able to sign a base string while it is being written, so it never has to be
+ * materialized as a String.
+ *
+ * @author Pablo Fernandez
+ */
+public interface StreamingSignatureService extends SignatureService
+{
+  /**
+   * Starts a new signature
+   *
+   * @param apiSecret api secret for your app
+   * @param tokenSecret token secret (empty string for the request token step)
+   *
+   * @return a stream the base string must be written to
+   */
+  public SignatureOutputStream newSignatureStream(String apiSecret, String tokenSecret);
+}
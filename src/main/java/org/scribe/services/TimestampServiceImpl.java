@@ -3,12 +3,13 @@ package org.scribe.services;
 import java.util.*;
 
 /**
- * Implementation of {@link TimestampService} using plain java classes.
+ * Implementation of {@link TimestampService} using plain java classes, following the provider's clock.
  * 
  * @author Pablo Fernandez
  */
-public class TimestampServiceImpl implements TimestampService
+public class TimestampServiceImpl implements TimestampService, ClockSkewAware
 {
+  private final ClockSkew clockSkew = new ClockSkew();
   private Timer timer;
 
   /**
@@ -36,9 +37,17 @@ public class TimestampServiceImpl implements TimestampService
     return String.valueOf(getTs());
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public ClockSkew getClockSkew()
+  {
+    return clockSkew;
+  }
+
   private Long getTs()
   {
-    return timer.getMilis() / 1000;
+    return (timer.getMilis() + clockSkew.getOffset()) / 1000;
   }
 
   void setTimer(Timer timer)
@@ -0,0 +1,35 @@
+package org.scribe.services;
+
+import org.scribe.model.*;
+
+/**
+ * Keeps access tokens by user, so requests can be signed knowing only who they are sent for.
+ * Implementations must be thread-safe.
+ *
+ * @author Pablo Fernandez
+ */
+public interface TokenStore
+{
+  /**
+   * Returns the token of the user, or null if there's none or it has expired (see {@link Token#isExpired()})
+   *
+   * @param userId user identifier
+   * @return token or null
+   */
+  public Token get(String userId);
+
+  /**
+   * Stores the token of the user, replacing the previous one
+   *
+   * @param userId user identifier
+   * @param token token to store
+   */
+  public void put(String userId, Token token);
+
+  /**
+   * Forgets the token of the user, if any
+   *
+   * @param userId user identifier
+   */
+  public void remove(String userId);
+}
@@ -0,0 +1,122 @@
+package org.scribe.services;
+
+import java.security.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * {@link TimestampService} generating nonces that never repeat, without contention between threads.
+ *
+ * A nonce is a random node id (drawn once per instance, so distinct across processes and machines), a stripe and a
+ * counter of that stripe. Threads pick their stripe from their id, stripes sit on their own cache lines, so concurrent
+ * callers rarely touch the same counter and never share a lock. The timestamp string is built once per second, and
+ * follows the provider's clock.
+ *
+ * @author Pablo Fernandez
+ */
+public class UniqueTimestampService implements TimestampService, ClockSkewAware
+{
+  private static final int MAX_STRIPES = 1024;
+  private static final int RADIX = 36;
+  // a long is 8 bytes, a cache line 64
+  private static final int PADDING = 8;
+  private static final int NODE_LENGTH = 13;
+  private static final int STRIPE_LENGTH = 2;
+
+  private final String[] prefixes;
+  private final int mask;
+  private final AtomicLongArray counters;
+  private final ClockSkew clockSkew = new ClockSkew();
+  private volatile Seconds seconds = new Seconds(Long.MIN_VALUE);
+  private TimestampServiceImpl.Timer timer;
+
+  /**
+   * Default constructor, with a random node id
+   */
+  public UniqueTimestampService()
+  {
+    this(new SecureRandom().nextLong());
+  }
+
+  UniqueTimestampService(long nodeId)
+  {
+    String node = pad(Long.toString(nodeId & Long.MAX_VALUE, RADIX), NODE_LENGTH);
+    int stripes = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors() * 2, MAX_STRIPES) * 2 - 1);
+    this.mask = stripes - 1;
+    this.counters = new AtomicLongArray(stripes * PADDING);
+    this.prefixes = new String[stripes];
+    for (int stripe = 0; stripe < stripes; stripe++)
+    {
+      prefixes[stripe] = node + pad(Integer.toString(stripe, RADIX), STRIPE_LENGTH);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public String getTimestampInSeconds()
+  {
+    long now = (currentTimeMillis() + clockSkew.getOffset()) / 1000;
+    Seconds cached = seconds;
+    if (cached.value != now)
+    {
+      cached = new Seconds(now);
+      seconds = cached;
+    }
+    return cached.text;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public String getNonce()
+  {
+    int stripe = (int) Thread.currentThread().getId() & mask;
+    long count = counters.incrementAndGet(stripe * PADDING);
+    return prefixes[stripe].concat(Long.toString(count, RADIX));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public ClockSkew getClockSkew()
+  {
+    return clockSkew;
+  }
+
+  int getStripes()
+  {
+    return mask + 1;
+  }
+
+  private long currentTimeMillis()
+  {
+    return timer == null ? System.currentTimeMillis() : timer.getMilis();
+  }
+
+  void setTimer(TimestampServiceImpl.Timer timer)
+  {
+    this.timer = timer;
+  }
+
+  private static String pad(String value, int length)
+  {
+    StringBuilder padded = new StringBuilder(length);
+    for (int i = value.length(); i < length; i++)
+    {
+      padded.append('0');
+    }
+    return padded.append(value).toString();
+  }
+
+  private static final class Seconds
+  {
+    private final long value;
+    private final String text;
+
+    Seconds(long value)
+    {
+      this.value = value;
+      this.text = String.valueOf(value);
+    }
+  }
+}
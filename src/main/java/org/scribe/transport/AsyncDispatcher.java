@@ -0,0 +1,393 @@
+package org.scribe.transport;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+import org.scribe.exceptions.*;
+import org.scribe.model.*;
+import org.scribe.utils.*;
+
+/**
+ * Runs requests off the caller thread, keeping at most <code>maxInFlight</code> of them in flight.
+ *
+ * This is thread-per-call, not non-blocking I/O: a call occupies a thread of the executor from the moment it's
+ * sent until its response is read, so <code>maxInFlight</code> calls need as many threads. Only the caller is freed.
+ *
+ * Calls submitted past the limit are queued and started as others complete. {@link #submit(Callable, OAuthAsyncCallback)}
+ * never blocks: once <code>maxQueued</code> calls are waiting, further ones are rejected, so callers fanning out faster
+ * than the provider answers get a bounded backlog and an error instead of an unbounded queue.
+ *
+ * Built from a {@link ThreadFactory}, the dispatcher starts one thread per call instead of pooling them,
+ * which is what virtual threads expect (pass <code>Thread.ofVirtual().factory()</code> on Java 21+).
+ * Scribe holds no monitor and no {@link ThreadLocal} while signing and sending, so those threads never pin.
+ *
+ * @author Pablo Fernandez
+ */
+public class AsyncDispatcher
+{
+  public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+  public static final int DEFAULT_MAX_QUEUED = 10000;
+
+  private final ExecutorService executor;
+  private final Semaphore inFlight;
+  private final int maxInFlight;
+  private final Queue<DispatchedCall<?>> pending = new ConcurrentLinkedQueue<DispatchedCall<?>>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final int maxQueued;
+
+  /**
+   * Default constructor. Uses its own pool of daemon threads, {@value #DEFAULT_MAX_IN_FLIGHT} calls in flight
+   * and up to {@value #DEFAULT_MAX_QUEUED} queued.
+   */
+  public AsyncDispatcher()
+  {
+    this(Executors.newCachedThreadPool(new DaemonThreadFactory()), DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  /**
+   * @param executor executor the calls run on
+   * @param maxInFlight maximum number of calls running at once
+   */
+  public AsyncDispatcher(ExecutorService executor, int maxInFlight)
+  {
+    this(executor, maxInFlight, DEFAULT_MAX_QUEUED);
+  }
+
+  /**
+   * @param executor executor the calls run on
+   * @param maxInFlight maximum number of calls running at once
+   * @param maxQueued maximum number of calls waiting for one of them to complete (0 to reject right away)
+   */
+  public AsyncDispatcher(ExecutorService executor, int maxInFlight, int maxQueued)
+  {
+    Preconditions.checkNotNull(executor, "Executor can't be null");
+    if (maxInFlight <= 0)
+    {
+      throw new IllegalArgumentException("Max in-flight calls must be positive");
+    }
+    if (maxQueued < 0)
+    {
+      throw new IllegalArgumentException("Max queued calls can't be negative");
+    }
+    this.executor = executor;
+    this.maxInFlight = maxInFlight;
+    this.maxQueued = maxQueued;
+    this.inFlight = new Semaphore(maxInFlight);
+  }
+
+  /**
+   * Thread-per-call constructor.
+   *
+   * @param threadFactory factory creating one thread for each call
+   * @param maxInFlight maximum number of calls submitted and not yet completed
+   */
+  public AsyncDispatcher(ThreadFactory threadFactory, int maxInFlight)
+  {
+    this(new ThreadPerCallExecutor(threadFactory), maxInFlight);
+  }
+
+  /**
+   * Submits a call without blocking: it runs right away, or is queued while <code>maxInFlight</code> calls are
+   * already running.
+   *
+   * @param call the call to run
+   * @param callback notified when the call completes (can be null)
+   * @return a {@link Future} for the result of the call
+   * @throws RejectedExecutionException if <code>maxQueued</code> calls are already waiting, or the executor refused it
+   */
+  public <T> Future<T> submit(Callable<T> call, OAuthAsyncCallback<T> callback)
+  {
+    Preconditions.checkNotNull(call, "Call can't be null");
+    DispatchedCall<T> future = new DispatchedCall<T>(call, callback);
+    if (inFlight.tryAcquire())
+    {
+      try
+      {
+        executor.execute(future);
+      }
+      catch (RuntimeException e)
+      {
+        inFlight.release();
+        dispatchPending();
+        throw e;
+      }
+      return future;
+    }
+    if (queued.incrementAndGet() > maxQueued)
+    {
+      queued.decrementAndGet();
+      throw new RejectedExecutionException(maxInFlight + " calls in flight and " + maxQueued + " queued");
+    }
+    pending.offer(future);
+    // a call may have completed since the slot was looked for
+    dispatchPending();
+    return future;
+  }
+
+  /**
+   * Returns the dispatcher shared by requests and services that were not given one.
+   *
+   * @return the default dispatcher
+   */
+  public static AsyncDispatcher getDefault()
+  {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Returns the number of calls submitted and not yet completed.
+   *
+   * @return in-flight calls
+   */
+  public int getInFlight()
+  {
+    return maxInFlight - inFlight.availablePermits();
+  }
+
+  public int getMaxInFlight()
+  {
+    return maxInFlight;
+  }
+
+  /**
+   * Returns the number of calls waiting for an in-flight slot.
+   *
+   * @return queued calls
+   */
+  public int getQueued()
+  {
+    return queued.get();
+  }
+
+  public int getMaxQueued()
+  {
+    return maxQueued;
+  }
+
+  /**
+   * Shuts down the underlying executor. Calls already running still complete, queued ones fail.
+   */
+  public void shutdown()
+  {
+    executor.shutdown();
+    dispatchPending();
+  }
+
+  /**
+   * Starts queued calls while there are free slots
+   */
+  private void dispatchPending()
+  {
+    while (!pending.isEmpty() && inFlight.tryAcquire())
+    {
+      DispatchedCall<?> next = pending.poll();
+      if (next == null)
+      {
+        inFlight.release();
+        continue;
+      }
+      queued.decrementAndGet();
+      try
+      {
+        executor.execute(next);
+      }
+      catch (RuntimeException e)
+      {
+        inFlight.release();
+        next.fail(e);
+      }
+    }
+  }
+
+  private class DispatchedCall<T> extends FutureTask<T>
+  {
+    private final OAuthAsyncCallback<T> callback;
+
+    DispatchedCall(Callable<T> call, OAuthAsyncCallback<T> callback)
+    {
+      super(call);
+      this.callback = callback;
+    }
+
+    void fail(Throwable cause)
+    {
+      setException(cause);
+    }
+
+    /**
+     * Frees the slot once the call is over, even if it was cancelled while queued (it then returns right away)
+     */
+    @Override
+    public void run()
+    {
+      try
+      {
+        super.run();
+      }
+      finally
+      {
+        inFlight.release();
+        dispatchPending();
+      }
+    }
+
+    @Override
+    protected void done()
+    {
+      if (callback == null)
+      {
+        return;
+      }
+      T result;
+      try
+      {
+        result = get();
+      }
+      catch (ExecutionException e)
+      {
+        callback.onThrowable(e.getCause());
+        return;
+      }
+      catch (CancellationException e)
+      {
+        callback.onThrowable(e);
+        return;
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        callback.onThrowable(e);
+        return;
+      }
+      callback.onCompleted(result);
+    }
+  }
+
+  /**
+   * Starts a new thread for every task, no pooling and no queue (the in-flight limit bounds the thread count).
+   */
+  private static class ThreadPerCallExecutor extends AbstractExecutorService
+  {
+    private final ThreadFactory threadFactory;
+    private final AtomicInteger running = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition terminated = lock.newCondition();
+    private volatile boolean shutdown;
+
+    ThreadPerCallExecutor(ThreadFactory threadFactory)
+    {
+      Preconditions.checkNotNull(threadFactory, "Thread factory can't be null");
+      this.threadFactory = threadFactory;
+    }
+
+    public void execute(final Runnable task)
+    {
+      if (shutdown)
+      {
+        throw new RejectedExecutionException("Dispatcher has been shut down");
+      }
+      Thread thread = threadFactory.newThread(new Runnable()
+      {
+        public void run()
+        {
+          try
+          {
+            task.run();
+          }
+          finally
+          {
+            if (running.decrementAndGet() == 0 && shutdown)
+            {
+              signalTerminated();
+            }
+          }
+        }
+      });
+      if (thread == null)
+      {
+        throw new RejectedExecutionException("Thread factory refused to create a thread");
+      }
+      running.incrementAndGet();
+      thread.start();
+    }
+
+    public void shutdown()
+    {
+      shutdown = true;
+      if (running.get() == 0)
+      {
+        signalTerminated();
+      }
+    }
+
+    public List<Runnable> shutdownNow()
+    {
+      shutdown();
+      return Collections.emptyList();
+    }
+
+    public boolean isShutdown()
+    {
+      return shutdown;
+    }
+
+    public boolean isTerminated()
+    {
+      return shutdown && running.get() == 0;
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+      long nanos = unit.toNanos(timeout);
+      lock.lock();
+      try
+      {
+        while (!isTerminated())
+        {
+          if (nanos <= 0)
+          {
+            return false;
+          }
+          nanos = terminated.awaitNanos(nanos);
+        }
+        return true;
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    private void signalTerminated()
+    {
+      lock.lock();
+      try
+      {
+        terminated.signalAll();
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+  }
+
+  private static class DefaultHolder
+  {
+    private static final AsyncDispatcher INSTANCE = new AsyncDispatcher();
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory
+  {
+    private final AtomicInteger count = new AtomicInteger();
+
+    public Thread newThread(Runnable runnable)
+    {
+      Thread thread = new Thread(runnable, "scribe-async-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package org.scribe.transport;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Stops sending requests to a provider that keeps failing, so a degraded provider sheds load instead of tying up
+ * the caller threads.
+ *
+ * Closed at first. After {@code failureThreshold} failures in a row it opens: requests fail right away for
+ * {@code openDuration}. It then turns half-open and lets a single probe through: a success closes it, a failure opens
+ * it again. Safe to share between threads, and meant to be shared by every request to the same provider.
+ *
+ * @author Pablo Fernandez
+ */
+public class CircuitBreaker
+{
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+  public static final long DEFAULT_OPEN_MILLIS = 30000;
+
+  private static final long CLOSED = -1;
+
+  public enum State
+  {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openMillis;
+  private final AtomicInteger failures = new AtomicInteger();
+  private final AtomicBoolean probing = new AtomicBoolean();
+  private volatile long openedAt = CLOSED;
+
+  /**
+   * Default constructor, opening after 5 failures in a row for 30 seconds
+   */
+  public CircuitBreaker()
+  {
+    this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @param failureThreshold failures in a row that open the circuit
+   * @param openDuration how long it stays open before letting a probe through
+   * @param unit unit of the duration
+   */
+  public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit)
+  {
+    if (failureThreshold <= 0)
+    {
+      throw new IllegalArgumentException("Failure threshold must be positive");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openMillis = unit.toMillis(openDuration);
+  }
+
+  /**
+   * Whether a request may be sent now. When half-open only the first caller gets true, and must report the outcome.
+   *
+   * @return false if the request must fail without being sent
+   */
+  public boolean allowRequest()
+  {
+    long opened = openedAt;
+    if (opened == CLOSED)
+    {
+      return true;
+    }
+    if (System.currentTimeMillis() - opened < openMillis)
+    {
+      return false;
+    }
+    return probing.compareAndSet(false, true);
+  }
+
+  /**
+   * Reports a request the provider answered properly
+   */
+  public void onSuccess()
+  {
+    failures.set(0);
+    openedAt = CLOSED;
+    probing.set(false);
+  }
+
+  /**
+   * Reports a request that failed (connection error or overloaded provider)
+   */
+  public void onFailure()
+  {
+    if (probing.get())
+    {
+      openedAt = System.currentTimeMillis();
+      probing.set(false);
+    }
+    else if (failures.incrementAndGet() >= failureThreshold && openedAt == CLOSED)
+    {
+      openedAt = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * Returns the current state
+   *
+   * @return state
+   */
+  public State getState()
+  {
+    long opened = openedAt;
+    if (opened == CLOSED)
+    {
+      return State.CLOSED;
+    }
+    return System.currentTimeMillis() - opened < openMillis ? State.OPEN : State.HALF_OPEN;
+  }
+}
@@ -0,0 +1,36 @@
+package org.scribe.transport;
+
+import java.io.*;
+import java.net.*;
+
+import org.scribe.model.*;
+
+/**
+ * Opens (and takes back) the connections a {@link Request} is sent through.
+ *
+ * Implementations must be thread-safe, a single transport is shared by every
+ * request sent through an {@link org.scribe.oauth.OAuthService}.
+ *
+ * @author Pablo Fernandez
+ */
+public interface HttpTransport
+{
+  /**
+   * Opens a connection to the complete url of the request.
+   *
+   * @param request the request about to be sent
+   * @return an unconnected {@link HttpURLConnection}
+   * @throws IOException if the connection cannot be opened
+   */
+  public HttpURLConnection openConnection(Request request) throws IOException;
+
+  /**
+   * Called once the response headers of the request have been received, or the exchange failed.
+   *
+   * The response body may still be unread, so implementations must not disconnect here.
+   *
+   * @param request the request that was sent
+   * @param connection the connection previously returned by {@link #openConnection(Request)}
+   */
+  public void releaseConnection(Request request, HttpURLConnection connection);
+}
@@ -0,0 +1,85 @@
+package org.scribe.transport;
+
+/**
+ * Request budget of a token or an app until the provider resets it, as last reported by the provider
+ * (minus the requests sent since).
+ *
+ * Immutable.
+ *
+ * @author Pablo Fernandez
+ */
+public class RateLimit
+{
+  private final int limit;
+  private final int remaining;
+  private final long resetAt;
+
+  /**
+   * @param limit requests allowed per window (-1 if unknown)
+   * @param remaining requests left in the current window
+   * @param resetAt time the window ends at, in milliseconds
+   */
+  public RateLimit(int limit, int remaining, long resetAt)
+  {
+    this.limit = limit;
+    this.remaining = remaining;
+    this.resetAt = resetAt;
+  }
+
+  /**
+   * Returns the requests allowed per window
+   *
+   * @return limit, -1 if the provider doesn't say
+   */
+  public int getLimit()
+  {
+    return limit;
+  }
+
+  /**
+   * Returns the requests left until {@link #getResetAt()}
+   *
+   * @return remaining requests
+   */
+  public int getRemaining()
+  {
+    return remaining;
+  }
+
+  /**
+   * Returns when the budget is reset
+   *
+   * @return time in milliseconds
+   */
+  public long getResetAt()
+  {
+    return resetAt;
+  }
+
+  /**
+   * Returns the interval that spreads the remaining requests evenly until the reset, for schedulers pacing their calls
+   *
+   * @param now current time in milliseconds
+   * @return milliseconds between two requests, 0 once the window is over
+   */
+  public long getEvenSpacing(long now)
+  {
+    long left = resetAt - now;
+    if (left <= 0)
+    {
+      return 0;
+    }
+    return remaining <= 0 ? left : left / remaining;
+  }
+
+  RateLimit consume()
+  {
+    return new RateLimit(limit, remaining - 1, resetAt);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("@RateLimit(%d/%d until %d)", remaining, limit, resetAt);
+  }
+}
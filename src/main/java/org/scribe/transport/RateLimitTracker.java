@@ -0,0 +1,323 @@
+package org.scribe.transport;
+
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.scribe.exceptions.*;
+import org.scribe.model.*;
+
+/**
+ * Keeps the request budget of each token and app from the rate limit headers of the provider responses
+ * (X-RateLimit-Limit, X-RateLimit-Remaining and X-RateLimit-Reset, or X-Rate-Limit-* as Twitter sends them), and
+ * holds back requests that would exceed it instead of letting them hit the provider.
+ *
+ * A request sent once the budget is spent waits for the reset when it's close enough, and fails with an
+ * {@link OAuthRateLimitException} otherwise. A 429 (or Twitter's 420) spends the budget until the reset, Retry-After
+ * or a minute. Budgets are only known from the responses: none is enforced before the first one, nor after a reset.
+ *
+ * Budgets are kept by key: {@link #appKey(String)} for the app, {@link #tokenKey(String)} (a digest, the token
+ * itself is a secret) or {@link #userKey(String)} for a token. A request sent for a token counts against both its
+ * own budget and the app's, which is learned from the requests sent without a token. At most
+ * {@link #DEFAULT_MAX_KEYS} budgets are kept: once full, reset ones are dropped, and new keys go untracked until
+ * there's room again.
+ *
+ * Safe to share between threads, one per provider.
+ *
+ * @author Pablo Fernandez
+ */
+public class RateLimitTracker
+{
+  public static final long DEFAULT_MAX_WAIT_MILLIS = 10000;
+  public static final int DEFAULT_MAX_KEYS = 10000;
+
+  private static final String[] DEFAULT_HEADER_PREFIXES = { "X-RateLimit-", "X-Rate-Limit-" };
+  private static final String LIMIT = "Limit";
+  private static final String REMAINING = "Remaining";
+  private static final String RESET = "Reset";
+  private static final String RETRY_AFTER = "Retry-After";
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final int ENHANCE_YOUR_CALM = 420;
+  private static final long REJECTED_WINDOW_MILLIS = 60000;
+  // smaller resets are seconds from now rather than epoch seconds
+  private static final long MIN_EPOCH_SECONDS = 1000000000L;
+  private static final long PURGE_INTERVAL_MILLIS = 1000;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final ConcurrentMap<String, RateLimit> limits = new ConcurrentHashMap<String, RateLimit>();
+  private final AtomicLong nextPurge = new AtomicLong();
+  private final long maxWaitMillis;
+  private final int maxKeys;
+  private final String[] headerPrefixes;
+
+  /**
+   * Default constructor, waiting up to 10 seconds for a reset
+   */
+  public RateLimitTracker()
+  {
+    this(DEFAULT_MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @param maxWait longest a request waits for a reset before failing (0 to never wait)
+   * @param unit unit of the wait
+   */
+  public RateLimitTracker(long maxWait, TimeUnit unit)
+  {
+    this(maxWait, unit, DEFAULT_HEADER_PREFIXES);
+  }
+
+  /**
+   * @param maxWait longest a request waits for a reset before failing (0 to never wait)
+   * @param unit unit of the wait
+   * @param headerPrefixes prefixes of the Limit, Remaining and Reset headers of the provider, tried in order
+   */
+  public RateLimitTracker(long maxWait, TimeUnit unit, String... headerPrefixes)
+  {
+    this(maxWait, unit, DEFAULT_MAX_KEYS, headerPrefixes);
+  }
+
+  /**
+   * @param maxWait longest a request waits for a reset before failing (0 to never wait)
+   * @param unit unit of the wait
+   * @param maxKeys number of budgets kept
+   * @param headerPrefixes prefixes of the Limit, Remaining and Reset headers of the provider, tried in order (the
+   *          X-RateLimit- and X-Rate-Limit- ones if none)
+   */
+  public RateLimitTracker(long maxWait, TimeUnit unit, int maxKeys, String... headerPrefixes)
+  {
+    if (maxKeys <= 0)
+    {
+      throw new IllegalArgumentException("Max keys must be positive");
+    }
+    this.maxWaitMillis = unit.toMillis(maxWait);
+    this.maxKeys = maxKeys;
+    this.headerPrefixes = headerPrefixes.length == 0 ? DEFAULT_HEADER_PREFIXES : headerPrefixes.clone();
+  }
+
+  /**
+   * Returns the key of an app's budget
+   *
+   * @param apiKey api key of the app
+   * @return key
+   */
+  public static String appKey(String apiKey)
+  {
+    return "app:" + apiKey;
+  }
+
+  /**
+   * Returns the key of a token's budget, a digest that doesn't give the token away
+   *
+   * @param token access token
+   * @return key
+   */
+  public static String tokenKey(String token)
+  {
+    try
+    {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes("UTF-8"));
+      char[] hex = new char[digest.length * 2];
+      for (int i = 0; i < digest.length; i++)
+      {
+        hex[2 * i] = HEX[(digest[i] >> 4) & 0xF];
+        hex[2 * i + 1] = HEX[digest[i] & 0xF];
+      }
+      return "token:" + new String(hex);
+    }
+    catch (Exception e)
+    {
+      // SHA-256 and UTF-8 are always there
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the key of the budget of the token stored for a user
+   *
+   * @param userId user identifier
+   * @return key
+   */
+  public static String userKey(String userId)
+  {
+    return "user:" + userId;
+  }
+
+  /**
+   * Takes one request from the budget, waiting for the reset if it's spent
+   *
+   * @param key token or app the request is sent for
+   * @throws OAuthRateLimitException if the reset is further than the max wait
+   */
+  public void acquire(String key)
+  {
+    if (key == null)
+    {
+      return;
+    }
+    while (true)
+    {
+      RateLimit current = limits.get(key);
+      if (current == null)
+      {
+        return;
+      }
+      long now = System.currentTimeMillis();
+      if (now >= current.getResetAt())
+      {
+        // unknown until the next response
+        limits.remove(key, current);
+        return;
+      }
+      if (current.getRemaining() > 0)
+      {
+        if (limits.replace(key, current, current.consume()))
+        {
+          return;
+        }
+        continue;
+      }
+      long wait = current.getResetAt() - now;
+      if (wait > maxWaitMillis)
+      {
+        throw new OAuthRateLimitException(current.getResetAt());
+      }
+      sleep(wait);
+    }
+  }
+
+  /**
+   * Learns the budget from a provider response
+   *
+   * @param key token or app the request was sent for
+   * @param response the response
+   */
+  public void update(String key, Response response)
+  {
+    update(key, response.getCode(), header(response, LIMIT), header(response, REMAINING), header(response, RESET),
+        response.getHeader(RETRY_AFTER), System.currentTimeMillis());
+  }
+
+  void update(String key, int code, String limit, String remaining, String reset, String retryAfter, long now)
+  {
+    long resetAt = parseReset(reset, now);
+    if (code == TOO_MANY_REQUESTS || code == ENHANCE_YOUR_CALM)
+    {
+      long retryAt = retryAfter == null ? -1 : now + TimeUnit.SECONDS.toMillis(parse(retryAfter, 0));
+      resetAt = Math.max(resetAt, retryAt);
+      put(key, new RateLimit((int) parse(limit, -1), 0, resetAt > now ? resetAt : now + REJECTED_WINDOW_MILLIS), now);
+      return;
+    }
+    long left = parse(remaining, -1);
+    if (left >= 0 && resetAt > now)
+    {
+      put(key, new RateLimit((int) parse(limit, -1), (int) left, resetAt), now);
+    }
+  }
+
+  /**
+   * Number of budgets kept, reset ones included until dropped (for tests)
+   */
+  int size()
+  {
+    return limits.size();
+  }
+
+  private void put(String key, RateLimit limit, long now)
+  {
+    if (limits.size() >= maxKeys && !limits.containsKey(key))
+    {
+      purge(now);
+      if (limits.size() >= maxKeys)
+      {
+        // not enforced until there's room again
+        return;
+      }
+    }
+    limits.put(key, limit);
+  }
+
+  /**
+   * Drops the budgets that reset, at most once a second
+   */
+  private void purge(long now)
+  {
+    long next = nextPurge.get();
+    if (now < next || !nextPurge.compareAndSet(next, now + PURGE_INTERVAL_MILLIS))
+    {
+      return;
+    }
+    for (Iterator<RateLimit> it = limits.values().iterator(); it.hasNext();)
+    {
+      if (now >= it.next().getResetAt())
+      {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Returns the current budget, for schedulers spreading their calls (see {@link RateLimit#getEvenSpacing(long)})
+   *
+   * @param key token or app
+   * @return budget, null if unknown (no rate limited response yet, or reset since)
+   */
+  public RateLimit getRateLimit(String key)
+  {
+    RateLimit current = limits.get(key);
+    return current == null || System.currentTimeMillis() >= current.getResetAt() ? null : current;
+  }
+
+  private String header(Response response, String name)
+  {
+    for (String prefix : headerPrefixes)
+    {
+      String value = response.getHeader(prefix + name);
+      if (value != null)
+      {
+        return value;
+      }
+    }
+    return null;
+  }
+
+  private static long parseReset(String reset, long now)
+  {
+    long value = parse(reset, -1);
+    if (value < 0)
+    {
+      return -1;
+    }
+    return value >= MIN_EPOCH_SECONDS ? TimeUnit.SECONDS.toMillis(value) : now + TimeUnit.SECONDS.toMillis(value);
+  }
+
+  private static long parse(String value, long defaultValue)
+  {
+    if (value == null)
+    {
+      return defaultValue;
+    }
+    try
+    {
+      return Long.parseLong(value.trim());
+    }
+    catch (NumberFormatException e)
+    {
+      return defaultValue;
+    }
+  }
+
+  private static void sleep(long wait)
+  {
+    try
+    {
+      Thread.sleep(wait);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new OAuthException("Interrupted while waiting for a rate limit reset", e);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package org.scribe.transport;
+
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.scribe.model.*;
+
+/**
+ * When and how often a failed request is sent again.
+ *
+ * Connection failures and overloaded provider answers (429, 502, 503 and 504) are retried, waiting a random delay
+ * between zero and an exponentially growing ceiling ("full jitter", so retrying clients don't all come back at once),
+ * or what the provider asked for in Retry-After. Only idempotent verbs are retried unless told otherwise, and never
+ * requests whose body is a stream that can't be sent twice. Every outcome is reported to the {@link CircuitBreaker}.
+ *
+ * Immutable and safe to share, one per provider so they share the breaker.
+ *
+ * @author Pablo Fernandez
+ */
+public class RetryPolicy
+{
+  public static final int DEFAULT_MAX_ATTEMPTS = 3;
+  public static final long DEFAULT_BASE_DELAY_MILLIS = 100;
+  public static final long DEFAULT_MAX_DELAY_MILLIS = 5000;
+
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final Set<Verb> IDEMPOTENT = EnumSet.of(Verb.GET, Verb.HEAD, Verb.PUT, Verb.DELETE, Verb.OPTIONS, Verb.TRACE);
+
+  private final int maxAttempts;
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+  private final boolean retryNonIdempotent;
+  private final CircuitBreaker circuitBreaker;
+  private final Random random = new Random();
+
+  /**
+   * Default constructor: 3 attempts, backing off from 100ms up to 5s, with a default {@link CircuitBreaker}
+   */
+  public RetryPolicy()
+  {
+    this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @param maxAttempts attempts in total (1 never retries)
+   * @param baseDelay ceiling of the first backoff, doubled on every attempt
+   * @param maxDelay highest ceiling of a backoff
+   * @param unit unit of the delays
+   */
+  public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay, TimeUnit unit)
+  {
+    this(maxAttempts, baseDelay, maxDelay, unit, false, new CircuitBreaker());
+  }
+
+  /**
+   * @param maxAttempts attempts in total (1 never retries)
+   * @param baseDelay ceiling of the first backoff, doubled on every attempt
+   * @param maxDelay highest ceiling of a backoff
+   * @param unit unit of the delays
+   * @param retryNonIdempotent whether POST (and PATCH) requests are retried too
+   * @param circuitBreaker breaker of the provider (null for none)
+   */
+  public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay, TimeUnit unit, boolean retryNonIdempotent,
+      CircuitBreaker circuitBreaker)
+  {
+    if (maxAttempts <= 0)
+    {
+      throw new IllegalArgumentException("Max attempts must be positive");
+    }
+    this.maxAttempts = maxAttempts;
+    this.baseDelayMillis = unit.toMillis(baseDelay);
+    this.maxDelayMillis = unit.toMillis(maxDelay);
+    this.retryNonIdempotent = retryNonIdempotent;
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  public int getMaxAttempts()
+  {
+    return maxAttempts;
+  }
+
+  /**
+   * Returns the breaker every outcome is reported to
+   *
+   * @return circuit breaker, null if none
+   */
+  public CircuitBreaker getCircuitBreaker()
+  {
+    return circuitBreaker;
+  }
+
+  /**
+   * Whether requests with this verb may be sent more than once
+   *
+   * @param verb http verb
+   * @return true if retried
+   */
+  public boolean isRetryable(Verb verb)
+  {
+    return retryNonIdempotent || IDEMPOTENT.contains(verb);
+  }
+
+  /**
+   * Whether the response means the provider is overloaded or unavailable (worth retrying later)
+   *
+   * @param code http status code
+   * @return true if it's a failure
+   */
+  public boolean isFailure(int code)
+  {
+    return code == TOO_MANY_REQUESTS || code == HttpURLConnection.HTTP_BAD_GATEWAY
+        || code == HttpURLConnection.HTTP_UNAVAILABLE || code == HttpURLConnection.HTTP_GATEWAY_TIMEOUT;
+  }
+
+  /**
+   * Delay before the next attempt
+   *
+   * @param attempt attempt that just failed (1 for the first one)
+   * @param retryAfter value of the Retry-After header of the failed response (can be null)
+   * @return milliseconds to wait
+   */
+  public long getDelay(int attempt, String retryAfter)
+  {
+    long requested = parseRetryAfter(retryAfter);
+    if (requested >= 0)
+    {
+      return Math.min(requested, maxDelayMillis);
+    }
+    long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+    return ceiling <= 0 ? 0 : (long) (random.nextDouble() * ceiling);
+  }
+
+  private static long parseRetryAfter(String retryAfter)
+  {
+    if (retryAfter == null)
+    {
+      return -1;
+    }
+    try
+    {
+      return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+    }
+    catch (NumberFormatException e)
+    {
+      // an http date, the jittered backoff will do
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package org.scribe.transport;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.scribe.model.*;
+import org.scribe.utils.*;
+
+/**
+ * Default {@link HttpTransport}. It opens plain {@link HttpURLConnection}s and doesn't pool anything: sockets are
+ * reused (or not) by the JVM keep-alive cache, whose size and idle timeout are only set through the
+ * <code>http.keepAlive</code> and <code>http.maxConnections</code> system properties, which are never touched here.
+ *
+ * When given a <code>maxPerRoute</code> it caps the exchanges in flight against the same route (scheme, host and
+ * port). The cap is opt-in, the default constructor doesn't limit anything. A capped exchange holds its permit from
+ * the moment the connection is opened until the response headers are received: response bodies still being read
+ * don't count, so the cap bounds the requests a provider is handling, not the open sockets. A request waits for a
+ * permit no longer than its connect timeout ({@value #DEFAULT_MAX_WAIT} milliseconds when it has none), then fails
+ * like a connection that could not be established. The permits of routes unused for longer than the idle timeout are
+ * dropped.
+ *
+ * With <code>keepAlive</code> off every request asks for <code>Connection: close</code>. With it on the JVM default
+ * applies: {@link HttpURLConnection} ignores a <code>Connection: keep-alive</code> request header, so persistent
+ * connections can't be turned back on once <code>http.keepAlive</code> is false.
+ *
+ * @author Pablo Fernandez
+ */
+public class RouteLimitingHttpTransport implements HttpTransport
+{
+  public static final int DEFAULT_MAX_PER_ROUTE = 20;
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+  public static final long DEFAULT_IDLE_TIMEOUT = 60000L;
+  public static final long DEFAULT_MAX_WAIT = 30000L;
+
+  private static final String CONNECTION = "Connection";
+  private static final String CLOSE = "close";
+
+  private final int maxPerRoute;
+  private final long idleTimeout;
+  private final boolean keepAlive;
+  private final ConcurrentMap<String, Route> routes;
+  private final ConcurrentMap<HttpURLConnection, Route> leases;
+  private volatile long lastEviction;
+
+  /**
+   * Default constructor. JVM keep-alive default and no cap on the exchanges per route.
+   */
+  public RouteLimitingHttpTransport()
+  {
+    this(UNLIMITED, DEFAULT_IDLE_TIMEOUT, TimeUnit.MILLISECONDS, true);
+  }
+
+  /**
+   * @param maxPerRoute maximum number of exchanges in flight against the same route
+   *        (e.g. {@value #DEFAULT_MAX_PER_ROUTE}, {@link #UNLIMITED} for no cap)
+   * @param idleTimeout time after which the permits of an unused route are dropped
+   * @param unit unit of the idle timeout
+   * @param keepAlive false to ask for <code>Connection: close</code> unless a request says otherwise
+   */
+  public RouteLimitingHttpTransport(int maxPerRoute, long idleTimeout, TimeUnit unit, boolean keepAlive)
+  {
+    Preconditions.checkNotNull(unit, "Time unit can't be null");
+    if (maxPerRoute <= 0)
+    {
+      throw new IllegalArgumentException("Max connections per route must be positive");
+    }
+    this.maxPerRoute = maxPerRoute;
+    this.idleTimeout = unit.toMillis(idleTimeout);
+    this.keepAlive = keepAlive;
+    this.routes = new ConcurrentHashMap<String, Route>();
+    this.leases = new ConcurrentHashMap<HttpURLConnection, Route>();
+    this.lastEviction = System.currentTimeMillis();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws SocketTimeoutException if the route stays full for longer than the connect timeout of the request
+   */
+  public HttpURLConnection openConnection(Request request) throws IOException
+  {
+    URL url = new URL(request.getCompleteUrl());
+    evictIdleRoutes();
+    Route route = getRoute(url);
+    Long connectTimeout = request.getConnectTimeout();
+    long maxWait = connectTimeout != null && connectTimeout > 0 ? connectTimeout : DEFAULT_MAX_WAIT;
+    try
+    {
+      if (!route.permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS))
+      {
+        throw new SocketTimeoutException("Waited " + maxWait + "ms for one of the " + maxPerRoute + " connections to " + route.key);
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a connection to " + route.key);
+    }
+    try
+    {
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      if (!keepAlive)
+      {
+        connection.setRequestProperty(CONNECTION, CLOSE);
+      }
+      leases.put(connection, route);
+      return connection;
+    }
+    catch (IOException e)
+    {
+      route.release();
+      throw e;
+    }
+    catch (RuntimeException e)
+    {
+      route.release();
+      throw e;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void releaseConnection(Request request, HttpURLConnection connection)
+  {
+    Route route = leases.remove(connection);
+    if (route != null)
+    {
+      route.release();
+    }
+  }
+
+  /**
+   * Returns the number of routes currently tracked.
+   *
+   * @return route count
+   */
+  public int getRouteCount()
+  {
+    return routes.size();
+  }
+
+  /**
+   * Returns the number of exchanges currently in flight against the route of the given url.
+   *
+   * @param url any url on the route
+   * @return leased connections
+   */
+  public int getLeased(String url)
+  {
+    try
+    {
+      Route route = routes.get(routeKey(new URL(url)));
+      return route == null ? 0 : maxPerRoute - route.permits.availablePermits();
+    }
+    catch (MalformedURLException e)
+    {
+      throw new IllegalArgumentException("Malformed URL: " + url, e);
+    }
+  }
+
+  public int getMaxPerRoute()
+  {
+    return maxPerRoute;
+  }
+
+  public boolean isKeepAlive()
+  {
+    return keepAlive;
+  }
+
+  private Route getRoute(URL url)
+  {
+    String key = routeKey(url);
+    Route route = routes.get(key);
+    if (route == null)
+    {
+      Route created = new Route(key, maxPerRoute);
+      route = routes.putIfAbsent(key, created);
+      if (route == null)
+      {
+        route = created;
+      }
+    }
+    route.touch();
+    return route;
+  }
+
+  private void evictIdleRoutes()
+  {
+    long now = System.currentTimeMillis();
+    if (now - lastEviction < idleTimeout)
+    {
+      return;
+    }
+    lastEviction = now;
+    for (Iterator<Route> it = routes.values().iterator(); it.hasNext();)
+    {
+      Route route = it.next();
+      if (route.isIdle(now, idleTimeout, maxPerRoute))
+      {
+        it.remove();
+      }
+    }
+  }
+
+  private static String routeKey(URL url)
+  {
+    int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+    return url.getProtocol() + "://" + url.getHost().toLowerCase(Locale.ENGLISH) + ":" + port;
+  }
+
+  private static class Route
+  {
+    private final String key;
+    private final Semaphore permits;
+    private volatile long lastUsed;
+
+    Route(String key, int maxPerRoute)
+    {
+      this.key = key;
+      this.permits = new Semaphore(maxPerRoute, true);
+    }
+
+    void touch()
+    {
+      lastUsed = System.currentTimeMillis();
+    }
+
+    void release()
+    {
+      touch();
+      permits.release();
+    }
+
+    boolean isIdle(long now, long idleTimeout, int maxPerRoute)
+    {
+      return permits.availablePermits() == maxPerRoute && now - lastUsed >= idleTimeout;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package org.scribe.utils;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+/**
+ * Streaming gzip encoder (RFC 1952) for request bodies, deflating with pooled {@link Deflater}s.
+ *
+ * Nothing is buffered beyond the deflater window: compressed bytes go to the underlying stream as they come.
+ * {@link #finish()} writes the trailer and gives the deflater back, without closing the underlying stream.
+ *
+ * @author Pablo Fernandez
+ */
+public class DeflatingOutputStream extends DeflaterOutputStream
+{
+  public static final String GZIP = "gzip";
+
+  private static final int BUFFER_SIZE = 0x2000;
+  private static final int MAX_POOLED_DEFLATERS = 16;
+  private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xFF };
+  private static final int TRAILER_LENGTH = 8;
+
+  private static final Queue<Deflater> DEFLATERS = new ConcurrentLinkedQueue<Deflater>();
+  private static final AtomicInteger POOLED = new AtomicInteger();
+
+  private final CRC32 crc = new CRC32();
+  private boolean finished;
+  private long compressedSize = -1;
+
+  /**
+   * Starts a gzip stream, writing its header
+   *
+   * @param out stream the compressed bytes are written to
+   * @throws IOException if the header can't be written
+   */
+  public DeflatingOutputStream(OutputStream out) throws IOException
+  {
+    super(out, borrowDeflater(), BUFFER_SIZE);
+    boolean started = false;
+    try
+    {
+      out.write(GZIP_HEADER);
+      started = true;
+    }
+    finally
+    {
+      if (!started)
+      {
+        // nobody gets a stream to finish, give the deflater back here
+        finished = true;
+        releaseDeflater(def);
+      }
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException
+  {
+    if (finished)
+    {
+      throw new IOException("Write beyond end of gzip stream");
+    }
+    super.write(b, off, len);
+    crc.update(b, off, len);
+  }
+
+  @Override
+  public void write(int b) throws IOException
+  {
+    write(new byte[]{ (byte) b }, 0, 1);
+  }
+
+  /**
+   * Flushes the remaining compressed data and the trailer (CRC32 and size), the underlying stream stays open.
+   *
+   * @throws IOException if the stream fails
+   */
+  @Override
+  public void finish() throws IOException
+  {
+    if (finished)
+    {
+      return;
+    }
+    finished = true;
+    try
+    {
+      super.finish();
+      writeInt(crc.getValue());
+      writeInt(def.getBytesRead());
+      compressedSize = GZIP_HEADER.length + def.getBytesWritten() + TRAILER_LENGTH;
+    }
+    finally
+    {
+      releaseDeflater(def);
+    }
+  }
+
+  /**
+   * Returns the size of the gzip stream, header and trailer included
+   *
+   * @return bytes written to the underlying stream, -1 until finished
+   */
+  public long getCompressedSize()
+  {
+    return compressedSize;
+  }
+
+  private void writeInt(long value) throws IOException
+  {
+    for (int i = 0; i < 4; i++)
+    {
+      out.write((int) (value >> (8 * i)) & 0xFF);
+    }
+  }
+
+  private static Deflater borrowDeflater()
+  {
+    Deflater deflater = DEFLATERS.poll();
+    if (deflater == null)
+    {
+      return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+    POOLED.decrementAndGet();
+    return deflater;
+  }
+
+  private static void releaseDeflater(Deflater deflater)
+  {
+    deflater.reset();
+    if (POOLED.incrementAndGet() <= MAX_POOLED_DEFLATERS)
+    {
+      DEFLATERS.offer(deflater);
+    }
+    else
+    {
+      POOLED.decrementAndGet();
+      deflater.end();
+    }
+  }
+
+  /**
+   * Number of idle deflaters in the pool (for tests)
+   */
+  static int getPooledDeflaters()
+  {
+    return POOLED.get();
+  }
+}
@@ -0,0 +1,370 @@
+package org.scribe.utils;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+/**
+ * Streaming decoder for the gzip and deflate content codings (RFC 2616, section 3.5).
+ *
+ * Inflaters are pooled and given back as soon as the body is fully read (or the stream closed). Deflate bodies
+ * are accepted both zlib wrapped (as the RFC says) and raw (as some servers send them). Nothing is read until the
+ * first read, so empty bodies (HEAD, 304) announcing a Content-Encoding decode to nothing instead of failing.
+ *
+ * @author Pablo Fernandez
+ */
+public class InflatingInputStream extends FilterInputStream
+{
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+  private static final String X_GZIP = "x-gzip";
+
+  private static final int BUFFER_SIZE = 0x2000;
+  private static final int MAX_POOLED_INFLATERS = 32;
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  private static final Queue<Inflater> INFLATERS = new ConcurrentLinkedQueue<Inflater>();
+  private static final AtomicInteger POOLED = new AtomicInteger();
+
+  private final boolean gzip;
+  private Inflater inflater;
+  private Checksum checksum;
+  private byte[] buffer;
+  private int inputEnd;
+  private boolean started;
+  private boolean finished;
+  private boolean closed;
+
+  InflatingInputStream(InputStream in, boolean gzip)
+  {
+    super(in);
+    this.gzip = gzip;
+  }
+
+  /**
+   * Wraps the stream with the decoder of the given Content-Encoding
+   *
+   * @param in encoded stream, can be null
+   * @param contentEncoding Content-Encoding header value, can be null
+   * @return decoding stream, or the given one if it isn't gzip/deflate encoded
+   */
+  public static InputStream decode(InputStream in, String contentEncoding)
+  {
+    if (in == null || contentEncoding == null)
+    {
+      return in;
+    }
+    String coding = contentEncoding.trim();
+    if (GZIP.equalsIgnoreCase(coding) || X_GZIP.equalsIgnoreCase(coding))
+    {
+      return new InflatingInputStream(in, true);
+    }
+    if (DEFLATE.equalsIgnoreCase(coding))
+    {
+      return new InflatingInputStream(in, false);
+    }
+    return in;
+  }
+
+  @Override
+  public int read() throws IOException
+  {
+    byte[] single = new byte[1];
+    return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException
+  {
+    if (closed)
+    {
+      throw new IOException("Stream closed");
+    }
+    if (len == 0)
+    {
+      return 0;
+    }
+    if (!started)
+    {
+      start();
+    }
+    if (finished)
+    {
+      return -1;
+    }
+    try
+    {
+      int inflated;
+      while ((inflated = inflater.inflate(b, off, len)) == 0)
+      {
+        if (inflater.finished())
+        {
+          readTrailer();
+          release();
+          finished = true;
+          return -1;
+        }
+        if (inflater.needsDictionary())
+        {
+          throw new ZipException("Preset dictionaries are not supported");
+        }
+        fill();
+      }
+      if (checksum != null)
+      {
+        checksum.update(b, off, inflated);
+      }
+      return inflated;
+    }
+    catch (DataFormatException e)
+    {
+      throw new ZipException(e.getMessage() != null ? e.getMessage() : "Invalid compressed data");
+    }
+  }
+
+  @Override
+  public long skip(long n) throws IOException
+  {
+    byte[] discarded = new byte[(int) Math.min(Math.max(n, 0), 512)];
+    long skipped = 0;
+    while (skipped < n)
+    {
+      int read = read(discarded, 0, (int) Math.min(n - skipped, discarded.length));
+      if (read < 0)
+      {
+        break;
+      }
+      skipped += read;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() throws IOException
+  {
+    if (closed)
+    {
+      throw new IOException("Stream closed");
+    }
+    return finished ? 0 : 1;
+  }
+
+  @Override
+  public boolean markSupported()
+  {
+    return false;
+  }
+
+  @Override
+  public synchronized void mark(int readlimit)
+  {
+  }
+
+  @Override
+  public synchronized void reset() throws IOException
+  {
+    throw new IOException("mark/reset not supported");
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    if (!closed)
+    {
+      closed = true;
+      release();
+      in.close();
+    }
+  }
+
+  private void start() throws IOException
+  {
+    started = true;
+    int first = in.read();
+    if (first < 0)
+    {
+      finished = true;
+      return;
+    }
+    inflater = borrowInflater();
+    buffer = new byte[BUFFER_SIZE];
+    if (gzip)
+    {
+      readGzipHeader(first);
+      checksum = new CRC32();
+      return;
+    }
+    int second = in.read();
+    if (second >= 0 && isZlibHeader(first, second))
+    {
+      if ((second & 0x20) != 0)
+      {
+        throw new ZipException("Preset dictionaries are not supported");
+      }
+      checksum = new Adler32();
+      return;
+    }
+    // raw deflate, what was peeked is compressed data
+    buffer[inputEnd++] = (byte) first;
+    if (second >= 0)
+    {
+      buffer[inputEnd++] = (byte) second;
+    }
+    inflater.setInput(buffer, 0, inputEnd);
+  }
+
+  private static boolean isZlibHeader(int cmf, int flg)
+  {
+    return (cmf & 0x0F) == 8 && (cmf >> 4) <= 7 && ((cmf << 8) | flg) % 31 == 0;
+  }
+
+  private void readGzipHeader(int first) throws IOException
+  {
+    if ((first | readHeaderByte() << 8) != GZIP_MAGIC)
+    {
+      throw new ZipException("Not in gzip format");
+    }
+    if (readHeaderByte() != 8)
+    {
+      throw new ZipException("Unsupported gzip compression method");
+    }
+    int flags = readHeaderByte();
+    // modification time, extra flags and OS
+    skipHeaderBytes(6);
+    if ((flags & FEXTRA) != 0)
+    {
+      skipHeaderBytes(readHeaderByte() | readHeaderByte() << 8);
+    }
+    if ((flags & FNAME) != 0)
+    {
+      while (readHeaderByte() != 0);
+    }
+    if ((flags & FCOMMENT) != 0)
+    {
+      while (readHeaderByte() != 0);
+    }
+    if ((flags & FHCRC) != 0)
+    {
+      skipHeaderBytes(2);
+    }
+  }
+
+  private int readHeaderByte() throws IOException
+  {
+    int b = in.read();
+    if (b < 0)
+    {
+      throw new EOFException("Unexpected end of compressed body");
+    }
+    return b;
+  }
+
+  private void skipHeaderBytes(int count) throws IOException
+  {
+    for (int i = 0; i < count; i++)
+    {
+      readHeaderByte();
+    }
+  }
+
+  private void fill() throws IOException
+  {
+    inputEnd = in.read(buffer, 0, buffer.length);
+    if (inputEnd < 0)
+    {
+      throw new EOFException("Unexpected end of compressed body");
+    }
+    inflater.setInput(buffer, 0, inputEnd);
+  }
+
+  /**
+   * Checks the gzip (CRC32 and size, little endian) or zlib (Adler32, big endian) trailer.
+   * Its bytes may still be sitting in the input buffer, unused by the inflater.
+   */
+  private void readTrailer() throws IOException
+  {
+    int position = inputEnd - inflater.getRemaining();
+    if (gzip)
+    {
+      long crc = 0;
+      long size = 0;
+      for (int i = 0; i < 4; i++)
+      {
+        crc |= (long) readTrailerByte(position++) << (8 * i);
+      }
+      for (int i = 0; i < 4; i++)
+      {
+        size |= (long) readTrailerByte(position++) << (8 * i);
+      }
+      if (crc != checksum.getValue() || size != (inflater.getBytesWritten() & 0xFFFFFFFFL))
+      {
+        throw new ZipException("Corrupt gzip body (bad CRC or size)");
+      }
+    }
+    else if (checksum != null)
+    {
+      long adler = 0;
+      for (int i = 0; i < 4; i++)
+      {
+        adler = adler << 8 | readTrailerByte(position++);
+      }
+      if (adler != checksum.getValue())
+      {
+        throw new ZipException("Corrupt deflate body (bad checksum)");
+      }
+    }
+  }
+
+  private int readTrailerByte(int position) throws IOException
+  {
+    return position < inputEnd ? buffer[position] & 0xFF : readHeaderByte();
+  }
+
+  private void release()
+  {
+    if (inflater != null)
+    {
+      releaseInflater(inflater);
+      inflater = null;
+    }
+  }
+
+  private static Inflater borrowInflater()
+  {
+    Inflater inflater = INFLATERS.poll();
+    if (inflater == null)
+    {
+      return new Inflater(true);
+    }
+    POOLED.decrementAndGet();
+    return inflater;
+  }
+
+  private static void releaseInflater(Inflater inflater)
+  {
+    inflater.reset();
+    if (POOLED.incrementAndGet() <= MAX_POOLED_INFLATERS)
+    {
+      INFLATERS.offer(inflater);
+    }
+    else
+    {
+      POOLED.decrementAndGet();
+      inflater.end();
+    }
+  }
+
+  /**
+   * Number of idle inflaters in the pool (for tests)
+   */
+  static int getPooledInflaters()
+  {
+    return POOLED.get();
+  }
+}
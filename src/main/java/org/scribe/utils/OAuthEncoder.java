@@ -2,56 +2,172 @@ package org.scribe.utils;
 
 import java.io.*;
 import java.net.*;
-import java.util.*;
-import java.util.regex.*;
 import org.scribe.exceptions.*;
 
 /**
+ * RFC 3986 percent encoder (as required by OAuth 1.0a, section 3.6).
+ *
+ * Unreserved characters (ALPHA, DIGIT, '-', '.', '_', '~') are left untouched, everything else is UTF-8
+ * encoded and escaped as %XX with uppercase hex digits. Encoding is table-driven and can write straight
+ * into a caller supplied {@link StringBuilder} or {@link OutputStream}.
+ *
  * @author: Pablo Fernandez
  */
 public class OAuthEncoder
 {
   private static String CHARSET = "UTF-8";
-  private static final Map<String, String> ENCODING_RULES;
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+  private static final boolean[] UNRESERVED = new boolean[128];
+  private static final char UNMAPPABLE = '?';
 
   static
   {
-    Map<String, String> rules = new HashMap<String, String>();
-    rules.put("*", "%2A");
-    rules.put("+", "%20");
-    rules.put("%7E", "~");
-    ENCODING_RULES = Collections.unmodifiableMap(rules);
+    for (char c = 'a'; c <= 'z'; c++) UNRESERVED[c] = true;
+    for (char c = 'A'; c <= 'Z'; c++) UNRESERVED[c] = true;
+    for (char c = '0'; c <= '9'; c++) UNRESERVED[c] = true;
+    UNRESERVED['-'] = true;
+    UNRESERVED['.'] = true;
+    UNRESERVED['_'] = true;
+    UNRESERVED['~'] = true;
   }
 
   private OAuthEncoder(){}
 
+  /**
+   * Percent encodes a string. Returns the very same instance when nothing needs escaping.
+   *
+   * @param plain string to encode
+   * @return encoded string
+   */
   public static String encode(String plain)
   {
     Preconditions.checkNotNull(plain, "Cannot encode null object");
-    String encoded = "";
-    try
+    int first = firstToEscape(plain);
+    if (first == plain.length())
     {
-      encoded = URLEncoder.encode(plain, CHARSET);
+      return plain;
     }
-    catch (UnsupportedEncodingException uee)
+    StringBuilder encoded = new StringBuilder(plain.length() + 16);
+    encoded.append(plain, 0, first);
+    escapeFrom(plain, first, encoded);
+    return encoded.toString();
+  }
+
+  /**
+   * Percent encodes a char sequence, appending the result to the given {@link StringBuilder}.
+   *
+   * @param plain sequence to encode
+   * @param out builder the encoded chars are appended to
+   * @return the builder, for chaining
+   */
+  public static StringBuilder encode(CharSequence plain, StringBuilder out)
+  {
+    Preconditions.checkNotNull(plain, "Cannot encode null object");
+    int first = firstToEscape(plain);
+    out.append(plain, 0, first);
+    if (first < plain.length())
     {
-      throw new OAuthException("Charset not found while encoding string: " + CHARSET, uee);
+      escapeFrom(plain, first, out);
     }
-    for(Map.Entry<String, String> rule : ENCODING_RULES.entrySet())
+    return out;
+  }
+
+  /**
+   * Percent encodes a char sequence, writing the resulting (ASCII) bytes to the given {@link OutputStream}.
+   *
+   * @param plain sequence to encode
+   * @param out stream the encoded bytes are written to
+   * @return number of bytes written
+   * @throws IOException if the stream fails
+   */
+  public static int encode(CharSequence plain, OutputStream out) throws IOException
+  {
+    return encode(plain, out, false);
+  }
+
+  /**
+   * Percent encodes a char sequence twice (same as <code>encode(encode(plain))</code>, as the OAuth base string
+   * requires for parameters), writing the resulting bytes to the given {@link OutputStream}.
+   *
+   * @param plain sequence to encode
+   * @param out stream the encoded bytes are written to
+   * @return number of bytes written
+   * @throws IOException if the stream fails
+   */
+  public static int encodeTwice(CharSequence plain, OutputStream out) throws IOException
+  {
+    return encode(plain, out, true);
+  }
+
+  private static int encode(CharSequence plain, OutputStream out, boolean twice) throws IOException
+  {
+    Preconditions.checkNotNull(plain, "Cannot encode null object");
+    int written = 0;
+    int length = plain.length();
+    for (int i = 0; i < length; i++)
     {
-      encoded = applyRule(encoded, rule.getKey(), rule.getValue());
+      char c = plain.charAt(i);
+      if (c < 128 && UNRESERVED[c])
+      {
+        out.write(c);
+        written++;
+        continue;
+      }
+      written += escape(codePointAt(plain, i), out, twice);
+      if (isPair(plain, i))
+      {
+        i++;
+      }
     }
-    return encoded;
+    return written;
   }
 
-  private static String applyRule(String encoded, String toReplace, String replacement)
+  /**
+   * Returns the length of the encoded form of a char sequence, without encoding it.
+   *
+   * @param plain sequence to measure
+   * @return encoded length
+   */
+  public static int encodedLength(CharSequence plain)
   {
-    return encoded.replaceAll(Pattern.quote(toReplace), replacement);
+    Preconditions.checkNotNull(plain, "Cannot encode null object");
+    int encoded = 0;
+    int length = plain.length();
+    for (int i = 0; i < length; i++)
+    {
+      char c = plain.charAt(i);
+      if (c < 128 && UNRESERVED[c])
+      {
+        encoded++;
+      }
+      else if (c < 0x80 || isSurrogate(c) && !isPair(plain, i))
+      {
+        encoded += 3;
+      }
+      else if (c < 0x800)
+      {
+        encoded += 6;
+      }
+      else if (Character.isHighSurrogate(c))
+      {
+        encoded += 12;
+        i++;
+      }
+      else
+      {
+        encoded += 9;
+      }
+    }
+    return encoded;
   }
 
   public static String decode(String encoded)
   {
     Preconditions.checkNotNull(encoded, "Cannot decode null object");
+    if (encoded.indexOf('%') < 0 && encoded.indexOf('+') < 0)
+    {
+      return encoded;
+    }
     try
     {
       return URLDecoder.decode(encoded, CHARSET);
@@ -61,4 +177,133 @@ public class OAuthEncoder
       throw new OAuthException("Charset not found while decoding string: " + CHARSET, uee);
     }
   }
+
+  private static int firstToEscape(CharSequence plain)
+  {
+    int length = plain.length();
+    for (int i = 0; i < length; i++)
+    {
+      char c = plain.charAt(i);
+      if (c >= 128 || !UNRESERVED[c])
+      {
+        return i;
+      }
+    }
+    return length;
+  }
+
+  private static void escapeFrom(CharSequence plain, int from, StringBuilder out)
+  {
+    int length = plain.length();
+    for (int i = from; i < length; i++)
+    {
+      char c = plain.charAt(i);
+      if (c < 128 && UNRESERVED[c])
+      {
+        out.append(c);
+        continue;
+      }
+      escape(codePointAt(plain, i), out);
+      if (isPair(plain, i))
+      {
+        i++;
+      }
+    }
+  }
+
+  /**
+   * Unpaired surrogates can't be UTF-8 encoded, they become '?' (just like {@link URLEncoder} does).
+   */
+  private static int codePointAt(CharSequence plain, int i)
+  {
+    char c = plain.charAt(i);
+    if (isPair(plain, i))
+    {
+      return Character.toCodePoint(c, plain.charAt(i + 1));
+    }
+    return isSurrogate(c) ? UNMAPPABLE : c;
+  }
+
+  private static boolean isPair(CharSequence plain, int i)
+  {
+    return Character.isHighSurrogate(plain.charAt(i)) && i + 1 < plain.length() && Character.isLowSurrogate(plain.charAt(i + 1));
+  }
+
+  private static boolean isSurrogate(char c)
+  {
+    return c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE;
+  }
+
+  private static void escape(int codePoint, StringBuilder out)
+  {
+    if (codePoint < 0x80)
+    {
+      appendByte(codePoint, out);
+    }
+    else if (codePoint < 0x800)
+    {
+      appendByte(0xC0 | (codePoint >> 6), out);
+      appendByte(0x80 | (codePoint & 0x3F), out);
+    }
+    else if (codePoint < 0x10000)
+    {
+      appendByte(0xE0 | (codePoint >> 12), out);
+      appendByte(0x80 | ((codePoint >> 6) & 0x3F), out);
+      appendByte(0x80 | (codePoint & 0x3F), out);
+    }
+    else
+    {
+      appendByte(0xF0 | (codePoint >> 18), out);
+      appendByte(0x80 | ((codePoint >> 12) & 0x3F), out);
+      appendByte(0x80 | ((codePoint >> 6) & 0x3F), out);
+      appendByte(0x80 | (codePoint & 0x3F), out);
+    }
+  }
+
+  private static void appendByte(int b, StringBuilder out)
+  {
+    out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+  }
+
+  private static int escape(int codePoint, OutputStream out, boolean twice) throws IOException
+  {
+    if (codePoint < 0x80)
+    {
+      return writeByte(codePoint, out, twice);
+    }
+    else if (codePoint < 0x800)
+    {
+      return writeByte(0xC0 | (codePoint >> 6), out, twice)
+          + writeByte(0x80 | (codePoint & 0x3F), out, twice);
+    }
+    else if (codePoint < 0x10000)
+    {
+      return writeByte(0xE0 | (codePoint >> 12), out, twice)
+          + writeByte(0x80 | ((codePoint >> 6) & 0x3F), out, twice)
+          + writeByte(0x80 | (codePoint & 0x3F), out, twice);
+    }
+    else
+    {
+      return writeByte(0xF0 | (codePoint >> 18), out, twice)
+          + writeByte(0x80 | ((codePoint >> 12) & 0x3F), out, twice)
+          + writeByte(0x80 | ((codePoint >> 6) & 0x3F), out, twice)
+          + writeByte(0x80 | (codePoint & 0x3F), out, twice);
+    }
+  }
+
+  /**
+   * Writes %XX, or %25XX when encoding twice (the second pass only ever escapes the '%').
+   */
+  private static int writeByte(int b, OutputStream out, boolean twice) throws IOException
+  {
+    out.write('%');
+    if (twice)
+    {
+      out.write('2');
+      out.write('5');
+    }
+    out.write(HEX[(b >> 4) & 0xF]);
+    out.write(HEX[b & 0xF]);
+    return twice ? 5 : 3;
+  }
 }
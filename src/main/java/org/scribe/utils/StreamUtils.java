@@ -1,6 +1,11 @@
 package org.scribe.utils;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 /**
  * Utils to deal with Streams.
@@ -9,6 +14,17 @@ import java.io.*;
  */
 public class StreamUtils
 {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int BUFFER_SIZE = 0x2000;
+  private static final int MAX_POOLED_BUFFERS = 64;
+  private static final int MAX_PRESIZE = 0x100000;
+  private static final int MAX_POOLED_DECODERS = 8;
+  private static final int MAX_POOLED_CHARSETS = 16;
+
+  private static final Queue<byte[]> BUFFERS = new ConcurrentLinkedQueue<byte[]>();
+  private static final AtomicInteger POOLED = new AtomicInteger();
+  private static final ConcurrentMap<Charset, DecoderPool> DECODERS = new ConcurrentHashMap<Charset, DecoderPool>();
+
   private StreamUtils(){}
 
   /**
@@ -18,27 +34,202 @@ public class StreamUtils
    * @return string contents
    */
   public static String getStreamContents(InputStream is)
+  {
+    return getStreamContents(is, UTF8, -1);
+  }
+
+  /**
+   * Returns the stream contents decoded with the given charset
+   * 
+   * @param is input stream
+   * @param charset charset of the contents
+   * @param sizeHint expected number of bytes (e.g. Content-Length), or -1 if unknown
+   * @return string contents
+   */
+  public static String getStreamContents(InputStream is, Charset charset, int sizeHint)
+  {
+    return decode(getStreamBytes(is, sizeHint), charset);
+  }
+
+  /**
+   * Decodes the bytes with a pooled {@link CharsetDecoder}, malformed input is replaced like
+   * {@link String#String(byte[], Charset)} does.
+   * 
+   * @param bytes encoded contents
+   * @param charset charset of the contents
+   * @return decoded string
+   */
+  public static String decode(byte[] bytes, Charset charset)
+  {
+    Preconditions.checkNotNull(bytes, "Cannot decode a null array");
+    if (bytes.length == 0)
+    {
+      return "";
+    }
+    DecoderPool pool = decoderPool(charset);
+    CharsetDecoder decoder = pool == null ? newDecoder(charset) : pool.borrow(charset);
+    try
+    {
+      char[] chars = new char[(int) Math.ceil(bytes.length * (double) decoder.maxCharsPerByte())];
+      CharBuffer out = CharBuffer.wrap(chars);
+      CoderResult result = decoder.decode(ByteBuffer.wrap(bytes), out, true);
+      if (!result.isUnderflow())
+      {
+        result.throwException();
+      }
+      result = decoder.flush(out);
+      if (!result.isUnderflow())
+      {
+        result.throwException();
+      }
+      return new String(chars, 0, out.position());
+    }
+    catch (CharacterCodingException cce)
+    {
+      // can't happen with REPLACE and a big enough output
+      throw new IllegalStateException("Error while decoding response body", cce);
+    }
+    finally
+    {
+      if (pool != null)
+      {
+        pool.release(decoder);
+      }
+    }
+  }
+
+  /**
+   * Pool of decoders for the charset, null when too many charsets are pooled already (they come from the peer)
+   */
+  private static DecoderPool decoderPool(Charset charset)
+  {
+    DecoderPool pool = DECODERS.get(charset);
+    if (pool == null && DECODERS.size() < MAX_POOLED_CHARSETS)
+    {
+      DecoderPool created = new DecoderPool();
+      pool = DECODERS.putIfAbsent(charset, created);
+      pool = pool == null ? created : pool;
+    }
+    return pool;
+  }
+
+  private static CharsetDecoder newDecoder(Charset charset)
+  {
+    return charset.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  /**
+   * Reads the whole stream and closes it.
+   * 
+   * When the size is known upfront the bytes are read straight into the returned array, otherwise
+   * they go through pooled buffers and only the result is allocated. The hint comes from the peer,
+   * so at most 1 MB is allocated upfront and larger bodies grow the array as they arrive.
+   * 
+   * @param is input stream
+   * @param sizeHint expected number of bytes (e.g. Content-Length), or -1 if unknown
+   * @return stream contents
+   */
+  public static byte[] getStreamBytes(InputStream is, int sizeHint)
   {
     Preconditions.checkNotNull(is, "Cannot get String from a null object");
+    boolean pooled = sizeHint <= 0;
+    byte[] buffer = pooled ? borrowBuffer() : new byte[Math.min(sizeHint, MAX_PRESIZE)];
     try
     {
-      final char[] buffer = new char[0x10000];
-      StringBuilder out = new StringBuilder();
-      Reader in = new InputStreamReader(is, "UTF-8");
-      int read;
-      do
+      int count = 0;
+      while (true)
       {
-        read = in.read(buffer, 0, buffer.length);
-        if (read > 0)
+        if (count == buffer.length)
+        {
+          // full, make sure there's more to come before growing
+          int next = is.read();
+          if (next < 0)
+          {
+            break;
+          }
+          byte[] grown = Arrays.copyOf(buffer, Math.max(buffer.length * 2, BUFFER_SIZE));
+          if (pooled)
+          {
+            releaseBuffer(buffer);
+            pooled = false;
+          }
+          buffer = grown;
+          buffer[count++] = (byte) next;
+        }
+        int read = is.read(buffer, count, buffer.length - count);
+        if (read < 0)
         {
-          out.append(buffer, 0, read);
+          break;
         }
-      } while (read >= 0);
-      in.close();
-      return out.toString();
-    } catch (IOException ioe)
+        count += read;
+      }
+      is.close();
+      return !pooled && count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+    }
+    catch (IOException ioe)
     {
       throw new IllegalStateException("Error while reading response body", ioe);
     }
+    finally
+    {
+      if (pooled)
+      {
+        releaseBuffer(buffer);
+      }
+    }
+  }
+
+  private static byte[] borrowBuffer()
+  {
+    byte[] buffer = BUFFERS.poll();
+    if (buffer == null)
+    {
+      return new byte[BUFFER_SIZE];
+    }
+    POOLED.decrementAndGet();
+    return buffer;
+  }
+
+  private static void releaseBuffer(byte[] buffer)
+  {
+    if (POOLED.incrementAndGet() <= MAX_POOLED_BUFFERS)
+    {
+      BUFFERS.offer(buffer);
+    }
+    else
+    {
+      POOLED.decrementAndGet();
+    }
+  }
+
+  private static class DecoderPool
+  {
+    private final Queue<CharsetDecoder> idle = new ConcurrentLinkedQueue<CharsetDecoder>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    CharsetDecoder borrow(Charset charset)
+    {
+      CharsetDecoder decoder = idle.poll();
+      if (decoder == null)
+      {
+        return newDecoder(charset);
+      }
+      idleCount.decrementAndGet();
+      return decoder.reset();
+    }
+
+    void release(CharsetDecoder decoder)
+    {
+      if (idleCount.incrementAndGet() <= MAX_POOLED_DECODERS)
+      {
+        idle.offer(decoder);
+      }
+      else
+      {
+        idleCount.decrementAndGet();
+      }
+    }
   }
 }
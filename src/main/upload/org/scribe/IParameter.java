@@ -61,4 +61,14 @@ public interface IParameter extends Comparable<IParameter> {
 	 *            written.
 	 */
 	long writeTo(final int encoding, final OutputStream writeTo);
+
+	/**
+	 * Computes the number of bytes {@link #writeTo(int, OutputStream)} would
+	 * write, without writing (or reading) the content.
+	 * 
+	 * @param encoding
+	 *            The method of encoding to be used for writing this parameter.
+	 * @return The exact number of bytes, or -1 if it can't be known upfront.
+	 */
+	long getLength(final int encoding);
 }
@@ -6,6 +6,8 @@ import org.junit.*;
 import org.scribe.builder.api.*;
 import org.scribe.model.*;
 import org.scribe.oauth.*;
+import org.scribe.services.*;
+import org.scribe.transport.*;
 
 public class ServiceBuilderTest
 {
@@ -60,6 +62,69 @@ public class ServiceBuilderTest
     assertEquals(ApiMock.config.getScope(), "rss-api");
   }
 
+  @Test
+  public void shouldAcceptATransport()
+  {
+    HttpTransport transport = new RouteLimitingHttpTransport();
+    builder.provider(ApiMock.class).apiKey("key").apiSecret("secret").transport(transport).build();
+    assertSame(transport, ApiMock.config.getTransport());
+  }
+
+  @Test
+  public void shouldAcceptASignatureService()
+  {
+    SignatureService signatureService = new HMACSha1SignatureService(16);
+    builder.provider(ApiMock.class).apiKey("key").apiSecret("secret").signatureService(signatureService).build();
+    assertSame(signatureService, ApiMock.config.getSignatureService());
+  }
+
+  @Test
+  public void shouldAcceptCompressedResponsesUnlessDisabled()
+  {
+    builder.provider(ApiMock.class).apiKey("key").apiSecret("secret").build();
+    assertTrue(ApiMock.config.isResponseCompression());
+
+    builder.responseCompression(false).build();
+    Request request = new Request(Verb.GET, "http://example.com");
+    ApiMock.config.applyTo(request);
+    assertEquals(Boolean.FALSE, request.getResponseCompression());
+
+    Request explicit = new Request(Verb.GET, "http://example.com");
+    explicit.setResponseCompression(true);
+    ApiMock.config.applyTo(explicit);
+    assertEquals(Boolean.TRUE, explicit.getResponseCompression());
+  }
+
+  @Test
+  public void shouldCompressBodiesOnlyWhenAsked()
+  {
+    builder.provider(ApiMock.class).apiKey("key").apiSecret("secret").build();
+    Request request = new Request(Verb.POST, "http://example.com");
+    ApiMock.config.applyTo(request);
+    assertNull(request.getBodyCompressionThreshold());
+
+    builder.bodyCompression(4096).build();
+    ApiMock.config.applyTo(request);
+    assertEquals(Integer.valueOf(4096), request.getBodyCompressionThreshold());
+  }
+
+  @Test
+  public void shouldAcceptATokenStore()
+  {
+    builder.provider(ApiMock.class).apiKey("key").apiSecret("secret").build();
+    assertTrue(ApiMock.config.getTokenStore() instanceof InMemoryTokenStore);
+
+    TokenStore tokenStore = new InMemoryTokenStore(16);
+    builder.tokenStore(tokenStore).build();
+    assertSame(tokenStore, ApiMock.config.getTokenStore());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptANegativeBodyCompressionThreshold()
+  {
+    builder.bodyCompression(-1);
+  }
+
   public static class ApiMock implements Api
   {
     public static OAuthConfig config;
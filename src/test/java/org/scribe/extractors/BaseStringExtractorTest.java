@@ -2,6 +2,8 @@ package org.scribe.extractors;
 
 import static org.junit.Assert.*;
 
+import java.io.*;
+
 import org.junit.*;
 import org.scribe.exceptions.*;
 import org.scribe.model.*;
@@ -28,6 +30,26 @@ public class BaseStringExtractorTest
     assertEquals(expected, baseString);
   }
 
+  @Test
+  public void shouldStreamSameBaseString() throws Exception
+  {
+    request.addBodyParameter("body", "ñandú & friends");
+    request.addQuerystringParameter("q", "a+b");
+    ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+    extractor.extract(request, streamed);
+    String expected = "GET&http%3A%2F%2Fexample.com&body%3D%25C3%25B1and%25C3%25BA%2520%2526%2520friends%26oauth_callback%3Dhttp%253A%252F%252Fexample%252Fcallback%26oauth_consumer_key%3DAS%2523%2524%255E%252A%2540%2526%26oauth_signature%3DOAuth-Signature%26oauth_timestamp%3D123456%26q%3Da%252Bb";
+    assertEquals(expected, streamed.toString("US-ASCII"));
+    assertEquals(expected, extractor.extract(request));
+  }
+
+  @Test
+  public void shouldExcludeQueryStringFromBaseStringUrl()
+  {
+    OAuthRequest request = new OAuthRequest(Verb.POST, "http://example.com/path?q=1");
+    request.addOAuthParameter(OAuthConstants.TIMESTAMP, "123456");
+    assertEquals("POST&http%3A%2F%2Fexample.com%2Fpath&oauth_timestamp%3D123456%26q%3D1", extractor.extract(request));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void shouldThrowExceptionIfRquestIsNull()
   {
@@ -29,6 +29,14 @@ public class HeaderExtractorTest
     assertEquals(expected, header);
   }
 
+  @Test
+  public void shouldUsePreEncodedValues()
+  {
+    OAuthRequest encoded = new OAuthRequest(Verb.GET, "http://example.com");
+    encoded.addOAuthParameter(OAuthConstants.CONSUMER_KEY, "AS#$^*@&", "AS%23%24%5E%2A%40%26");
+    assertEquals("OAuth oauth_consumer_key=\"AS%23%24%5E%2A%40%26\"", extractor.extract(encoded));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void shouldExceptionIfRequestIsNull()
   {
@@ -3,6 +3,7 @@ package org.scribe.extractors;
 import static org.junit.Assert.*;
 
 import org.junit.*;
+import org.scribe.exceptions.*;
 import org.scribe.model.*;
 
 public class JsonTokenExtractorTest
@@ -17,6 +18,67 @@ public class JsonTokenExtractorTest
     assertEquals(token.getToken(), "I0122HHJKLEM21F3WLPYHDKGKZULAUO4SGMV3ABKFTDT3T3X");
   }
 
+  @Test
+  public void shouldParseExpirationAndRefreshToken()
+  {
+    long before = System.currentTimeMillis();
+    Token token = extractor.extract("{\"access_token\":\"ya29.AHES\",\"token_type\":\"Bearer\",\"expires_in\":3600,\"refresh_token\":\"1/xEoDL4iW3\"}");
+    assertEquals("ya29.AHES", token.getToken());
+    assertEquals("1/xEoDL4iW3", token.getRefreshToken());
+    assertTrue(token.getExpiresAt() >= before + 3600000);
+    assertEquals(0, extractor.extract(response).getExpiresAt());
+  }
+
+  @Test
+  public void shouldParseEveryField()
+  {
+    Token token = extractor.extract("{\"access_token\":\"2YotnFZFEjr1zCsicMWpAA\",\"token_type\":\"bearer\",\"scope\":\"read write\","
+        + "\"user_id\":12345,\"verified\":true,\"nickname\":null,\"user\":{\"name\":\"a}\",\"ids\":[1,2]}}");
+    assertEquals("2YotnFZFEjr1zCsicMWpAA", token.getToken());
+    assertEquals("bearer", token.getTokenType());
+    assertEquals("read write", token.getScope());
+    assertNull(token.getRefreshToken());
+    assertEquals("12345", token.getParameter("user_id"));
+    assertEquals("true", token.getParameter("verified"));
+    assertNull(token.getParameter("nickname"));
+    assertTrue(token.getParameters().containsKey("nickname"));
+    assertEquals("{\"name\":\"a}\",\"ids\":[1,2]}", token.getParameter("user"));
+  }
+
+  @Test
+  public void shouldParseEscapesAndWhitespace()
+  {
+    Token token = extractor.extract(" {\n  \"access_token\" : \"a\\\"b\\\\c\\/d\\u00e9\" ,\n\t\"expires_in\" : \"3600\" ,"
+        + " \"mess\\u0061ge\" : \"line\\nbreak\"\n}\n");
+    assertEquals("a\"b\\c/dé", token.getToken());
+    assertTrue(token.getExpiresAt() > 0);
+    assertEquals("line\nbreak", token.getParameter("message"));
+  }
+
+  @Test
+  public void shouldStopOnceTheNamedFieldsAreFound()
+  {
+    extractor = new JsonTokenExtractor("user_id");
+    Token token = extractor.extract("{\"access_token\":\"token\",\"token_type\":\"bearer\",\"expires_in\":60,\"refresh_token\":\"refresh\","
+        + "\"scope\":\"all\",\"ignored\":[{}],\"user_id\":\"42\", this is never read");
+    assertEquals("token", token.getToken());
+    assertEquals("refresh", token.getRefreshToken());
+    assertEquals("42", token.getParameter("user_id"));
+    assertEquals(1, token.getParameters().size());
+  }
+
+  @Test(expected=OAuthException.class)
+  public void shouldThrowExceptionIfTheTokenIsMissing()
+  {
+    extractor.extract("{\"error\":\"invalid_grant\"}");
+  }
+
+  @Test(expected=OAuthException.class)
+  public void shouldThrowExceptionForMalformedJson()
+  {
+    extractor.extract("{\"access_token\":\"unterminated}");
+  }
+
   @Test(expected=IllegalArgumentException.class)
   public void shouldThrowExceptionIfForNullParameters()
   {
@@ -44,6 +44,25 @@ public class TokenExtractor20Test
     assertEquals("", extracted.getSecret());
   }
 
+  @Test
+  public void shouldExtractExpirationAndRefreshToken()
+  {
+    long before = System.currentTimeMillis();
+    Token extracted = extractor.extract("access_token=foo1234&expires_in=3600&refresh_token=bar%2F5678");
+    assertEquals("foo1234", extracted.getToken());
+    assertEquals("bar/5678", extracted.getRefreshToken());
+    assertTrue(extracted.getExpiresAt() >= before + 3600000);
+    assertTrue(extracted.getExpiresAt() <= System.currentTimeMillis() + 3600000);
+  }
+
+  @Test
+  public void shouldNotExpireWithoutLifetime()
+  {
+    Token extracted = extractor.extract("access_token=foo1234&other_stuff=yeah_we_have_this_too");
+    assertEquals(0, extracted.getExpiresAt());
+    assertNull(extracted.getRefreshToken());
+  }
+
   @Test(expected = OAuthException.class)
   public void shouldThrowExceptionIfTokenIsAbsent()
   {
@@ -0,0 +1,77 @@
+package org.scribe.log;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+public class AsyncLogSinkTest
+{
+  @Test
+  public void shouldWriteMessagesInOrderOnAnotherThread()
+  {
+    final List<String> threads = new ArrayList<String>();
+    LoggerTest.RecordingSink delegate = new LoggerTest.RecordingSink()
+    {
+      @Override
+      public void write(LogLevel level, String message)
+      {
+        threads.add(Thread.currentThread().getName());
+        super.write(level, message);
+      }
+    };
+    AsyncLogSink sink = new AsyncLogSink(delegate, 1024);
+    for (int i = 0; i < 1000; i++)
+    {
+      sink.write(LogLevel.DEBUG, "message " + i);
+    }
+    sink.close();
+
+    assertEquals(1000, delegate.messages.size());
+    for (int i = 0; i < 1000; i++)
+    {
+      assertEquals("message " + i, delegate.messages.get(i));
+    }
+    assertEquals(Collections.singleton("scribe-log"), new HashSet<String>(threads));
+    assertEquals(0, sink.getDropped());
+  }
+
+  @Test
+  public void shouldDropMessagesInsteadOfBlocking() throws Exception
+  {
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    LoggerTest.RecordingSink delegate = new LoggerTest.RecordingSink()
+    {
+      @Override
+      public void write(LogLevel level, String message)
+      {
+        writing.countDown();
+        try
+        {
+          release.await();
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+        super.write(level, message);
+      }
+    };
+    AsyncLogSink sink = new AsyncLogSink(delegate, 2);
+    sink.write(LogLevel.DEBUG, "first");
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    sink.write(LogLevel.DEBUG, "second");
+    sink.write(LogLevel.DEBUG, "third");
+    sink.write(LogLevel.DEBUG, "dropped");
+    assertEquals(1, sink.getDropped());
+    release.countDown();
+    sink.close();
+    sink.write(LogLevel.DEBUG, "after close");
+
+    assertEquals(Arrays.asList("first", "1 log messages dropped, the log sink can't keep up", "second", "third"), delegate.messages);
+    assertEquals(2, sink.getDropped());
+  }
+}
@@ -0,0 +1,99 @@
+package org.scribe.log;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+public class LoggerTest
+{
+  private RecordingSink sink;
+
+  @Before
+  public void setup()
+  {
+    sink = new RecordingSink();
+  }
+
+  @Test
+  public void shouldOnlyLogEnabledLevels()
+  {
+    Logger logger = new Logger(sink, LogLevel.DEBUG);
+    logger.log(LogLevel.TRACE, "base string");
+    logger.log(LogLevel.DEBUG, "signing");
+    logger.log(LogLevel.WARN, "retrying");
+
+    assertFalse(logger.isEnabled(LogLevel.TRACE));
+    assertTrue(logger.isEnabled(LogLevel.INFO));
+    assertFalse(logger.isEnabled(LogLevel.OFF));
+    assertEquals(Arrays.asList("signing", "retrying"), sink.messages);
+  }
+
+  @Test
+  public void shouldNotBuildDisabledMessages()
+  {
+    Logger logger = new Logger(sink, LogLevel.INFO);
+    logger.log(LogLevel.DEBUG, new LogMessage()
+    {
+      public String get()
+      {
+        throw new AssertionError("built a disabled message");
+      }
+    });
+    logger.log(LogLevel.DEBUG, "params: {}", new LogMessage()
+    {
+      public String get()
+      {
+        throw new AssertionError("built a disabled argument");
+      }
+    });
+
+    assertTrue(sink.messages.isEmpty());
+  }
+
+  @Test
+  public void shouldFillInPlaceholders()
+  {
+    Map<String, String> params = new LinkedHashMap<String, String>();
+    params.put("oauth_token", "token");
+
+    assertEquals("token is token, params { oauth_token -> token }", Logger.format("token is {}, params {}", "token", params));
+    assertEquals("a 1 b {}", Logger.format("a {} b {}", 1));
+    assertEquals("a null", Logger.format("a {}", (Object) null));
+    assertEquals("no placeholder", Logger.format("no placeholder", "extra"));
+  }
+
+  @Test
+  public void shouldSampleBelowWarnings()
+  {
+    Logger logger = new Logger(sink, LogLevel.DEBUG, 3);
+    for (int i = 0; i < 9; i++)
+    {
+      logger.log(LogLevel.DEBUG, "debug {}", i);
+    }
+    logger.log(LogLevel.WARN, "warn");
+    logger.log(LogLevel.WARN, "warn");
+
+    assertEquals(Arrays.asList("debug 0", "debug 3", "debug 6", "warn", "warn"), sink.messages);
+  }
+
+  @Test
+  public void shouldLogNothingWithoutSink()
+  {
+    Logger logger = new Logger(null, LogLevel.TRACE);
+
+    assertFalse(logger.isEnabled(LogLevel.WARN));
+    logger.log(LogLevel.WARN, "dropped");
+  }
+
+  static class RecordingSink implements LogSink
+  {
+    final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+
+    public void write(LogLevel level, String message)
+    {
+      messages.add(message);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package org.scribe.metrics;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.*;
+
+import javax.management.*;
+
+import org.junit.*;
+
+public class HistogramMetricsTest
+{
+  private static final String ENDPOINT = "http://example.com/resource";
+
+  @Test
+  public void shouldKeepMetricsPerApiAndEndpoint()
+  {
+    HistogramMetrics metrics = new HistogramMetrics(null, "test");
+    metrics.onTiming("TwitterApi", ENDPOINT, Phase.SIGNATURE, 2000);
+    metrics.onTiming("TwitterApi", ENDPOINT, Phase.SIGNATURE, 4000);
+    metrics.onBytesSent("TwitterApi", ENDPOINT, 10);
+    metrics.onBytesReceived("TwitterApi", ENDPOINT, 100);
+    metrics.onError("TwitterApi", ENDPOINT, 500, null);
+    metrics.onBytesSent("YahooApi", ENDPOINT, 5);
+
+    EndpointMetrics endpoint = metrics.getEndpoint("TwitterApi", ENDPOINT);
+    assertEquals(2, endpoint.getHistogram(Phase.SIGNATURE).getCount());
+    assertEquals(3000, endpoint.getHistogram(Phase.SIGNATURE).getMean());
+    assertEquals(0, endpoint.getHistogram(Phase.CONNECT).getCount());
+    assertEquals(10, endpoint.getBytesSent());
+    assertEquals(100, endpoint.getBytesReceived());
+    assertEquals(1, endpoint.getErrors());
+    assertEquals(5, metrics.getEndpoint("YahooApi", ENDPOINT).getBytesSent());
+    assertNull(metrics.getEndpoint("TwitterApi", "http://example.com/other"));
+  }
+
+  @Test
+  public void shouldCountEndpointsPastTheLimitAsOther()
+  {
+    HistogramMetrics metrics = new HistogramMetrics(null, "test", 2);
+    for (int i = 0; i < 10; i++)
+    {
+      metrics.onBytesSent("TwitterApi", "http://example.com/statuses/" + i, 1);
+    }
+    metrics.onBytesSent("TwitterApi", "http://example.com/statuses/0", 1);
+    metrics.onBytesSent("YahooApi", ENDPOINT, 1);
+
+    assertEquals(2, metrics.getEndpoint("TwitterApi", "http://example.com/statuses/0").getBytesSent());
+    assertEquals(1, metrics.getEndpoint("TwitterApi", "http://example.com/statuses/1").getBytesSent());
+    assertNull(metrics.getEndpoint("TwitterApi", "http://example.com/statuses/2"));
+    assertEquals(8, metrics.getEndpoint("TwitterApi", HistogramMetrics.OTHER_ENDPOINT).getBytesSent());
+    assertNull(metrics.getEndpoint("YahooApi", ENDPOINT));
+    assertEquals(1, metrics.getEndpoint("YahooApi", HistogramMetrics.OTHER_ENDPOINT).getBytesSent());
+  }
+
+  @Test
+  public void shouldPublishMetricsOverJmx() throws Exception
+  {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    HistogramMetrics metrics = new HistogramMetrics(server, "org.scribe.test");
+    try
+    {
+      metrics.onTiming("TwitterApi", ENDPOINT, Phase.FIRST_BYTE, 1000);
+      metrics.onBytesSent("TwitterApi", ENDPOINT, 42);
+
+      String name = "org.scribe.test:api=\"TwitterApi\",endpoint=" + ObjectName.quote(ENDPOINT);
+      assertEquals(42L, server.getAttribute(new ObjectName(name + ",type=Endpoint"), "BytesSent"));
+      assertEquals(1L, server.getAttribute(new ObjectName(name + ",type=Latency,phase=FIRST_BYTE"), "Count"));
+    }
+    finally
+    {
+      metrics.unregister();
+    }
+    assertTrue(server.queryNames(new ObjectName("org.scribe.test:*"), null).isEmpty());
+  }
+}
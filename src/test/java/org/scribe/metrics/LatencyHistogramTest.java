@@ -0,0 +1,66 @@
+package org.scribe.metrics;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+public class LatencyHistogramTest
+{
+  @Test
+  public void shouldCoverEveryValueWithContiguousBuckets()
+  {
+    for (int index = 1; index < LatencyHistogram.indexOf(Long.MAX_VALUE); index++)
+    {
+      long lower = LatencyHistogram.upperBound(index - 1) + 1;
+      assertEquals(index, LatencyHistogram.indexOf(lower));
+      assertEquals(index, LatencyHistogram.indexOf(LatencyHistogram.upperBound(index)));
+    }
+    assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void shouldKeepBucketsWithinAnEighthOfTheirValues()
+  {
+    for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1)
+    {
+      long bound = LatencyHistogram.upperBound(LatencyHistogram.indexOf(value));
+      assertTrue(bound >= value);
+      assertTrue(bound - value <= value / 8);
+    }
+  }
+
+  @Test
+  public void shouldReturnPercentiles()
+  {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getP99());
+    for (int i = 1; i <= 1000; i++)
+    {
+      histogram.record(i * 1000L);
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500500, histogram.getMean());
+    assertEquals(1000000, histogram.getMax());
+    assertWithinAnEighth(500000, histogram.getP50());
+    assertWithinAnEighth(900000, histogram.getP90());
+    assertWithinAnEighth(990000, histogram.getP99());
+    assertEquals(1000000, histogram.getPercentile(1));
+  }
+
+  @Test
+  public void shouldCountNegativeDurationsAsZero()
+  {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+
+    assertEquals(1, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0, histogram.getP50());
+  }
+
+  private static void assertWithinAnEighth(long expected, long actual)
+  {
+    assertTrue(actual + " should be close to " + expected, actual >= expected && actual - expected <= expected / 8);
+  }
+}
@@ -0,0 +1,190 @@
+package org.scribe.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.scribe.IParameter;
+
+public class BinaryParameterTest {
+
+	private static final String PARAM_KEY = "PARAM_KEY";
+
+	private File file;
+	private byte[] contents;
+
+	@Before
+	public void setup() throws IOException {
+		// Bigger than the copy buffer, so it takes several rounds
+		contents = new byte[BinaryParameter.COPY_BUFFER_SIZE * 5 + 17];
+		new Random(1).nextBytes(contents);
+		file = File.createTempFile("scribe", ".bin");
+		final FileOutputStream out = new FileOutputStream(file);
+		out.write(contents);
+		out.close();
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void shouldTransferWholeFile() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final long written = new FileParameter(PARAM_KEY, file).writeValue(out);
+		Assert.assertEquals(contents.length, written);
+		Assert.assertTrue(Arrays.equals(contents, out.toByteArray()));
+	}
+
+	@Test
+	public void shouldWriteNothingForMissingFile() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Assert.assertEquals(0, new FileParameter(PARAM_KEY, new File("./file/does_not.exist")).writeValue(out));
+		Assert.assertEquals(0, out.size());
+	}
+
+	@Test
+	public void shouldCopyAndCloseInputStream() throws IOException {
+		final boolean[] closed = new boolean[1];
+		final ByteArrayInputStream in = new ByteArrayInputStream(contents) {
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+			}
+		};
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final StreamParameter param = new StreamParameter(PARAM_KEY, "upload.bin", in);
+		Assert.assertEquals(contents.length, param.writeValue(out));
+		Assert.assertTrue(Arrays.equals(contents, out.toByteArray()));
+		Assert.assertTrue("Source should be closed.", closed[0]);
+		Assert.assertFalse(param.isUsedInBaseString());
+	}
+
+	@Test
+	public void shouldSendMappedFileRepeatedly() throws IOException {
+		final ByteBufferParameter param = ByteBufferParameter.map(PARAM_KEY, file);
+		for (int i = 0; i < 2; i++) {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			Assert.assertEquals(contents.length, param.writeValue(out));
+			Assert.assertTrue(Arrays.equals(contents, out.toByteArray()));
+		}
+		Assert.assertEquals(file.getName(), param.getFileName());
+	}
+
+	@Test
+	public void shouldSendRemainingBytesOfHeapBuffer() throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(contents, 10, 100).slice();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Assert.assertEquals(100, new ByteBufferParameter(PARAM_KEY, "slice.bin", buffer).writeValue(out));
+		Assert.assertTrue(Arrays.equals(Arrays.copyOfRange(contents, 10, 110), out.toByteArray()));
+		Assert.assertEquals(0, buffer.position());
+	}
+
+	@Test
+	public void shouldWriteMultipartFilePart() throws IOException {
+		final StreamParameter param = new StreamParameter(PARAM_KEY, "hello.txt", new ByteArrayInputStream("hello".getBytes()));
+		param.setMimeType("text/plain");
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final long written = param.writeTo(IParameter.ENCODING_MULTIPART, out);
+		final String expected = "Content-Disposition: form-data; name=\"PARAM_KEY\"; filename=\"hello.txt\"\r\n"
+				+ "Content-Type: text/plain\r\n\r\nhello\r\n";
+		Assert.assertEquals(expected, out.toString());
+		Assert.assertEquals(expected.length(), written);
+	}
+
+	@Test
+	public void shouldComputeExactMultipartLength() throws IOException {
+		final IParameter[] params = {
+				new FileParameter(PARAM_KEY, file),
+				ByteBufferParameter.map(PARAM_KEY, file),
+				new StreamParameter(PARAM_KEY, "upload.bin", new ByteArrayInputStream(contents), contents.length),
+				new Parameter("key with spaces", "välue") };
+		for (final IParameter param : params) {
+			final long length = param.getLength(IParameter.ENCODING_MULTIPART);
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final long written = param.writeTo(IParameter.ENCODING_MULTIPART, out);
+			Assert.assertEquals(out.size(), written);
+			Assert.assertEquals(written, length);
+		}
+	}
+
+	@Test
+	public void shouldNotKnowLengthOfUnsizedStreams() {
+		final ParameterList params = new ParameterList();
+		params.add(new FileParameter(PARAM_KEY, file));
+		params.add(new StreamParameter(PARAM_KEY, "upload.bin", new ByteArrayInputStream(contents)));
+		Assert.assertEquals(-1, params.getLength(IParameter.ENCODING_MULTIPART));
+	}
+
+	@Test
+	public void shouldComputeExactParameterListLength() throws IOException {
+		final ParameterList params = new ParameterList();
+		params.add("name", "some välue & more");
+		params.add(new FileParameter("file", file));
+		params.add(ByteBufferParameter.map("mapped", file));
+		for (final int encoding : new int[] { IParameter.ENCODING_MULTIPART, IParameter.ENCODING_URL }) {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			params.writeTo(encoding, out);
+			Assert.assertEquals(out.size(), params.getLength(encoding));
+		}
+		Assert.assertEquals(0, new ParameterList().getLength(IParameter.ENCODING_MULTIPART));
+	}
+
+	@Test
+	public void shouldSendFilesWithFixedLength() throws Exception {
+		final Request request = new Request(Verb.POST, "http://example.com");
+		request.setContentType(Request.CONTENT_TYPE_MULTIPART);
+		request.addBodyParameter("name", "value");
+		request.addFile(PARAM_KEY, file);
+		final StreamingModeStub connection = new StreamingModeStub();
+		request.addBody(connection);
+		Assert.assertEquals(request.getBodyLength(), connection.fixedLength);
+		Assert.assertEquals(-1, connection.chunkLength);
+
+		final Request unsized = new Request(Verb.POST, "http://example.com");
+		unsized.setContentType(Request.CONTENT_TYPE_MULTIPART);
+		unsized.addBodyParameter(new StreamParameter(PARAM_KEY, "upload.bin", new ByteArrayInputStream(contents)));
+		final StreamingModeStub chunked = new StreamingModeStub();
+		unsized.addBody(chunked);
+		Assert.assertEquals(-1, chunked.fixedLength);
+		Assert.assertEquals(FileParameter.BUFFER_SIZE, chunked.chunkLength);
+	}
+
+	@Test
+	public void shouldRecommendChunkingForBinaryParameters() {
+		final ParameterList params = new ParameterList();
+		params.add(PARAM_KEY, "value");
+		Assert.assertFalse(params.isChunkingRecommended());
+		params.add(new StreamParameter(PARAM_KEY, "upload.bin", new ByteArrayInputStream(contents)));
+		Assert.assertTrue(params.isChunkingRecommended());
+	}
+
+	private static class StreamingModeStub extends ConnectionStub {
+		private long fixedLength = -1;
+		private int chunkLength = -1;
+
+		StreamingModeStub() throws Exception {
+			super();
+		}
+
+		@Override
+		public void setFixedLengthStreamingMode(int contentLength) {
+			this.fixedLength = contentLength;
+		}
+
+		@Override
+		public void setChunkedStreamingMode(int chunklen) {
+			this.chunkLength = chunklen;
+		}
+	}
+}
@@ -65,6 +65,19 @@ public class ConnectionStub extends HttpURLConnection
     return responseHeaders;
   }
 
+  @Override
+  public String getHeaderField(String name)
+  {
+    for (Map.Entry<String, List<String>> header : responseHeaders.entrySet())
+    {
+      if (name.equalsIgnoreCase(header.getKey()))
+      {
+        return header.getValue().get(0);
+      }
+    }
+    return null;
+  }
+
   public void addResponseHeader(String key, String value)
   {
     responseHeaders.put(key, Arrays.asList(value));
@@ -2,7 +2,11 @@ package org.scribe.model;
 
 import static org.junit.Assert.*;
 
+import java.text.*;
+import java.util.*;
+
 import org.junit.*;
+import org.scribe.services.*;
 
 public class OAuthRequestTest
 {
@@ -26,6 +30,46 @@ public class OAuthRequestTest
     assertEquals(4, request.getOauthParameters().size());
   }
 
+  @Test
+  public void shouldKeepPreEncodedValues()
+  {
+    request.addOAuthParameter(OAuthConstants.CONSUMER_KEY, "key&value", "key%26value");
+    request.addOAuthParameter(OAuthConstants.NONCE, "nonce");
+
+    assertEquals("key&value", request.getOauthParameters().get(OAuthConstants.CONSUMER_KEY));
+    assertEquals("key%26value", request.getEncodedOAuthParameter(OAuthConstants.CONSUMER_KEY));
+    assertNull(request.getEncodedOAuthParameter(OAuthConstants.NONCE));
+  }
+
+  @Test
+  public void shouldForgetEncodedValueWhenParameterIsReplaced()
+  {
+    request.addOAuthParameter(OAuthConstants.CONSUMER_KEY, "key&value", "key%26value");
+    request.addOAuthParameter(OAuthConstants.CONSUMER_KEY, "other");
+
+    assertNull(request.getEncodedOAuthParameter(OAuthConstants.CONSUMER_KEY));
+  }
+
+  @Test
+  public void shouldTeachTheClockSkewFromAgreeingResponseDates() throws Exception
+  {
+    SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    ClockSkew clockSkew = new ClockSkew();
+    for (int i = 0; i < ClockSkew.AGREEING_SAMPLES; i++)
+    {
+      assertEquals(0, clockSkew.getOffset());
+      ConnectionStub connection = new ConnectionStub();
+      connection.addResponseHeader("Date", format.format(new Date(System.currentTimeMillis() + 3600000)));
+      OAuthRequest sent = new OAuthRequest(Verb.GET, "http://example.com");
+      sent.setClockSkew(clockSkew);
+      sent.setConnection(connection);
+      sent.send();
+    }
+
+    assertEquals(3600000, clockSkew.getOffset(), 2000);
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void shouldThrowExceptionIfParameterIsNotOAuth()
   {
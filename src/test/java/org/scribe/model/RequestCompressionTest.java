@@ -0,0 +1,137 @@
+package org.scribe.model;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.zip.*;
+
+import org.junit.*;
+import org.scribe.utils.*;
+
+public class RequestCompressionTest
+{
+  private RecordingConnection connection;
+
+  @Before
+  public void setup() throws Exception
+  {
+    connection = new RecordingConnection();
+  }
+
+  @Test
+  public void shouldAskForCompressedResponsesByDefault()
+  {
+    Request request = new Request(Verb.GET, "http://example.com");
+    request.setConnection(connection);
+    request.send();
+    assertEquals("gzip, deflate", connection.getHeaders().get("Accept-Encoding"));
+  }
+
+  @Test
+  public void shouldNotAskForCompressedResponsesWhenDisabled()
+  {
+    Request request = new Request(Verb.GET, "http://example.com");
+    request.setResponseCompression(false);
+    request.setConnection(connection);
+    request.send();
+    assertFalse(connection.getHeaders().containsKey("Accept-Encoding"));
+  }
+
+  @Test
+  public void shouldGzipBodiesOverTheCompressionThreshold() throws Exception
+  {
+    StringBuilder payload = new StringBuilder();
+    for (int i = 0; i < 500; i++)
+    {
+      payload.append("<status>").append(i).append("</status>");
+    }
+    Request request = new Request(Verb.POST, "http://example.com");
+    request.addPayload(payload.toString());
+    request.setBodyCompressionThreshold(1024);
+    request.setConnection(connection);
+    request.send();
+    assertEquals("gzip", connection.getHeaders().get("Content-Encoding"));
+    assertTrue(connection.chunkLength >= 0);
+    assertTrue(connection.body.size() < payload.length());
+    InputStream decoded = new GZIPInputStream(new ByteArrayInputStream(connection.body.toByteArray()));
+    assertEquals(payload.toString(), StreamUtils.getStreamContents(decoded));
+  }
+
+  @Test
+  public void shouldSendBodiesUnderTheCompressionThresholdAsTheyAre() throws Exception
+  {
+    Request request = new Request(Verb.POST, "http://example.com");
+    request.addPayload("small");
+    request.setBodyCompressionThreshold(1024);
+    request.setConnection(connection);
+    request.send();
+    assertNull(connection.getHeaders().get("Content-Encoding"));
+    assertEquals("small", connection.body.toString("UTF-8"));
+  }
+
+  @Test
+  public void shouldNotStreamCompressedUploadsWithTheirUncompressedLength() throws Exception
+  {
+    byte[] contents = new byte[4096];
+    Request plain = new Request(Verb.POST, "http://example.com");
+    plain.setContentType(Request.CONTENT_TYPE_MULTIPART);
+    plain.addBodyParameter(new StreamParameter("upload", "upload.bin", new ByteArrayInputStream(contents), contents.length));
+    plain.addBody(connection);
+    assertEquals(plain.getBodyLength(), connection.fixedLength);
+
+    RecordingConnection compressedConnection = new RecordingConnection();
+    Request compressed = new Request(Verb.POST, "http://example.com");
+    compressed.setContentType(Request.CONTENT_TYPE_MULTIPART);
+    compressed.addBodyParameter(new StreamParameter("upload", "upload.bin", new ByteArrayInputStream(contents), contents.length));
+    compressed.setBodyCompressionThreshold(0);
+    long sent = compressed.addBody(compressedConnection);
+    assertEquals(-1, compressedConnection.fixedLength);
+    assertTrue(compressedConnection.chunkLength >= 0);
+    assertEquals("gzip", compressedConnection.getHeaders().get("Content-Encoding"));
+    assertEquals(compressedConnection.body.size(), sent);
+    assertTrue(sent < compressed.getBodyLength());
+  }
+
+  @Test
+  public void shouldStillStreamUploadsWithTheirLengthOnceTheChunkLengthWasRead() throws Exception
+  {
+    byte[] contents = new byte[4096];
+    Request request = new Request(Verb.POST, "http://example.com");
+    request.setContentType(Request.CONTENT_TYPE_MULTIPART);
+    request.addBodyParameter(new StreamParameter("upload", "upload.bin", new ByteArrayInputStream(contents), contents.length));
+    assertEquals(FileParameter.BUFFER_SIZE, request.getChunkLength());
+    request.addBody(connection);
+    assertEquals(request.getBodyLength(), connection.fixedLength);
+    assertEquals(-1, connection.chunkLength);
+  }
+
+  private static class RecordingConnection extends ConnectionStub
+  {
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private long fixedLength = -1;
+    private int chunkLength = -1;
+
+    public RecordingConnection() throws Exception
+    {
+      super();
+    }
+
+    @Override
+    public void setFixedLengthStreamingMode(int contentLength)
+    {
+      fixedLength = contentLength;
+    }
+
+    @Override
+    public void setChunkedStreamingMode(int chunklen)
+    {
+      chunkLength = chunklen;
+    }
+
+    @Override
+    public OutputStream getOutputStream()
+    {
+      return body;
+    }
+  }
+}
@@ -55,7 +55,7 @@ public class RequestTest
     getRequest.addHeader("Header2", "2");
     getRequest.send();
     assertEquals(2, getRequest.getHeaders().size());
-    assertEquals(2, connection.getHeaders().size());
+    assertEquals(3, connection.getHeaders().size());
   }
 
   @Test
@@ -3,6 +3,7 @@ package org.scribe.model;
 import static org.junit.Assert.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.junit.*;
 
@@ -28,6 +29,46 @@ public class ResponseTest
     assertEquals("one", response.getHeader("one"));
   }
 
+  @Test
+  public void shouldLookUpHeadersCaseInsensitively()
+  {
+    assertEquals("one", response.getHeader("ONE"));
+    assertEquals("two", response.getHeaders().get("Two"));
+    assertNull(response.getHeader("three"));
+  }
+
+  @Test
+  public void shouldKeepEveryValueOfRepeatedHeaders() throws Exception
+  {
+    CountingConnection counting = new CountingConnection();
+    counting.addResponseHeader("Set-Cookie", "a=1");
+    Response cookies = new Response(counting);
+    counting.getHeaderFields().put("set-cookie", Arrays.asList("b=2", "c=3"));
+    counting.getHeaderFields().put(null, Arrays.asList("HTTP/1.1 200 OK"));
+
+    List<String> values = cookies.getHeaderValues("SET-COOKIE");
+    assertEquals(3, values.size());
+    assertTrue(values.containsAll(Arrays.asList("a=1", "b=2", "c=3")));
+    assertTrue(cookies.getHeaderValues("Link").isEmpty());
+    assertEquals(1, cookies.getHeaders().size());
+  }
+
+  @Test
+  public void shouldNotCopyHeadersUnlessAsked() throws Exception
+  {
+    CountingConnection counting = new CountingConnection();
+    counting.addResponseHeader("Content-Type", "text/plain; charset=UTF-8");
+    Response lazy = new Response(counting);
+    assertEquals(200, lazy.getCode());
+    assertEquals("contents", lazy.getBody());
+    assertEquals(0, counting.headerFieldsCalls);
+
+    lazy.getHeader("content-type");
+    lazy.getHeaders();
+    lazy.getHeaderValues("content-type");
+    assertEquals(1, counting.headerFieldsCalls);
+  }
+
   @Test
   public void shouldParseBodyContents()
   {
@@ -44,6 +85,53 @@ public class ResponseTest
     assertEquals(1, connection.getTimesCalledInpuStream());
   }
 
+  @Test
+  public void shouldExposeBodyBytes()
+  {
+    assertArrayEquals("contents".getBytes(), response.getBodyBytes());
+    assertEquals("contents", response.getBody());
+    assertEquals(1, connection.getTimesCalledInpuStream());
+  }
+
+  @Test
+  public void shouldDecodeBodyWithCharsetFromContentType() throws Exception
+  {
+    ConnectionStub latin1 = new BodyConnection("caf\u00e9".getBytes("ISO-8859-1"));
+    latin1.addResponseHeader("content-type", "text/plain; charset=\"ISO-8859-1\"");
+    assertEquals("caf\u00e9", new Response(latin1).getBody());
+
+    ConnectionStub unknown = new BodyConnection("caf\u00e9".getBytes("UTF-8"));
+    unknown.addResponseHeader("Content-Type", "text/plain; charset=no-such-charset");
+    assertEquals("caf\u00e9", new Response(unknown).getBody());
+  }
+
+  @Test
+  public void shouldReadWholeBodyWhenContentLengthIsWrong() throws Exception
+  {
+    ConnectionStub shortLength = new BodyConnection("longer than announced".getBytes());
+    shortLength.addResponseHeader("Content-Length", "6");
+    assertEquals("longer than announced", new Response(shortLength).getBody());
+
+    ConnectionStub longLength = new BodyConnection("short".getBytes());
+    longLength.addResponseHeader("Content-Length", "500");
+    assertEquals("short", new Response(longLength).getBody());
+  }
+
+  @Test
+  public void shouldDecodeCompressedBodiesWhenAsked() throws Exception
+  {
+    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+    java.util.zip.GZIPOutputStream gzip = new java.util.zip.GZIPOutputStream(gzipped);
+    gzip.write("compressed contents".getBytes("UTF-8"));
+    gzip.close();
+
+    ConnectionStub compressed = new BodyConnection(gzipped.toByteArray());
+    compressed.addResponseHeader("Content-Encoding", "gzip");
+    compressed.addResponseHeader("Content-Length", String.valueOf(gzipped.size()));
+    assertEquals("compressed contents", new Response(compressed, true).getBody());
+    assertArrayEquals(gzipped.toByteArray(), new Response(compressed, false).getBodyBytes());
+  }
+
   @Test
   public void shouldHandleAConnectionWithErrors() throws Exception
   {
@@ -52,6 +140,60 @@ public class ResponseTest
     assertEquals("errors", errResponse.getBody());
   }
 
+  private static class CountingConnection extends ConnectionStub
+  {
+    private final Map<String, List<String>> fields = new HashMap<String, List<String>>();
+    private int headerFieldsCalls;
+
+    public CountingConnection() throws Exception
+    {
+      super();
+    }
+
+    @Override
+    public void addResponseHeader(String key, String value)
+    {
+      fields.put(key, Arrays.asList(value));
+    }
+
+    @Override
+    public String getHeaderField(String name)
+    {
+      for (Map.Entry<String, List<String>> field : fields.entrySet())
+      {
+        if (name.equalsIgnoreCase(field.getKey()))
+        {
+          return field.getValue().get(0);
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields()
+    {
+      headerFieldsCalls++;
+      return fields;
+    }
+  }
+
+  private static class BodyConnection extends ConnectionStub
+  {
+    private final byte[] body;
+
+    public BodyConnection(byte[] body) throws Exception
+    {
+      super();
+      this.body = body;
+    }
+
+    @Override
+    public InputStream getInputStream()
+    {
+      return new ByteArrayInputStream(body);
+    }
+  }
+
   private static class FaultyConnection extends ConnectionStub
   {
 
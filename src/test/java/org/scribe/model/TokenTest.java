@@ -41,4 +41,16 @@ public class TokenTest
     assertNotSame(expected, null);
     assertNotSame(expected, new Object());
   }
+
+  @Test
+  public void shouldExpireOnlyWhenItHasAnExpirationTime() throws Exception
+  {
+    Token forever = new Token("access","secret");
+    Token expiring = new Token("access","secret","response", 1000);
+
+    assertFalse(forever.isExpired());
+    assertFalse(expiring.isExpired(999));
+    assertTrue(expiring.isExpired(1000));
+    assertEquals(forever, expiring);
+  }
 }
@@ -0,0 +1,146 @@
+package org.scribe.oauth;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+import org.scribe.exceptions.*;
+import org.scribe.model.*;
+
+public class BatchSignerTest
+{
+  private ExecutorService executor;
+  private List<OAuthRequest> batch;
+
+  @Before
+  public void setup()
+  {
+    executor = Executors.newFixedThreadPool(4);
+    batch = new ArrayList<OAuthRequest>();
+    for (int i = 0; i < BatchSigner.MIN_SLICE * 10 + 7; i++)
+    {
+      batch.add(new OAuthRequest(Verb.GET, "http://example.com/" + i));
+    }
+  }
+
+  @After
+  public void tearDown()
+  {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldSignEveryRequestOnce()
+  {
+    final Map<OAuthRequest, Integer> signed = new ConcurrentHashMap<OAuthRequest, Integer>();
+    new BatchSigner()
+    {
+      @Override
+      void sign(List<OAuthRequest> requests, int from, int to)
+      {
+        for (int i = from; i < to; i++)
+        {
+          Integer previous = signed.put(requests.get(i), i);
+          assertNull(previous);
+        }
+      }
+    }.signAll(new LinkedList<OAuthRequest>(batch), executor);
+
+    assertEquals(batch.size(), signed.size());
+  }
+
+  @Test
+  public void shouldSignSmallBatchesOnTheCallerThread()
+  {
+    final Thread caller = Thread.currentThread();
+    final List<Thread> threads = new ArrayList<Thread>();
+    new BatchSigner()
+    {
+      @Override
+      void sign(List<OAuthRequest> requests, int from, int to)
+      {
+        threads.add(Thread.currentThread());
+      }
+    }.signAll(batch.subList(0, BatchSigner.MIN_SLICE), executor);
+
+    assertEquals(Collections.singletonList(caller), threads);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldRethrowFailuresOfAnySlice()
+  {
+    new BatchSigner()
+    {
+      @Override
+      void sign(List<OAuthRequest> requests, int from, int to)
+      {
+        // the first slice runs on the executor when there's more than one core
+        if (from == 0)
+        {
+          throw new IllegalStateException("can't sign");
+        }
+      }
+    }.signAll(batch, executor);
+  }
+
+  @Test
+  public void shouldFinishEverySliceBeforeThrowing()
+  {
+    final Set<Integer> finished = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    try
+    {
+      new BatchSigner(4)
+      {
+        @Override
+        void sign(List<OAuthRequest> requests, int from, int to)
+        {
+          if (from == 0)
+          {
+            throw new IllegalStateException("can't sign");
+          }
+          try
+          {
+            Thread.sleep(100);
+          }
+          catch (InterruptedException e)
+          {
+            Thread.currentThread().interrupt();
+          }
+          finished.add(from);
+        }
+      }.signAll(batch, executor);
+      fail();
+    }
+    catch (IllegalStateException expected)
+    {
+    }
+    assertEquals(3, finished.size());
+  }
+
+  @Test
+  public void shouldCountTheFailedSlices()
+  {
+    try
+    {
+      new BatchSigner(4)
+      {
+        @Override
+        void sign(List<OAuthRequest> requests, int from, int to)
+        {
+          if (to != requests.size())
+          {
+            throw new IllegalStateException("can't sign");
+          }
+        }
+      }.signAll(batch, executor);
+      fail();
+    }
+    catch (OAuthException e)
+    {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("3 of 4 slices"));
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+}
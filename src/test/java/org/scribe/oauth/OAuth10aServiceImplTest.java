@@ -0,0 +1,523 @@
+package org.scribe.oauth;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+import org.scribe.builder.*;
+import org.scribe.builder.api.*;
+import org.scribe.exceptions.*;
+import org.scribe.metrics.*;
+import org.scribe.model.*;
+import org.scribe.services.*;
+import org.scribe.transport.*;
+
+import com.sun.net.httpserver.*;
+
+public class OAuth10aServiceImplTest
+{
+  private CountingApi api;
+  private OAuthService service;
+
+  @Before
+  public void setup()
+  {
+    api = new CountingApi();
+    service = new ServiceBuilder().provider(api).apiKey("key with space").apiSecret("secret").build();
+  }
+
+  @Test
+  public void shouldResolveServicesOnceWhenBuilt()
+  {
+    for (int i = 0; i < 3; i++)
+    {
+      service.signRequest(new Token("token", "secret"), new OAuthRequest(Verb.GET, "http://example.com/resource"));
+    }
+    assertEquals(1, api.signatureServices);
+    assertEquals(1, api.timestampServices);
+  }
+
+  @Test
+  public void shouldAddStaticParamsPreEncoded()
+  {
+    OAuthRequest request = new OAuthRequest(Verb.GET, "http://example.com/resource");
+    service.signRequest(new Token("token", "secret"), request);
+
+    assertEquals("key with space", request.getOauthParameters().get(OAuthConstants.CONSUMER_KEY));
+    assertEquals("key%20with%20space", request.getEncodedOAuthParameter(OAuthConstants.CONSUMER_KEY));
+    assertEquals("HMAC-SHA1", request.getEncodedOAuthParameter(OAuthConstants.SIGN_METHOD));
+    assertEquals("1.0", request.getEncodedOAuthParameter(OAuthConstants.VERSION));
+    assertTrue(request.getHeaders().get(OAuthConstants.HEADER).contains("oauth_consumer_key=\"key%20with%20space\""));
+  }
+
+  @Test
+  public void shouldNotSignTruncatedBaseStrings()
+  {
+    final AtomicBoolean signed = new AtomicBoolean();
+    StreamingSignatureService failing = new StreamingSignatureService()
+    {
+      public SignatureOutputStream newSignatureStream(String apiSecret, String tokenSecret)
+      {
+        return new SignatureOutputStream()
+        {
+          private int written;
+
+          @Override
+          public void write(int b) throws IOException
+          {
+            // fails partway through the parameters
+            if (++written > 64)
+            {
+              throw new IOException("signature failed");
+            }
+          }
+
+          @Override
+          public String getSignature()
+          {
+            signed.set(true);
+            return "truncated";
+          }
+        };
+      }
+
+      public String getSignature(String baseString, String apiSecret, String tokenSecret)
+      {
+        throw new UnsupportedOperationException();
+      }
+
+      public String getSignatureMethod()
+      {
+        return "HMAC-SHA1";
+      }
+    };
+    service = new ServiceBuilder().provider(api).apiKey("key").apiSecret("secret").signatureService(failing).build();
+    OAuthRequest request = new OAuthRequest(Verb.GET, "http://example.com/resource?status=x");
+    try
+    {
+      service.signRequest(new Token("token", "secret"), request);
+      fail("the signature stream failed");
+    }
+    catch (OAuthSignatureException expected)
+    {
+      assertTrue(expected.getCause() instanceof IOException);
+    }
+    assertFalse(signed.get());
+  }
+
+  @Test
+  public void shouldSignWithTheTokenStoredForTheUser()
+  {
+    service.getTokenStore().put("user", new Token("stored", "secret"));
+    OAuthRequest request = new OAuthRequest(Verb.GET, "http://example.com/resource");
+    service.signRequest("user", request);
+    assertEquals("stored", request.getOauthParameters().get(OAuthConstants.TOKEN));
+  }
+
+  @Test
+  public void shouldSignWithTheProviderClock()
+  {
+    OAuthRequest request = new OAuthRequest(Verb.GET, "http://example.com/resource");
+    service.signRequest(new Token("token", "secret"), request);
+    request.getClockSkew().setOffset(3600000);
+
+    OAuthRequest next = new OAuthRequest(Verb.GET, "http://example.com/resource");
+    service.signRequest(new Token("token", "secret"), next);
+    long timestamp = Long.parseLong(next.getOauthParameters().get(OAuthConstants.TIMESTAMP));
+    assertSame(request.getClockSkew(), next.getClockSkew());
+    assertEquals(System.currentTimeMillis() / 1000 + 3600, timestamp, 2);
+  }
+
+  @Test
+  public void shouldSignBatchesLikeSingleRequests()
+  {
+    api.timestampService = new FixedTimestampService();
+    service = new ServiceBuilder().provider(api).apiKey("key").apiSecret("secret").build();
+    Token token = new Token("token", "secret");
+    OAuthRequest single = new OAuthRequest(Verb.GET, "http://example.com/resource?page=1");
+    service.signRequest(token, single);
+
+    List<OAuthRequest> batch = new ArrayList<OAuthRequest>();
+    for (int i = 0; i < BatchSigner.MIN_SLICE * 8; i++)
+    {
+      batch.add(new OAuthRequest(Verb.GET, "http://example.com/resource?page=1"));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try
+    {
+      service.signRequests(token, batch, executor);
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+    for (OAuthRequest request : batch)
+    {
+      assertEquals(single.getHeaders().get(OAuthConstants.HEADER), request.getHeaders().get(OAuthConstants.HEADER));
+    }
+  }
+
+  @Test
+  public void shouldSignAgainWhenRetrying() throws Exception
+  {
+    final List<String> authorizations = Collections.synchronizedList(new ArrayList<String>());
+    HttpServer server = startServer(authorizations, 1);
+    try
+    {
+      service = new ServiceBuilder().provider(api).apiKey("key").apiSecret("secret")
+                    .retryPolicy(new RetryPolicy(3, 1, 10, TimeUnit.MILLISECONDS)).build();
+      OAuthRequest request = new OAuthRequest(Verb.GET, "http://127.0.0.1:" + server.getAddress().getPort() + "/resource");
+      service.signRequest(new Token("token", "secret"), request);
+
+      assertEquals(200, request.send().getCode());
+      assertEquals(2, authorizations.size());
+      assertFalse(authorizations.get(0).equals(authorizations.get(1)));
+      assertEquals(request.getHeaders().get(OAuthConstants.HEADER), authorizations.get(1));
+    }
+    finally
+    {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void shouldStopSendingWhileTheProviderKeepsFailing() throws Exception
+  {
+    final List<String> authorizations = Collections.synchronizedList(new ArrayList<String>());
+    HttpServer server = startServer(authorizations, Integer.MAX_VALUE);
+    try
+    {
+      CircuitBreaker breaker = new CircuitBreaker(2, 1, TimeUnit.MINUTES);
+      service = new ServiceBuilder().provider(api).apiKey("key").apiSecret("secret")
+                    .retryPolicy(new RetryPolicy(3, 1, 10, TimeUnit.MILLISECONDS, false, breaker)).build();
+      OAuthRequest request = new OAuthRequest(Verb.GET, "http://127.0.0.1:" + server.getAddress().getPort() + "/resource");
+      service.signRequest(new Token("token", "secret"), request);
+      try
+      {
+        request.send();
+        fail("the third attempt should not be sent");
+      }
+      catch (OAuthConnectionException e)
+      {
+        assertEquals(2, authorizations.size());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+      }
+    }
+    finally
+    {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void shouldReportTheProbeOutcomeWhateverIsThrown() throws Exception
+  {
+    final List<String> authorizations = Collections.synchronizedList(new ArrayList<String>());
+    HttpServer server = startServer(authorizations, 1);
+    try
+    {
+      CircuitBreaker breaker = new CircuitBreaker(1, 50, TimeUnit.MILLISECONDS);
+      service = new ServiceBuilder().provider(api).apiKey("key").apiSecret("secret")
+                    .retryPolicy(new RetryPolicy(1, 1, 10, TimeUnit.MILLISECONDS, false, breaker)).build();
+      String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/resource";
+      OAuthRequest failing = new OAuthRequest(Verb.GET, url);
+      service.signRequest(new Token("token", "secret"), failing);
+      assertEquals(503, failing.send().getCode());
+      Thread.sleep(100);
+
+      OAuthRequest probe = new OAuthRequest(Verb.GET, url);
+      service.signRequest(new Token("token", "secret"), probe);
+      try
+      {
+        probe.send(new RequestTuner()
+        {
+          @Override
+          public void tune(Request request)
+          {
+            throw new Error("tuner failed");
+          }
+        });
+        fail("the tuner should have failed");
+      }
+      catch (Error e)
+      {
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+      }
+      Thread.sleep(100);
+
+      OAuthRequest next = new OAuthRequest(Verb.GET, url);
+      service.signRequest(new Token("token", "secret"), next);
+      assertEquals(200, next.send().getCode());
+      assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+    finally
+    {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void shouldHoldBackRequestsOverTheRateLimit() throws Exception
+  {
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+    server.createContext("/resource", new HttpHandler()
+    {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+        exchange.getResponseHeaders().add("X-Rate-Limit-Limit", "15");
+        exchange.getResponseHeaders().add("X-Rate-Limit-Remaining", "0");
+        exchange.getResponseHeaders().add("X-Rate-Limit-Reset", "900");
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+      }
+    });
+    server.start();
+    try
+    {
+      RateLimitTracker tracker = new RateLimitTracker();
+      service = new ServiceBuilder().provider(api).apiKey("key").apiSecret("secret").rateLimitTracker(tracker).build();
+      String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/resource";
+      OAuthRequest request = new OAuthRequest(Verb.GET, url);
+      service.signRequest(new Token("token", "secret"), request);
+      request.send();
+
+      String tokenKey = RateLimitTracker.tokenKey("token");
+      assertFalse(tokenKey.contains("token:token"));
+      assertEquals(15, tracker.getRateLimit(tokenKey).getLimit());
+      assertEquals(0, tracker.getRateLimit(tokenKey).getRemaining());
+      assertNull(tracker.getRateLimit(RateLimitTracker.appKey("key")));
+      OAuthRequest next = new OAuthRequest(Verb.GET, url);
+      service.signRequest(new Token("token", "secret"), next);
+      try
+      {
+        next.send();
+        fail("the budget is spent");
+      }
+      catch (OAuthRateLimitException e)
+      {
+        assertEquals(tracker.getRateLimit(tokenKey).getResetAt(), e.getResetAt());
+        assertFalse(e.getMessage().contains("token"));
+      }
+    }
+    finally
+    {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void shouldHoldBackTokenRequestsWhenTheAppBudgetIsSpent() throws Exception
+  {
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+    server.createContext("/resource", new HttpHandler()
+    {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+        exchange.getResponseHeaders().add("Retry-After", "900");
+        exchange.sendResponseHeaders(429, -1);
+        exchange.close();
+      }
+    });
+    server.start();
+    try
+    {
+      RateLimitTracker tracker = new RateLimitTracker(0, TimeUnit.MILLISECONDS);
+      service = new ServiceBuilder().provider(api).apiKey("key").apiSecret("secret").rateLimitTracker(tracker).build();
+      String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/resource";
+      OAuthRequest twoLegged = new OAuthRequest(Verb.GET, url);
+      service.signRequest(Token.empty(), twoLegged);
+      assertNull(twoLegged.getRateLimitKey());
+      assertEquals(429, twoLegged.send().getCode());
+      assertEquals(0, tracker.getRateLimit(RateLimitTracker.appKey("key")).getRemaining());
+
+      OAuthRequest request = new OAuthRequest(Verb.GET, url);
+      service.signRequest(new Token("token", "secret"), request);
+      assertEquals(RateLimitTracker.tokenKey("token"), request.getRateLimitKey());
+      try
+      {
+        request.send();
+        fail("the app budget is spent");
+      }
+      catch (OAuthRateLimitException e)
+      {
+        assertNull(tracker.getRateLimit(RateLimitTracker.tokenKey("token")));
+      }
+    }
+    finally
+    {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void shouldNotSpendTheProbeOnRequestsOverTheRateLimit() throws Exception
+  {
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+    server.createContext("/resource", new HttpHandler()
+    {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+        exchange.getResponseHeaders().add("X-Rate-Limit-Limit", "15");
+        exchange.getResponseHeaders().add("X-Rate-Limit-Remaining", "0");
+        exchange.getResponseHeaders().add("X-Rate-Limit-Reset", "900");
+        exchange.sendResponseHeaders(503, -1);
+        exchange.close();
+      }
+    });
+    server.start();
+    try
+    {
+      CircuitBreaker breaker = new CircuitBreaker(1, 50, TimeUnit.MILLISECONDS);
+      service = new ServiceBuilder().provider(api).apiKey("key").apiSecret("secret").rateLimitTracker(new RateLimitTracker())
+                    .retryPolicy(new RetryPolicy(1, 1, 10, TimeUnit.MILLISECONDS, false, breaker)).build();
+      String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/resource";
+      OAuthRequest request = new OAuthRequest(Verb.GET, url);
+      service.signRequest(new Token("token", "secret"), request);
+      assertEquals(503, request.send().getCode());
+      Thread.sleep(100);
+
+      OAuthRequest next = new OAuthRequest(Verb.GET, url);
+      service.signRequest(new Token("token", "secret"), next);
+      try
+      {
+        next.send();
+        fail("the budget is spent");
+      }
+      catch (OAuthRateLimitException e)
+      {
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest());
+      }
+    }
+    finally
+    {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void shouldReportTheMetricsOfEachCall() throws Exception
+  {
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+    server.createContext("/resource", new HttpHandler()
+    {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+        InputStream in = exchange.getRequestBody();
+        while (in.read() != -1);
+        byte[] body = "hello".getBytes("UTF-8");
+        exchange.sendResponseHeaders(exchange.getRequestMethod().equals("POST") ? 200 : 500, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+      }
+    });
+    server.start();
+    try
+    {
+      HistogramMetrics metrics = new HistogramMetrics(null, "test");
+      service = new ServiceBuilder().provider(api).apiKey("key").apiSecret("secret").metricsListener(metrics).build();
+      String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/resource";
+      OAuthRequest request = new OAuthRequest(Verb.POST, url + "?page=1");
+      request.addPayload("payload");
+      service.signRequest(new Token("token", "secret"), request);
+      assertEquals("hello", request.send().getBody());
+      OAuthRequest failing = new OAuthRequest(Verb.GET, url);
+      service.signRequest(new Token("token", "secret"), failing);
+      failing.send().getBody();
+
+      EndpointMetrics endpoint = metrics.getEndpoint("CountingApi", url);
+      for (Phase phase : Phase.values())
+      {
+        // only the POST has a body to upload
+        assertEquals(phase.toString(), phase == Phase.UPLOAD ? 1 : 2, endpoint.getHistogram(phase).getCount());
+      }
+      assertEquals(7, endpoint.getBytesSent());
+      assertEquals(10, endpoint.getBytesReceived());
+      assertEquals(1, endpoint.getErrors());
+    }
+    finally
+    {
+      server.stop(0);
+    }
+  }
+
+  private static HttpServer startServer(final List<String> authorizations, final int failures) throws IOException
+  {
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+    server.createContext("/resource", new HttpHandler()
+    {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+        authorizations.add(exchange.getRequestHeaders().getFirst(OAuthConstants.HEADER));
+        exchange.sendResponseHeaders(authorizations.size() > failures ? 200 : 503, -1);
+        exchange.close();
+      }
+    });
+    server.start();
+    return server;
+  }
+
+  @Test(expected = OAuthException.class)
+  public void shouldNotSignForUsersWithoutAValidToken()
+  {
+    service.getTokenStore().put("user", new Token("stored", "secret", null, System.currentTimeMillis() - 1));
+    service.signRequest("user", new OAuthRequest(Verb.GET, "http://example.com/resource"));
+  }
+
+  private static class CountingApi extends DefaultApi10a
+  {
+    private int signatureServices;
+    private int timestampServices;
+    private TimestampService timestampService;
+
+    @Override
+    public SignatureService getSignatureService()
+    {
+      signatureServices++;
+      return super.getSignatureService();
+    }
+
+    @Override
+    public TimestampService getTimestampService()
+    {
+      timestampServices++;
+      return timestampService != null ? timestampService : super.getTimestampService();
+    }
+
+    @Override
+    public String getRequestTokenEndpoint()
+    {
+      return "http://example.com/request";
+    }
+
+    @Override
+    public String getAccessTokenEndpoint()
+    {
+      return "http://example.com/access";
+    }
+
+    @Override
+    public String getAuthorizationUrl(Token requestToken)
+    {
+      return "http://example.com/authorize?oauth_token=" + requestToken.getToken();
+    }
+  }
+
+  private static class FixedTimestampService implements TimestampService
+  {
+    public String getTimestampInSeconds()
+    {
+      return "1000";
+    }
+
+    public String getNonce()
+    {
+      return "nonce";
+    }
+  }
+}
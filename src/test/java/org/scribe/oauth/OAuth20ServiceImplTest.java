@@ -0,0 +1,225 @@
+package org.scribe.oauth;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+import org.scribe.builder.*;
+import org.scribe.builder.api.*;
+import org.scribe.exceptions.*;
+import org.scribe.extractors.*;
+import org.scribe.model.*;
+import org.scribe.services.*;
+import org.scribe.utils.*;
+
+import com.sun.net.httpserver.*;
+
+public class OAuth20ServiceImplTest
+{
+  private HttpServer server;
+  private final BlockingQueue<String> refreshBodies = new LinkedBlockingQueue<String>();
+  private volatile String refreshResponse = "access_token=refreshed&expires_in=3600";
+  private volatile CountDownLatch release = new CountDownLatch(0);
+
+  @Before
+  public void setup() throws Exception
+  {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+    server.createContext("/token", new HttpHandler()
+    {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+        refreshBodies.add(exchange.getRequestMethod() + " " + StreamUtils.getStreamContents(exchange.getRequestBody()));
+        try
+        {
+          release.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+        byte[] response = refreshResponse.getBytes("UTF-8");
+        exchange.sendResponseHeaders(200, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+      }
+    });
+    server.start();
+  }
+
+  @After
+  public void tearDown()
+  {
+    server.stop(0);
+  }
+
+  @Test
+  public void shouldRefreshKeepingTheRefreshToken() throws Exception
+  {
+    OAuth20ServiceImpl service = (OAuth20ServiceImpl) createService().build();
+    Token refreshed = service.refreshAccessToken(new Token("expiring", "", null, 1, "refresh/me"));
+
+    assertEquals("refreshed", refreshed.getToken());
+    assertEquals("refresh/me", refreshed.getRefreshToken());
+    assertTrue(refreshed.getExpiresAt() > System.currentTimeMillis());
+    String sent = refreshBodies.poll(5, TimeUnit.SECONDS);
+    assertTrue(sent, sent.startsWith("POST "));
+    assertTrue(sent, sent.contains("grant_type=refresh_token"));
+    assertTrue(sent, sent.contains("refresh_token=refresh%2Fme"));
+    assertTrue(sent, sent.contains("client_id=key"));
+  }
+
+  @Test
+  public void shouldKeepTheOtherFieldsOfTheRefreshResponse()
+  {
+    refreshResponse = "{\"access_token\":\"refreshed\",\"expires_in\":3600,\"token_type\":\"bearer\",\"scope\":\"read\",\"user_id\":\"42\"}";
+    OAuth20ServiceImpl service = (OAuth20ServiceImpl) new ServiceBuilder().provider(new JsonStubApi(server.getAddress().getPort()))
+                                                          .apiKey("key").apiSecret("secret").build();
+    Token refreshed = service.refreshAccessToken(new Token("expiring", "", null, 1, "refresh"));
+
+    assertEquals("refresh", refreshed.getRefreshToken());
+    assertEquals("bearer", refreshed.getTokenType());
+    assertEquals("read", refreshed.getScope());
+    assertEquals("42", refreshed.getParameter("user_id"));
+  }
+
+  @Test
+  public void shouldTakeANewRefreshTokenWhenIssued()
+  {
+    refreshResponse = "access_token=refreshed&refresh_token=rotated";
+    OAuth20ServiceImpl service = (OAuth20ServiceImpl) createService().build();
+    assertEquals("rotated", service.refreshAccessToken(new Token("expiring", "", null, 1, "refresh")).getRefreshToken());
+  }
+
+  @Test
+  public void shouldShareConcurrentRefreshesOfTheSameToken() throws Exception
+  {
+    release = new CountDownLatch(1);
+    OAuth20ServiceImpl service = (OAuth20ServiceImpl) createService().build();
+    List<Future<Token>> refreshes = new ArrayList<Future<Token>>();
+    for (int i = 0; i < 8; i++)
+    {
+      refreshes.add(service.refreshAccessTokenAsync(new Token("expiring", "", null, 1, "refresh"), null));
+    }
+    assertNotNull(refreshBodies.poll(5, TimeUnit.SECONDS));
+    Thread.sleep(200);
+    release.countDown();
+    for (Future<Token> refresh : refreshes)
+    {
+      assertEquals("refreshed", refresh.get(5, TimeUnit.SECONDS).getToken());
+    }
+    assertTrue(refreshBodies.isEmpty());
+  }
+
+  @Test(expected = OAuthException.class)
+  public void shouldNotRefreshWithoutRefreshToken()
+  {
+    OAuth20ServiceImpl service = (OAuth20ServiceImpl) createService().build();
+    service.refreshAccessToken(new Token("access", ""));
+  }
+
+  @Test
+  public void shouldRefreshStoredTokensBeforeTheyExpire() throws Exception
+  {
+    OAuthService service = createService().refreshAhead(10, TimeUnit.MINUTES).build();
+    service.getTokenStore().put("user", new Token("expiring", "", null, System.currentTimeMillis() + 2000, "refresh"));
+    service.getTokenStore().put("forever", new Token("forever", ""));
+    assertEquals(1, ((RefreshingTokenStore) service.getTokenStore()).getScheduled());
+
+    assertNotNull(refreshBodies.poll(5, TimeUnit.SECONDS));
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!"refreshed".equals(service.getTokenStore().get("user").getToken()) && System.currentTimeMillis() < deadline)
+    {
+      Thread.sleep(10);
+    }
+    assertEquals("refreshed", service.getTokenStore().get("user").getToken());
+    assertEquals("refresh", service.getTokenStore().get("user").getRefreshToken());
+
+    service.getTokenStore().remove("user");
+    assertEquals(0, ((RefreshingTokenStore) service.getTokenStore()).getScheduled());
+  }
+
+  @Test
+  public void shouldStopRefreshingTokensTheStoreLetGoOf() throws Exception
+  {
+    TokenStore store = new InMemoryTokenStore(1);
+    OAuthService service = createService().tokenStore(store).refreshAhead(10, TimeUnit.MINUTES).build();
+    service.getTokenStore().put("evicted", new Token("evicted", "", null, System.currentTimeMillis() + 2000, "refresh"));
+    store.put("other", new Token("other", ""));
+    assertNull(store.get("evicted"));
+    assertEquals(1, ((RefreshingTokenStore) service.getTokenStore()).getScheduled());
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (((RefreshingTokenStore) service.getTokenStore()).getScheduled() > 0 && System.currentTimeMillis() < deadline)
+    {
+      Thread.sleep(10);
+    }
+    assertEquals(0, ((RefreshingTokenStore) service.getTokenStore()).getScheduled());
+    assertTrue(refreshBodies.isEmpty());
+    assertNull(store.get("evicted"));
+  }
+
+  @Test
+  public void shouldRefreshTokensAlreadyInTheStoreOnceRead() throws Exception
+  {
+    TokenStore store = new InMemoryTokenStore();
+    store.put("user", new Token("expiring", "", null, System.currentTimeMillis() + 2000, "refresh"));
+    OAuthService service = createService().tokenStore(store).refreshAhead(10, TimeUnit.MINUTES).build();
+    assertEquals(0, ((RefreshingTokenStore) service.getTokenStore()).getScheduled());
+    assertEquals("expiring", service.getTokenStore().get("user").getToken());
+    assertEquals(1, ((RefreshingTokenStore) service.getTokenStore()).getScheduled());
+
+    assertNotNull(refreshBodies.poll(5, TimeUnit.SECONDS));
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!"refreshed".equals(store.get("user").getToken()) && System.currentTimeMillis() < deadline)
+    {
+      Thread.sleep(10);
+    }
+    assertEquals("refreshed", store.get("user").getToken());
+  }
+
+  private ServiceBuilder createService()
+  {
+    return new ServiceBuilder().provider(new StubApi(server.getAddress().getPort())).apiKey("key").apiSecret("secret");
+  }
+
+  private static class StubApi extends DefaultApi20
+  {
+    private final int port;
+
+    StubApi(int port)
+    {
+      this.port = port;
+    }
+
+    @Override
+    public String getAccessTokenEndpoint()
+    {
+      return "http://127.0.0.1:" + port + "/token";
+    }
+
+    @Override
+    public String getAuthorizationUrl(OAuthConfig config)
+    {
+      return "http://127.0.0.1:" + port + "/authorize?client_id=" + config.getApiKey();
+    }
+  }
+
+  private static class JsonStubApi extends StubApi
+  {
+    JsonStubApi(int port)
+    {
+      super(port);
+    }
+
+    @Override
+    public AccessTokenExtractor getAccessTokenExtractor()
+    {
+      return new JsonTokenExtractor();
+    }
+  }
+}
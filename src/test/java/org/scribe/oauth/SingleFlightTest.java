@@ -0,0 +1,154 @@
+package org.scribe.oauth;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+
+public class SingleFlightTest
+{
+  private static final int CALLERS = 8;
+
+  private SingleFlight<String> flights;
+  private ExecutorService executor;
+
+  @Before
+  public void setup()
+  {
+    flights = new SingleFlight<String>();
+    executor = Executors.newFixedThreadPool(CALLERS);
+  }
+
+  @After
+  public void tearDown()
+  {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldShareOneCallBetweenConcurrentCallers() throws Exception
+  {
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    final Callable<String> call = new Callable<String>()
+    {
+      public String call() throws Exception
+      {
+        calls.incrementAndGet();
+        release.await();
+        return "token";
+      }
+    };
+    List<Future<String>> results = new ArrayList<Future<String>>();
+    final CountDownLatch started = new CountDownLatch(CALLERS);
+    for (int i = 0; i < CALLERS; i++)
+    {
+      results.add(executor.submit(new Callable<String>()
+      {
+        public String call()
+        {
+          started.countDown();
+          return flights.execute("key", call);
+        }
+      }));
+    }
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    while (calls.get() == 0)
+    {
+      Thread.sleep(1);
+    }
+    Thread.sleep(100);
+    release.countDown();
+    for (Future<String> result : results)
+    {
+      assertEquals("token", result.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, calls.get());
+    assertEquals(0, flights.getInFlight());
+  }
+
+  @Test
+  public void shouldShareTheResultWithLateCallers()
+  {
+    final AtomicInteger calls = new AtomicInteger();
+    Callable<String> call = new Callable<String>()
+    {
+      public String call()
+      {
+        return "call " + calls.incrementAndGet();
+      }
+    };
+    assertEquals("call 1", flights.execute("key", call));
+    assertEquals("call 1", flights.execute("key", call));
+    assertEquals("call 2", flights.execute("other", call));
+    assertEquals(2, flights.getKept());
+  }
+
+  @Test
+  public void shouldRunAgainOnceTheGracePeriodIsOver() throws Exception
+  {
+    flights = new SingleFlight<String>(TimeUnit.MILLISECONDS.toNanos(50));
+    final AtomicInteger calls = new AtomicInteger();
+    Callable<String> call = new Callable<String>()
+    {
+      public String call()
+      {
+        return "call " + calls.incrementAndGet();
+      }
+    };
+    assertEquals("call 1", flights.execute("key", call));
+    Thread.sleep(100);
+    assertEquals("call 2", flights.execute("key", call));
+    Thread.sleep(100);
+    assertEquals("call 1", flights.execute("other", new Callable<String>()
+    {
+      public String call()
+      {
+        return "call 1";
+      }
+    }));
+    assertEquals(1, flights.getKept());
+  }
+
+  @Test
+  public void shouldNotKeepFailures()
+  {
+    final AtomicInteger calls = new AtomicInteger();
+    Callable<String> call = new Callable<String>()
+    {
+      public String call()
+      {
+        if (calls.incrementAndGet() == 1)
+        {
+          throw new IllegalStateException("boom");
+        }
+        return "call " + calls.get();
+      }
+    };
+    try
+    {
+      flights.execute("key", call);
+      fail();
+    }
+    catch (IllegalStateException expected)
+    {
+    }
+    assertEquals(0, flights.getKept());
+    assertEquals("call 2", flights.execute("key", call));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldRethrowRuntimeExceptions()
+  {
+    flights.execute("key", new Callable<String>()
+    {
+      public String call()
+      {
+        throw new IllegalStateException("boom");
+      }
+    });
+  }
+}
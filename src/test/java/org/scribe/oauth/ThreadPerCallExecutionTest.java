@@ -0,0 +1,148 @@
+package org.scribe.oauth;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+import org.scribe.builder.*;
+import org.scribe.builder.api.*;
+import org.scribe.model.*;
+import org.scribe.transport.*;
+
+import com.sun.net.httpserver.*;
+
+public class ThreadPerCallExecutionTest
+{
+  private static final int EXCHANGES = 10000;
+  private static final String TOKEN_RESPONSE = "oauth_token=access&oauth_token_secret=secret";
+
+  private final AtomicInteger exchanges = new AtomicInteger();
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+
+  @Before
+  public void setup() throws Exception
+  {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+    server.createContext("/access", new HttpHandler()
+    {
+      public void handle(HttpExchange exchange) throws IOException
+      {
+        InputStream body = exchange.getRequestBody();
+        while (body.read() != -1);
+        exchanges.incrementAndGet();
+        byte[] response = TOKEN_RESPONSE.getBytes("UTF-8");
+        exchange.sendResponseHeaders(200, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+      }
+    });
+    serverExecutor = Executors.newFixedThreadPool(8);
+    server.setExecutor(serverExecutor);
+    server.start();
+  }
+
+  @After
+  public void tearDown()
+  {
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @Test
+  public void shouldRunConcurrentTokenExchangesOnBoundedThreads() throws Exception
+  {
+    final CountingThreadFactory threads = new CountingThreadFactory();
+    OAuthService service = new ServiceBuilder()
+                                .provider(new StubApi(server.getAddress().getPort()))
+                                .apiKey("key")
+                                .apiSecret("secret")
+                                .asyncDispatcher(new AsyncDispatcher(threads, AsyncDispatcher.DEFAULT_MAX_IN_FLIGHT))
+                                .build();
+    OAuthAsyncCallback<Token> completion = new OAuthAsyncCallback<Token>()
+    {
+      public void onCompleted(Token result)
+      {
+        threads.running.decrementAndGet();
+      }
+
+      public void onThrowable(Throwable t)
+      {
+        threads.running.decrementAndGet();
+      }
+    };
+
+    List<Future<Token>> tokens = new ArrayList<Future<Token>>(EXCHANGES);
+    for (int i = 0; i < EXCHANGES; i++)
+    {
+      // distinct exchanges, identical ones would be merged into a single call
+      tokens.add(service.getAccessTokenAsync(new Token("request" + i, "secret"), new Verifier("verifier" + i), completion));
+    }
+    for (Future<Token> token : tokens)
+    {
+      assertEquals(new Token("access", "secret"), token.get(30, TimeUnit.SECONDS));
+    }
+    assertEquals(EXCHANGES, exchanges.get());
+    assertEquals(EXCHANGES, threads.created.get());
+    assertTrue("peak of threads running a call: " + threads.peak.get(), threads.peak.get() <= AsyncDispatcher.DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  private static class CountingThreadFactory implements ThreadFactory
+  {
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    public Thread newThread(final Runnable task)
+    {
+      created.incrementAndGet();
+      Thread thread = new Thread(new Runnable()
+      {
+        public void run()
+        {
+          // counted down by the callback, which runs on this thread before the call gives its slot back:
+          // counting down once run() returns would overlap with the thread the freed slot already started
+          int current = running.incrementAndGet();
+          int max;
+          while ((max = peak.get()) < current && !peak.compareAndSet(max, current));
+          task.run();
+        }
+      });
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+  private static class StubApi extends DefaultApi10a
+  {
+    private final int port;
+
+    StubApi(int port)
+    {
+      this.port = port;
+    }
+
+    @Override
+    public String getRequestTokenEndpoint()
+    {
+      return "http://127.0.0.1:" + port + "/request";
+    }
+
+    @Override
+    public String getAccessTokenEndpoint()
+    {
+      return "http://127.0.0.1:" + port + "/access";
+    }
+
+    @Override
+    public String getAuthorizationUrl(Token requestToken)
+    {
+      return "http://127.0.0.1:" + port + "/authorize?oauth_token=" + requestToken.getToken();
+    }
+  }
+}
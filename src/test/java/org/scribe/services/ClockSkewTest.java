@@ -0,0 +1,79 @@
+package org.scribe.services;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+public class ClockSkewTest
+{
+  // Sun, 06 Nov 1994 08:49:37 GMT
+  private static final long DATE_MILLIS = 784111777000L;
+  private static final String DATE = "Sun, 06 Nov 1994 08:49:37 GMT";
+
+  private ClockSkew clockSkew;
+
+  @Before
+  public void setup()
+  {
+    clockSkew = new ClockSkew();
+  }
+
+  @Test
+  public void shouldLearnFromAgreeingDateHeaders()
+  {
+    long sentAt = DATE_MILLIS - 60000;
+    for (int i = 0; i < ClockSkew.AGREEING_SAMPLES; i++)
+    {
+      assertEquals(0, clockSkew.getOffset());
+      clockSkew.learn(DATE, null, sentAt, sentAt + 200);
+    }
+    assertEquals(60000 + 500 - 100, clockSkew.getOffset());
+  }
+
+  @Test
+  public void shouldIgnoreAStaleDateHeader()
+  {
+    long sentAt = DATE_MILLIS - 60000;
+    for (int i = 0; i < ClockSkew.AGREEING_SAMPLES * 2; i++)
+    {
+      // every other Date is 60s off, the rest agree with the local clock
+      long at = i % 2 == 0 ? sentAt : DATE_MILLIS + 500;
+      clockSkew.learn(DATE, null, at, at);
+    }
+    assertEquals(0, clockSkew.getOffset());
+  }
+
+  @Test
+  public void shouldKeepTheOffsetWithinTheDatePrecision()
+  {
+    clockSkew.setOffset(60000);
+    long sentAt = DATE_MILLIS - 60000 + 300;
+    clockSkew.learn(DATE, null, sentAt, sentAt + 200);
+    assertEquals(60000, clockSkew.getOffset());
+  }
+
+  @Test
+  public void shouldTrustRefusedTimestamps()
+  {
+    clockSkew.setOffset(60000);
+    long sentAt = DATE_MILLIS - 60000 + 300;
+    clockSkew.learn(DATE, "oauth_problem=timestamp_refused", sentAt, sentAt + 200);
+    assertEquals(60000 + 500 - 400, clockSkew.getOffset());
+  }
+
+  @Test
+  public void shouldUseTheAcceptableTimestamps()
+  {
+    String problem = "OAuth realm=\"\", oauth_problem=\"timestamp_refused\", oauth_acceptable_timestamps=\"784111477-784112077\"";
+    clockSkew.learn(DATE, problem, DATE_MILLIS - 10000, DATE_MILLIS - 10000);
+    assertEquals(10000, clockSkew.getOffset());
+  }
+
+  @Test
+  public void shouldIgnoreMissingOrInvalidDates()
+  {
+    clockSkew.learn(null, null, 0, 0);
+    clockSkew.learn("yesterday", null, 0, 0);
+    assertEquals(0, clockSkew.getOffset());
+  }
+}
@@ -0,0 +1,90 @@
+package org.scribe.services;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+import org.scribe.exceptions.*;
+import org.scribe.model.*;
+
+public class FileTokenStoreTest
+{
+  private File file;
+
+  @Before
+  public void setup() throws Exception
+  {
+    file = File.createTempFile("tokens", ".dat");
+    file.delete();
+  }
+
+  @After
+  public void tearDown()
+  {
+    file.delete();
+    new File(file.getPath() + ".bak").delete();
+  }
+
+  @Test
+  public void shouldKeepTokensAcrossInstances()
+  {
+    FileTokenStore store = new FileTokenStore(file);
+    store.put("user", new Token("token", "secret", "oauth_token=token&oauth_token_secret=secret"));
+    store.put("other", new Token("other", "secret"));
+    store.remove("other");
+
+    FileTokenStore reloaded = new FileTokenStore(file);
+    assertEquals(new Token("token", "secret"), reloaded.get("user"));
+    assertEquals("oauth_token=token&oauth_token_secret=secret", reloaded.get("user").getRawResponse());
+    assertNull(reloaded.get("other"));
+    assertFalse(new File(file.getPath() + ".tmp").exists());
+  }
+
+  @Test
+  public void shouldNotReturnNorPersistExpiredTokens()
+  {
+    FileTokenStore store = new FileTokenStore(file);
+    store.put("user", new Token("token", "secret", null, System.currentTimeMillis() - 1));
+    assertNull(store.get("user"));
+    store.put("other", new Token("other", "secret"));
+    assertNull(new FileTokenStore(file).get("user"));
+  }
+
+  @Test
+  public void shouldKeepEveryFieldOfTheTokens()
+  {
+    Map<String, String> parameters = new LinkedHashMap<String, String>();
+    parameters.put("user_id", "42");
+    parameters.put("empty", "");
+    long expiresAt = System.currentTimeMillis() + 60000;
+    new FileTokenStore(file).put("user", new Token("t\u00f6ken", "secret", "raw", expiresAt, "refresh", "bearer", "read", parameters));
+
+    Token reloaded = new FileTokenStore(file).get("user");
+    assertEquals("t\u00f6ken", reloaded.getToken());
+    assertEquals("raw", reloaded.getRawResponse());
+    assertEquals(expiresAt, reloaded.getExpiresAt());
+    assertEquals("refresh", reloaded.getRefreshToken());
+    assertEquals("bearer", reloaded.getTokenType());
+    assertEquals("read", reloaded.getScope());
+    assertEquals(parameters, reloaded.getParameters());
+  }
+
+  @Test
+  public void shouldLoadTheBackupWhenTheFileIsMissing()
+  {
+    new FileTokenStore(file).put("user", new Token("token", "secret"));
+    assertTrue(file.renameTo(new File(file.getPath() + ".bak")));
+    assertEquals(new Token("token", "secret"), new FileTokenStore(file).get("user"));
+  }
+
+  @Test(expected = OAuthException.class)
+  public void shouldFailOnUnreadableFile() throws Exception
+  {
+    FileOutputStream out = new FileOutputStream(file);
+    out.write("not tokens".getBytes());
+    out.close();
+    new FileTokenStore(file);
+  }
+}
@@ -2,6 +2,9 @@ package org.scribe.services;
 
 import static org.junit.Assert.*;
 
+import java.util.*;
+import java.util.concurrent.*;
+
 import org.junit.*;
 import org.scribe.exceptions.*;
 
@@ -33,6 +36,98 @@ public class HMACSha1SignatureServiceTest
     assertEquals(signature, service.getSignature(baseString, apiSecret, tokenSecret));
   }
 
+  @Test
+  public void shouldReturnSameSignatureWhenStreamed() throws Exception
+  {
+    SignatureOutputStream stream = service.newSignatureStream("api secret", "token secret");
+    stream.write("base".getBytes("UTF-8"));
+    stream.write(' ');
+    stream.write("string".getBytes("UTF-8"));
+    assertEquals("uGymw2KHOTWI699YEaoi5xyLT50=", stream.getSignature());
+  }
+
+  @Test
+  public void shouldReturnSameSignaturesWhenCachingMacs() throws Exception
+  {
+    HMACSha1SignatureService cached = new HMACSha1SignatureService(2);
+    for (int i = 0; i < 3; i++)
+    {
+      assertEquals("uGymw2KHOTWI699YEaoi5xyLT50=", cached.getSignature("base string", "api secret", "token secret"));
+      SignatureOutputStream stream = cached.newSignatureStream("api secret", "token secret");
+      stream.write("base string".getBytes("UTF-8"));
+      assertEquals("uGymw2KHOTWI699YEaoi5xyLT50=", stream.getSignature());
+    }
+    assertEquals(service.getSignature("base string", "api secret", "other secret"), cached.getSignature("base string", "api secret", "other secret"));
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedKeys()
+  {
+    HMACSha1SignatureService cached = new HMACSha1SignatureService(2);
+    for (int i = 0; i < 10; i++)
+    {
+      cached.getSignature("base string", "api secret", "token secret " + i);
+    }
+    assertEquals(2, cached.getCachedKeys());
+    assertEquals(0, service.getCachedKeys());
+  }
+
+  @Test
+  public void shouldStayBoundedWhileAKeyIsHot()
+  {
+    HMACSha1SignatureService cached = new HMACSha1SignatureService(2);
+    String signature = cached.getSignature("base string", "api secret", "hot secret");
+    for (int i = 0; i < 10; i++)
+    {
+      cached.getSignature("base string", "api secret", "token secret " + i);
+      assertEquals(signature, cached.getSignature("base string", "api secret", "hot secret"));
+      assertEquals(2, cached.getCachedKeys());
+    }
+  }
+
+  @Test
+  public void shouldSignConcurrentlyWithCachedMacs() throws Exception
+  {
+    final HMACSha1SignatureService cached = new HMACSha1SignatureService(4);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try
+    {
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+      for (int i = 0; i < 2000; i++)
+      {
+        final String tokenSecret = "secret " + (i % 6);
+        final String baseString = "base string " + i;
+        results.add(executor.submit(new Callable<Boolean>()
+        {
+          public Boolean call()
+          {
+            return service.getSignature(baseString, "api secret", tokenSecret).equals(cached.getSignature(baseString, "api secret", tokenSecret));
+          }
+        }));
+      }
+      for (Future<Boolean> result : results)
+      {
+        assertTrue(result.get(10, TimeUnit.SECONDS));
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveCacheSize()
+  {
+    new HMACSha1SignatureService(0);
+  }
+
+  @Test(expected = OAuthException.class)
+  public void shouldThrowExceptionIfApiSecretIsEmptyWhenStreaming()
+  {
+    service.newSignatureStream("  ", "tokenSecret");
+  }
+
   @Test(expected = OAuthException.class)
   public void shouldThrowExceptionIfBaseStringIsNull()
   {
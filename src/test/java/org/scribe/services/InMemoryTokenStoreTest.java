@@ -0,0 +1,109 @@
+package org.scribe.services;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+import org.scribe.model.*;
+
+public class InMemoryTokenStoreTest
+{
+  private InMemoryTokenStore store;
+
+  @Before
+  public void setup()
+  {
+    store = new InMemoryTokenStore(2);
+  }
+
+  @Test
+  public void shouldReturnStoredTokens()
+  {
+    Token token = new Token("token", "secret");
+    store.put("user", token);
+    assertSame(token, store.get("user"));
+    assertNull(store.get("other"));
+
+    store.remove("user");
+    assertNull(store.get("user"));
+  }
+
+  @Test
+  public void shouldDropExpiredTokens()
+  {
+    store.put("user", new Token("token", "secret", null, System.currentTimeMillis() - 1));
+    store.put("other", new Token("token", "secret", null, System.currentTimeMillis() + 60000));
+    assertNull(store.get("user"));
+    assertNotNull(store.get("other"));
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedTokens()
+  {
+    store.put("first", new Token("first", "secret"));
+    store.put("second", new Token("second", "secret"));
+    store.get("first");
+    store.put("third", new Token("third", "secret"));
+    assertNotNull(store.get("first"));
+    assertNull(store.get("second"));
+    assertNotNull(store.get("third"));
+  }
+
+  @Test
+  public void shouldPeekWithoutKeepingTokensFromBeingEvicted()
+  {
+    Token first = new Token("first", "secret");
+    store.put("first", first);
+    store.put("second", new Token("second", "secret"));
+    assertSame(first, store.peek("first"));
+    assertNull(store.peek("other"));
+    store.put("third", new Token("third", "secret"));
+    assertNull(store.peek("first"));
+    assertNotNull(store.peek("second"));
+  }
+
+  @Test
+  public void shouldKeepAHotTokenWhileStayingBoundedUnderConcurrentUse() throws Exception
+  {
+    final InMemoryTokenStore bounded = new InMemoryTokenStore(100);
+    final Token hot = new Token("hot", "secret");
+    bounded.put("hot", hot);
+    final int threads = 4;
+    final AtomicInteger misses = new AtomicInteger();
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++)
+    {
+      final int id = t;
+      workers[t] = new Thread()
+      {
+        @Override
+        public void run()
+        {
+          for (int i = 0; i < 5000; i++)
+          {
+            bounded.put("user " + id + " " + i, new Token("token", "secret"));
+            if (bounded.get("hot") != hot)
+            {
+              misses.incrementAndGet();
+            }
+          }
+        }
+      };
+      workers[t].start();
+    }
+    for (Thread worker : workers)
+    {
+      worker.join();
+    }
+    assertEquals(0, misses.get());
+    assertTrue(bounded.size() <= 100 + threads);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveCapacity()
+  {
+    new InMemoryTokenStore(0);
+  }
+}
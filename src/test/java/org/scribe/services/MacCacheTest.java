@@ -0,0 +1,57 @@
+package org.scribe.services;
+
+import static org.junit.Assert.*;
+
+import javax.crypto.Mac;
+
+import org.junit.*;
+
+public class MacCacheTest
+{
+  private static final int MAX_KEYS = 32;
+
+  private MacCache cache;
+
+  @Before
+  public void setup()
+  {
+    cache = new MacCache("HmacSHA1", MAX_KEYS);
+  }
+
+  @Test
+  public void shouldKeepAHotKeyWhileColdKeysComeAndGo() throws Exception
+  {
+    use("hot");
+    for (int i = 0; i < 1000; i++)
+    {
+      use("cold " + i);
+      use("hot");
+      assertTrue(cache.contains("hot"));
+    }
+    assertTrue(cache.size() <= MAX_KEYS);
+  }
+
+  @Test
+  public void shouldEventuallyEvictEveryColdKey() throws Exception
+  {
+    for (int i = 0; i < MAX_KEYS; i++)
+    {
+      use("first " + i);
+    }
+    for (int i = 0; i < 1000; i++)
+    {
+      use("later " + i);
+    }
+    for (int i = 0; i < MAX_KEYS; i++)
+    {
+      assertFalse(cache.contains("first " + i));
+    }
+  }
+
+  private void use(String keyString) throws Exception
+  {
+    Mac mac = cache.borrow(keyString);
+    mac.doFinal();
+    cache.release(keyString, mac);
+  }
+}
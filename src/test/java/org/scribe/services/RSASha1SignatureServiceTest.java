@@ -1,6 +1,7 @@
 package org.scribe.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.security.KeyFactory;
 import java.security.PrivateKey;
@@ -31,6 +32,32 @@ public class RSASha1SignatureServiceTest
     assertEquals(signature, service.getSignature(baseString, apiSecret, tokenSecret));
   }
 
+  @Test
+  public void shouldReturnSameSignatureWhenStreamed() throws Exception
+  {
+    SignatureOutputStream stream = service.newSignatureStream("api secret", "token secret");
+    stream.write("base".getBytes("UTF-8"));
+    stream.write(' ');
+    stream.write("string".getBytes("UTF-8"));
+    assertEquals(service.getSignature("base string", "api secret", "token secret"), stream.getSignature());
+  }
+
+  @Test
+  public void shouldReuseSignaturesWhenPooled() throws Exception
+  {
+    RSASha1SignatureService pooled = new RSASha1SignatureService(getPrivateKey(), true);
+    String expected = service.getSignature("base string", "api secret", "token secret");
+    for (int i = 0; i < 3; i++)
+    {
+      assertEquals(expected, pooled.getSignature("base string", "api secret", "token secret"));
+      SignatureOutputStream stream = pooled.newSignatureStream("api secret", "token secret");
+      stream.write("base string".getBytes("UTF-8"));
+      assertEquals(expected, stream.getSignature());
+    }
+    assertEquals(1, pooled.getIdleSignatures());
+    assertTrue(service.getIdleSignatures() == 0);
+  }
+
   /**
    *Created primary key using openssl.
    *
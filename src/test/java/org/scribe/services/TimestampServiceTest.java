@@ -25,6 +25,13 @@ public class TimestampServiceTest
     assertEquals(expected, service.getTimestampInSeconds());
   }
 
+  @Test
+  public void shouldFollowTheProviderClock()
+  {
+    service.getClockSkew().setOffset(-500000);
+    assertEquals("500", service.getTimestampInSeconds());
+  }
+
   @Test
   public void shouldReturnNonce()
   {
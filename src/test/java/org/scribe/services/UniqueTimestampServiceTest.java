@@ -0,0 +1,102 @@
+package org.scribe.services;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+public class UniqueTimestampServiceTest
+{
+  private UniqueTimestampService service;
+  private TimerStub timer;
+
+  @Before
+  public void setup()
+  {
+    service = new UniqueTimestampService(42);
+    timer = new TimerStub();
+    service.setTimer(timer);
+  }
+
+  @Test
+  public void shouldReturnTimestampInSeconds()
+  {
+    timer.millis = 1000999L;
+    assertEquals("1000", service.getTimestampInSeconds());
+    timer.millis = 1001000L;
+    assertEquals("1001", service.getTimestampInSeconds());
+  }
+
+  @Test
+  public void shouldBuildTimestampOncePerSecond()
+  {
+    timer.millis = 1000000L;
+    String first = service.getTimestampInSeconds();
+    timer.millis = 1000500L;
+    assertSame(first, service.getTimestampInSeconds());
+  }
+
+  @Test
+  public void shouldReturnUnreservedNonces()
+  {
+    String nonce = service.getNonce();
+    assertTrue(nonce, nonce.matches("[0-9a-z]{16,}"));
+    assertTrue(nonce.startsWith("0000000000016"));
+  }
+
+  @Test
+  public void shouldNeverRepeatNoncesAcrossThreads() throws Exception
+  {
+    final int threads = service.getStripes() * 2;
+    final int perThread = 5000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try
+    {
+      List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+      for (int i = 0; i < threads; i++)
+      {
+        results.add(executor.submit(new Callable<List<String>>()
+        {
+          public List<String> call()
+          {
+            List<String> nonces = new ArrayList<String>(perThread);
+            for (int n = 0; n < perThread; n++)
+            {
+              nonces.add(service.getNonce());
+            }
+            return nonces;
+          }
+        }));
+      }
+      Set<String> unique = new HashSet<String>();
+      for (Future<List<String>> result : results)
+      {
+        unique.addAll(result.get(30, TimeUnit.SECONDS));
+      }
+      assertEquals(threads * perThread, unique.size());
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldUseDistinctNodesPerInstance()
+  {
+    assertFalse(new UniqueTimestampService().getNonce().equals(new UniqueTimestampService().getNonce()));
+  }
+
+  private static class TimerStub extends TimestampServiceImpl.Timer
+  {
+    private long millis;
+
+    @Override
+    public Long getMilis()
+    {
+      return millis;
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package org.scribe.transport;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+import org.scribe.model.*;
+
+public class AsyncDispatcherTest
+{
+  private ExecutorService executor;
+  private AsyncDispatcher dispatcher;
+
+  @Before
+  public void setup()
+  {
+    executor = Executors.newFixedThreadPool(4);
+    dispatcher = new AsyncDispatcher(executor, 2);
+  }
+
+  @After
+  public void tearDown()
+  {
+    dispatcher.shutdown();
+  }
+
+  @Test
+  public void shouldCompleteFutureAndNotifyCallback() throws Exception
+  {
+    RecordingCallback<String> callback = new RecordingCallback<String>();
+    Future<String> future = dispatcher.submit(new Callable<String>()
+    {
+      public String call()
+      {
+        return "result";
+      }
+    }, callback);
+    assertEquals("result", future.get(5, TimeUnit.SECONDS));
+    assertTrue(callback.done.await(5, TimeUnit.SECONDS));
+    assertEquals("result", callback.result.get());
+    assertNull(callback.failure.get());
+  }
+
+  @Test
+  public void shouldNotifyCallbackOfFailures() throws Exception
+  {
+    RecordingCallback<String> callback = new RecordingCallback<String>();
+    Future<String> future = dispatcher.submit(new Callable<String>()
+    {
+      public String call()
+      {
+        throw new IllegalStateException("boom");
+      }
+    }, callback);
+    try
+    {
+      future.get(5, TimeUnit.SECONDS);
+      fail("should have failed");
+    }
+    catch (ExecutionException e)
+    {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    assertTrue(callback.done.await(5, TimeUnit.SECONDS));
+    assertTrue(callback.failure.get() instanceof IllegalStateException);
+  }
+
+  @Test
+  public void shouldQueueCallsPastTheLimitWithoutBlocking() throws Exception
+  {
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger peak = new AtomicInteger();
+    Callable<String> blocked = new Callable<String>()
+    {
+      public String call() throws Exception
+      {
+        int current = running.incrementAndGet();
+        int max;
+        while ((max = peak.get()) < current && !peak.compareAndSet(max, current));
+        release.await();
+        running.decrementAndGet();
+        return "done";
+      }
+    };
+    Future<?>[] calls = new Future<?>[5];
+    for (int i = 0; i < calls.length; i++)
+    {
+      calls[i] = dispatcher.submit(blocked, null);
+    }
+    assertEquals(2, dispatcher.getInFlight());
+    assertEquals(3, dispatcher.getQueued());
+
+    release.countDown();
+    for (Future<?> call : calls)
+    {
+      assertEquals("done", call.get(5, TimeUnit.SECONDS));
+    }
+    assertTrue("peak running: " + peak.get(), peak.get() <= 2);
+    assertEquals(0, dispatcher.getQueued());
+  }
+
+  @Test
+  public void shouldRejectCallsOnceTheQueueIsFull() throws Exception
+  {
+    final CountDownLatch release = new CountDownLatch(1);
+    Callable<String> blocked = new Callable<String>()
+    {
+      public String call() throws Exception
+      {
+        release.await();
+        return "done";
+      }
+    };
+    dispatcher = new AsyncDispatcher(executor, 1, 1);
+    dispatcher.submit(blocked, null);
+    Future<String> queued = dispatcher.submit(blocked, null);
+    try
+    {
+      dispatcher.submit(blocked, null);
+      fail("queue should be full");
+    }
+    catch (RejectedExecutionException expected)
+    {
+    }
+    release.countDown();
+    assertEquals("done", queued.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldFreeTheSlotOfCallsCancelledWhileQueued() throws Exception
+  {
+    final CountDownLatch release = new CountDownLatch(1);
+    Callable<String> blocked = new Callable<String>()
+    {
+      public String call() throws Exception
+      {
+        release.await();
+        return "done";
+      }
+    };
+    dispatcher = new AsyncDispatcher(executor, 1);
+    Future<String> running = dispatcher.submit(blocked, null);
+    dispatcher.submit(blocked, null).cancel(false);
+    Future<String> last = dispatcher.submit(blocked, null);
+    release.countDown();
+
+    assertEquals("done", running.get(5, TimeUnit.SECONDS));
+    assertEquals("done", last.get(5, TimeUnit.SECONDS));
+    // the slot is freed right after the future completes
+    for (int i = 0; i < 500 && dispatcher.getInFlight() > 0; i++)
+    {
+      Thread.sleep(10);
+    }
+    assertEquals(0, dispatcher.getInFlight());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveLimit()
+  {
+    new AsyncDispatcher(executor, 0);
+  }
+
+  private static class RecordingCallback<T> implements OAuthAsyncCallback<T>
+  {
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final AtomicReference<T> result = new AtomicReference<T>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    public void onCompleted(T value)
+    {
+      result.set(value);
+      done.countDown();
+    }
+
+    public void onThrowable(Throwable t)
+    {
+      failure.set(t);
+      done.countDown();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package org.scribe.transport;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+public class CircuitBreakerTest
+{
+  private CircuitBreaker breaker;
+
+  @Before
+  public void setup()
+  {
+    breaker = new CircuitBreaker(3, 50, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void shouldOpenAfterFailuresInARow()
+  {
+    breaker.onFailure();
+    breaker.onFailure();
+    breaker.onSuccess();
+    breaker.onFailure();
+    breaker.onFailure();
+    assertTrue(breaker.allowRequest());
+
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.allowRequest());
+  }
+
+  @Test
+  public void shouldLetASingleProbeThroughWhenHalfOpen() throws Exception
+  {
+    open();
+    Thread.sleep(60);
+
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertTrue(breaker.allowRequest());
+    assertFalse(breaker.allowRequest());
+
+    breaker.onSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(breaker.allowRequest());
+  }
+
+  @Test
+  public void shouldOpenAgainWhenTheProbeFails() throws Exception
+  {
+    open();
+    Thread.sleep(60);
+    assertTrue(breaker.allowRequest());
+
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.allowRequest());
+  }
+
+  private void open()
+  {
+    for (int i = 0; i < 3; i++)
+    {
+      breaker.onFailure();
+    }
+  }
+}
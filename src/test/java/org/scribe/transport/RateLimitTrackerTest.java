@@ -0,0 +1,124 @@
+package org.scribe.transport;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.*;
+
+import org.junit.*;
+import org.scribe.exceptions.*;
+
+public class RateLimitTrackerTest
+{
+  private RateLimitTracker tracker;
+
+  @Before
+  public void setup()
+  {
+    tracker = new RateLimitTracker(100, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void shouldNotHoldBackUnknownBudgets()
+  {
+    tracker.acquire("token");
+    assertNull(tracker.getRateLimit("token"));
+  }
+
+  @Test
+  public void shouldLearnTheBudgetFromTheHeaders()
+  {
+    long now = System.currentTimeMillis();
+    tracker.update("token", 200, "150", "42", "900", null, now);
+
+    RateLimit limit = tracker.getRateLimit("token");
+    assertEquals(150, limit.getLimit());
+    assertEquals(42, limit.getRemaining());
+    assertEquals(now + 900000, limit.getResetAt());
+    assertEquals(900000 / 42, limit.getEvenSpacing(now));
+  }
+
+  @Test
+  public void shouldReadEpochResets()
+  {
+    long now = System.currentTimeMillis();
+    long reset = now / 1000 + 60;
+    tracker.update("token", 200, null, "1", String.valueOf(reset), null, now);
+    assertEquals(reset * 1000, tracker.getRateLimit("token").getResetAt());
+  }
+
+  @Test
+  public void shouldSpendTheBudget()
+  {
+    tracker.update("token", 200, "2", "2", "900", null, System.currentTimeMillis());
+    tracker.acquire("token");
+    tracker.acquire("token");
+    assertEquals(0, tracker.getRateLimit("token").getRemaining());
+    assertNull(tracker.getRateLimit("app"));
+  }
+
+  @Test(expected = OAuthRateLimitException.class)
+  public void shouldRejectRequestsWhenTheResetIsFar()
+  {
+    tracker.update("token", 200, "2", "0", "900", null, System.currentTimeMillis());
+    tracker.acquire("token");
+  }
+
+  @Test
+  public void shouldWaitForCloseResets()
+  {
+    long now = System.currentTimeMillis();
+    tracker.update("token", 200, "2", "0", "60", null, now - 60000 + 50);
+    tracker.acquire("token");
+    assertNull(tracker.getRateLimit("token"));
+  }
+
+  @Test
+  public void shouldSpendTheBudgetWhenTooManyRequests()
+  {
+    long now = System.currentTimeMillis();
+    tracker.update("token", 429, null, null, null, "30", now);
+    assertEquals(0, tracker.getRateLimit("token").getRemaining());
+    assertEquals(now + 30000, tracker.getRateLimit("token").getResetAt());
+
+    tracker.update("other", 420, null, null, null, null, now);
+    assertEquals(now + 60000, tracker.getRateLimit("other").getResetAt());
+  }
+
+  @Test
+  public void shouldNotGiveTheKeyAway()
+  {
+    String key = RateLimitTracker.tokenKey("secret token");
+    assertEquals(key, RateLimitTracker.tokenKey("secret token"));
+    assertFalse(key.equals(RateLimitTracker.tokenKey("other token")));
+    assertFalse(key.contains("secret"));
+    tracker.update(key, 200, "2", "0", "900", null, System.currentTimeMillis());
+    try
+    {
+      tracker.acquire(key);
+      fail("the budget is spent");
+    }
+    catch (OAuthRateLimitException e)
+    {
+      assertFalse(e.getMessage().contains(key));
+    }
+  }
+
+  @Test
+  public void shouldKeepABoundedNumberOfBudgets()
+  {
+    RateLimitTracker bounded = new RateLimitTracker(0, TimeUnit.MILLISECONDS, 2);
+    long now = System.currentTimeMillis();
+    bounded.update("first", 200, "2", "1", "1", null, now - 2000);
+    bounded.update("second", 200, "2", "1", "900", null, now);
+    bounded.update("third", 200, "2", "1", "900", null, now);
+    assertEquals(2, bounded.size());
+    assertNotNull(bounded.getRateLimit("third"));
+
+    // full of budgets that haven't reset, new ones go untracked
+    bounded.update("fourth", 200, "2", "1", "900", null, now);
+    assertEquals(2, bounded.size());
+    assertNull(bounded.getRateLimit("fourth"));
+    bounded.update("second", 200, "2", "0", "900", null, now);
+    assertEquals(0, bounded.getRateLimit("second").getRemaining());
+  }
+}
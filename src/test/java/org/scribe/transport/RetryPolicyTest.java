@@ -0,0 +1,56 @@
+package org.scribe.transport;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.*;
+
+import org.junit.*;
+import org.scribe.model.*;
+
+public class RetryPolicyTest
+{
+  private RetryPolicy policy;
+
+  @Before
+  public void setup()
+  {
+    policy = new RetryPolicy(5, 100, 1000, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void shouldOnlyRetryIdempotentVerbsByDefault()
+  {
+    assertTrue(policy.isRetryable(Verb.GET));
+    assertTrue(policy.isRetryable(Verb.PUT));
+    assertFalse(policy.isRetryable(Verb.POST));
+    assertTrue(new RetryPolicy(5, 100, 1000, TimeUnit.MILLISECONDS, true, null).isRetryable(Verb.POST));
+  }
+
+  @Test
+  public void shouldTreatOverloadedProvidersAsFailures()
+  {
+    assertTrue(policy.isFailure(503));
+    assertTrue(policy.isFailure(429));
+    assertFalse(policy.isFailure(500));
+    assertFalse(policy.isFailure(401));
+  }
+
+  @Test
+  public void shouldBackOffExponentiallyWithJitter()
+  {
+    for (int i = 0; i < 100; i++)
+    {
+      assertTrue(policy.getDelay(1, null) < 100);
+      assertTrue(policy.getDelay(3, null) < 400);
+      assertTrue(policy.getDelay(30, null) < 1000);
+    }
+  }
+
+  @Test
+  public void shouldHonorRetryAfterUpToTheMaxDelay()
+  {
+    assertEquals(0, policy.getDelay(1, "0"));
+    assertEquals(1000, policy.getDelay(1, "120"));
+    assertTrue(policy.getDelay(1, "Fri, 31 Dec 1999 23:59:59 GMT") < 100);
+  }
+}
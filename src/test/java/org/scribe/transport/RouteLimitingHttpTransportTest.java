@@ -0,0 +1,151 @@
+package org.scribe.transport;
+
+import static org.junit.Assert.*;
+
+import java.net.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+import org.scribe.exceptions.*;
+import org.scribe.model.*;
+
+public class RouteLimitingHttpTransportTest
+{
+  private RouteLimitingHttpTransport transport;
+  private Request request;
+
+  @Before
+  public void setup()
+  {
+    transport = new RouteLimitingHttpTransport(2, 1, TimeUnit.MINUTES, true);
+    request = new Request(Verb.GET, "http://example.com/path?one=val");
+  }
+
+  @Test
+  public void shouldOpenConnectionToCompleteUrl() throws Exception
+  {
+    request.addQuerystringParameter("two", "other val");
+    HttpURLConnection connection = transport.openConnection(request);
+    assertEquals("http://example.com/path?one=val&two=other%20val", connection.getURL().toString());
+  }
+
+  @Test
+  public void shouldLeaseAndReleaseConnectionsPerRoute() throws Exception
+  {
+    HttpURLConnection first = transport.openConnection(request);
+    HttpURLConnection second = transport.openConnection(new Request(Verb.GET, "http://EXAMPLE.com:80/other"));
+    transport.openConnection(new Request(Verb.GET, "https://example.com"));
+    assertEquals(2, transport.getLeased("http://example.com"));
+    assertEquals(1, transport.getLeased("https://example.com"));
+    assertEquals(2, transport.getRouteCount());
+
+    transport.releaseConnection(request, first);
+    transport.releaseConnection(request, second);
+    transport.releaseConnection(request, second);
+    assertEquals(0, transport.getLeased("http://example.com"));
+  }
+
+  @Test
+  public void shouldWaitForAFreeConnectionWhenRouteIsFull() throws Exception
+  {
+    final HttpURLConnection first = transport.openConnection(request);
+    transport.openConnection(request);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      Future<HttpURLConnection> third = executor.submit(new Callable<HttpURLConnection>()
+      {
+        public HttpURLConnection call() throws Exception
+        {
+          return transport.openConnection(request);
+        }
+      });
+      try
+      {
+        third.get(200, TimeUnit.MILLISECONDS);
+        fail("route should be full");
+      }
+      catch (TimeoutException expected)
+      {
+      }
+      transport.releaseConnection(request, first);
+      assertNotNull(third.get(5, TimeUnit.SECONDS));
+      assertEquals(2, transport.getLeased("http://example.com"));
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldGiveUpWaitingAfterTheConnectTimeout() throws Exception
+  {
+    transport.openConnection(request);
+    transport.openConnection(request);
+    Request waiting = new Request(Verb.GET, "http://example.com/other");
+    waiting.setConnectTimeout(50, TimeUnit.MILLISECONDS);
+    waiting.setTransport(transport);
+    try
+    {
+      transport.openConnection(waiting);
+      fail("route should be full");
+    }
+    catch (SocketTimeoutException expected)
+    {
+    }
+    try
+    {
+      waiting.send();
+      fail("route should be full");
+    }
+    catch (OAuthConnectionException expected)
+    {
+      assertTrue(expected.getCause() instanceof SocketTimeoutException);
+    }
+    assertEquals(2, transport.getLeased("http://example.com"));
+  }
+
+  @Test
+  public void shouldNotCapRoutesByDefault() throws Exception
+  {
+    RouteLimitingHttpTransport uncapped = new RouteLimitingHttpTransport();
+    for (int i = 0; i < RouteLimitingHttpTransport.DEFAULT_MAX_PER_ROUTE * 2; i++)
+    {
+      uncapped.openConnection(request);
+    }
+    assertEquals(RouteLimitingHttpTransport.DEFAULT_MAX_PER_ROUTE * 2, uncapped.getLeased("http://example.com"));
+  }
+
+  @Test
+  public void shouldEvictIdleRoutes() throws Exception
+  {
+    RouteLimitingHttpTransport evicting = new RouteLimitingHttpTransport(2, 0, TimeUnit.MILLISECONDS, true);
+    HttpURLConnection connection = evicting.openConnection(request);
+    evicting.releaseConnection(request, connection);
+    evicting.openConnection(new Request(Verb.GET, "http://other.example.com"));
+    assertEquals(1, evicting.getRouteCount());
+  }
+
+  @Test
+  public void shouldAskForConnectionCloseWhenKeepAliveIsDisabled() throws Exception
+  {
+    RouteLimitingHttpTransport closing = new RouteLimitingHttpTransport(2, 1, TimeUnit.MINUTES, false);
+    assertEquals("close", closing.openConnection(request).getRequestProperty("Connection"));
+    assertNull(transport.openConnection(request).getRequestProperty("Connection"));
+  }
+
+  @Test
+  public void shouldNotTouchKeepAliveSystemProperty() throws Exception
+  {
+    String before = System.getProperty("http.keepAlive");
+    new RouteLimitingHttpTransport(2, 1, TimeUnit.MINUTES, false).openConnection(request);
+    assertEquals(before, System.getProperty("http.keepAlive"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveMaxPerRoute()
+  {
+    new RouteLimitingHttpTransport(0, 1, TimeUnit.MINUTES, true);
+  }
+}
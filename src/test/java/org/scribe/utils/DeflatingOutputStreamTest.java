@@ -0,0 +1,97 @@
+package org.scribe.utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.junit.*;
+
+public class DeflatingOutputStreamTest
+{
+  @Test
+  public void shouldWriteStandardGzip() throws Exception
+  {
+    byte[] contents = new byte[100000];
+    Random random = new Random(7);
+    for (int i = 0; i < contents.length; i++)
+    {
+      contents[i] = (byte) ('a' + random.nextInt(4));
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DeflatingOutputStream gzip = new DeflatingOutputStream(out);
+    gzip.write(contents, 0, 60000);
+    gzip.write(contents[60000]);
+    gzip.write(contents, 60001, contents.length - 60001);
+    gzip.finish();
+
+    assertTrue(out.size() < contents.length / 2);
+    assertArrayEquals(contents, StreamUtils.getStreamBytes(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())), -1));
+  }
+
+  @Test
+  public void shouldWriteAnEmptyGzipStream() throws Exception
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new DeflatingOutputStream(out).finish();
+    assertEquals(0, StreamUtils.getStreamBytes(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())), -1).length);
+  }
+
+  @Test
+  public void shouldReturnDeflaterToThePoolAndKeepUnderlyingStreamOpen() throws Exception
+  {
+    ClosingAwareStream out = new ClosingAwareStream();
+    DeflatingOutputStream gzip = new DeflatingOutputStream(out);
+    int pooled = DeflatingOutputStream.getPooledDeflaters();
+    gzip.write("body".getBytes("UTF-8"));
+    gzip.finish();
+    gzip.finish();
+    assertEquals(pooled + 1, DeflatingOutputStream.getPooledDeflaters());
+    assertFalse(out.closed);
+  }
+
+  @Test
+  public void shouldReturnDeflaterToThePoolWhenTheHeaderCantBeWritten() throws Exception
+  {
+    new DeflatingOutputStream(new ByteArrayOutputStream()).finish();
+    int pooled = DeflatingOutputStream.getPooledDeflaters();
+    try
+    {
+      new DeflatingOutputStream(new FailingStream());
+      fail("Header write should have failed");
+    }
+    catch (IOException expected)
+    {
+      assertEquals(pooled, DeflatingOutputStream.getPooledDeflaters());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldNotAcceptWritesOnceFinished() throws Exception
+  {
+    DeflatingOutputStream gzip = new DeflatingOutputStream(new ByteArrayOutputStream());
+    gzip.finish();
+    gzip.write(1);
+  }
+
+  private static class ClosingAwareStream extends ByteArrayOutputStream
+  {
+    private boolean closed;
+
+    @Override
+    public void close()
+    {
+      closed = true;
+    }
+  }
+
+  private static class FailingStream extends OutputStream
+  {
+    @Override
+    public void write(int b) throws IOException
+    {
+      throw new IOException("Connection reset");
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package org.scribe.utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.junit.*;
+
+public class InflatingInputStreamTest
+{
+  private byte[] contents;
+
+  @Before
+  public void setup() throws Exception
+  {
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 2000; i++)
+    {
+      json.append("{\"id\":").append(i).append(",\"text\":\"status number ").append(i).append("\"},");
+    }
+    contents = json.toString().getBytes("UTF-8");
+  }
+
+  @Test
+  public void shouldDecodeGzip() throws Exception
+  {
+    assertArrayEquals(contents, read(InflatingInputStream.decode(new ByteArrayInputStream(gzip(contents)), "gzip")));
+    assertArrayEquals(contents, read(InflatingInputStream.decode(new ByteArrayInputStream(gzip(contents)), " X-GZIP ")));
+  }
+
+  @Test
+  public void shouldDecodeZlibWrappedAndRawDeflate() throws Exception
+  {
+    assertArrayEquals(contents, read(InflatingInputStream.decode(new ByteArrayInputStream(deflate(contents, false)), "deflate")));
+    assertArrayEquals(contents, read(InflatingInputStream.decode(new ByteArrayInputStream(deflate(contents, true)), "Deflate")));
+  }
+
+  @Test
+  public void shouldLeaveOtherEncodingsAlone()
+  {
+    InputStream plain = new ByteArrayInputStream(contents);
+    assertSame(plain, InflatingInputStream.decode(plain, null));
+    assertSame(plain, InflatingInputStream.decode(plain, "identity"));
+    assertSame(plain, InflatingInputStream.decode(plain, "br"));
+    assertNull(InflatingInputStream.decode(null, "gzip"));
+  }
+
+  @Test
+  public void shouldDecodeEmptyBodiesToNothing() throws Exception
+  {
+    InputStream empty = InflatingInputStream.decode(new ByteArrayInputStream(new byte[0]), "gzip");
+    assertEquals(-1, empty.read());
+  }
+
+  @Test
+  public void shouldReturnInflaterToThePoolOnceRead() throws Exception
+  {
+    InputStream first = InflatingInputStream.decode(new ByteArrayInputStream(gzip(contents)), "gzip");
+    read(first);
+    int pooled = InflatingInputStream.getPooledInflaters();
+    assertTrue(pooled > 0);
+    InputStream second = InflatingInputStream.decode(new ByteArrayInputStream(gzip(contents)), "gzip");
+    assertEquals(contents[0], second.read());
+    assertEquals(pooled - 1, InflatingInputStream.getPooledInflaters());
+    second.close();
+    assertEquals(pooled, InflatingInputStream.getPooledInflaters());
+  }
+
+  @Test
+  public void shouldSkipDecodedBytes() throws Exception
+  {
+    InputStream decoded = InflatingInputStream.decode(new ByteArrayInputStream(gzip(contents)), "gzip");
+    assertEquals(1000, decoded.skip(1000));
+    assertEquals(contents[1000], decoded.read());
+  }
+
+  @Test(expected = ZipException.class)
+  public void shouldFailOnCorruptChecksum() throws Exception
+  {
+    byte[] corrupt = gzip(contents);
+    corrupt[corrupt.length - 8] ^= 1;
+    read(InflatingInputStream.decode(new ByteArrayInputStream(corrupt), "gzip"));
+  }
+
+  @Test(expected = EOFException.class)
+  public void shouldFailOnTruncatedBody() throws Exception
+  {
+    byte[] compressed = gzip(contents);
+    read(InflatingInputStream.decode(new ByteArrayInputStream(Arrays.copyOf(compressed, compressed.length / 2)), "gzip"));
+  }
+
+  private static byte[] read(InputStream in) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[333];
+    int read;
+    while ((read = in.read(buffer)) != -1)
+    {
+      out.write(buffer, 0, read);
+    }
+    in.close();
+    return out.toByteArray();
+  }
+
+  private static byte[] gzip(byte[] plain) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GZIPOutputStream gzip = new GZIPOutputStream(out);
+    gzip.write(plain);
+    gzip.close();
+    return out.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] plain, boolean raw) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DeflaterOutputStream deflate = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, raw));
+    deflate.write(plain);
+    deflate.close();
+    return out.toByteArray();
+  }
+}
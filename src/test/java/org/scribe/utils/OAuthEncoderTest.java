@@ -1,5 +1,9 @@
 package org.scribe.utils;
 
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
 import org.junit.*;
 import static org.junit.Assert.*;
 
@@ -55,6 +59,72 @@ public class OAuthEncoderTest
     OAuthEncoder.decode(toDecode);
   }
 
+  @Test
+  public void shouldReturnSameInstanceWhenNothingNeedsEncoding()
+  {
+    String plain = "abcde123456-._~";
+    assertSame(plain, OAuthEncoder.encode(plain));
+  }
+
+  @Test
+  public void shouldPercentEncodeMultiByteCharactersAsUTF8()
+  {
+    assertEquals("%C3%B1and%C3%BA", OAuthEncoder.encode("ñandú"));
+    assertEquals("%E2%98%83", OAuthEncoder.encode("☃"));
+    assertEquals("%F0%9F%98%80", OAuthEncoder.encode("😀"));
+    assertEquals("%3Fa", OAuthEncoder.encode("\ud83da"));
+  }
+
+  @Test
+  public void shouldAppendToStringBuilder()
+  {
+    StringBuilder builder = new StringBuilder("key=");
+    assertSame(builder, OAuthEncoder.encode("a b&ñ", builder));
+    assertEquals("key=a%20b%26%C3%B1", builder.toString());
+  }
+
+  @Test
+  public void shouldWriteToOutputStream() throws Exception
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(26, OAuthEncoder.encode("a b&ñ😀", out));
+    assertEquals("a%20b%26%C3%B1%F0%9F%98%80", out.toString("US-ASCII"));
+  }
+
+  @Test
+  public void shouldComputeEncodedLength()
+  {
+    String[] samples = {"", "plain", "this is a test &^", "ñ☃😀", "\ud83d", "~*+"};
+    for (String sample : samples)
+    {
+      assertEquals(sample, OAuthEncoder.encode(sample).length(), OAuthEncoder.encodedLength(sample));
+    }
+  }
+
+  @Test
+  public void shouldMatchURLEncoderBasedEncoding() throws Exception
+  {
+    Random random = new Random(42);
+    for (int i = 0; i < 1000; i++)
+    {
+      StringBuilder plain = new StringBuilder();
+      int length = random.nextInt(20);
+      for (int j = 0; j < length; j++)
+      {
+        plain.append((char) (random.nextBoolean() ? 32 + random.nextInt(95) : random.nextInt(0xD800)));
+      }
+      String expected = URLEncoder.encode(plain.toString(), "UTF-8").replace("*", "%2A").replace("+", "%20").replace("%7E", "~");
+      assertEquals(expected, OAuthEncoder.encode(plain.toString()));
+    }
+  }
+
+  @Test
+  public void shouldReturnSameInstanceWhenNothingNeedsDecoding()
+  {
+    String encoded = "nothing-to_decode.~";
+    assertSame(encoded, OAuthEncoder.decode(encoded));
+  }
+
   @Test
   public void shouldPercentEncodeCorrectlyTwitterCodingExamples()
   {
@@ -2,6 +2,7 @@ package org.scribe.utils;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 
 import org.junit.Test;
 
@@ -19,6 +20,57 @@ public class StreamUtilsTest
     assertEquals("expected", decoded);
   }
   
+  @Test
+  public void shouldReadAllBytesWhateverTheHint() throws Exception
+  {
+    byte[] value = new byte[20000];
+    new java.util.Random(1).nextBytes(value);
+    for (int hint : new int[]{ -1, 0, 1, 8192, 20000, 50000 })
+    {
+      assertArrayEquals(value, StreamUtils.getStreamBytes(new ByteArrayInputStream(value), hint));
+    }
+    assertEquals(0, StreamUtils.getStreamBytes(new ByteArrayInputStream(new byte[0]), -1).length);
+  }
+
+  @Test
+  public void shouldNotTrustHugeHints() throws Exception
+  {
+    byte[] value = new byte[0x180000];
+    new java.util.Random(2).nextBytes(value);
+    assertArrayEquals(value, StreamUtils.getStreamBytes(new ByteArrayInputStream(value), Integer.MAX_VALUE));
+    assertEquals(3, StreamUtils.getStreamBytes(new ByteArrayInputStream(new byte[3]), Integer.MAX_VALUE).length);
+  }
+
+  @Test
+  public void shouldDecodeWithGivenCharset() throws Exception
+  {
+    InputStream is = new ByteArrayInputStream("\u00fcber".getBytes("ISO-8859-1"));
+    assertEquals("\u00fcber", StreamUtils.getStreamContents(is, Charset.forName("ISO-8859-1"), 4));
+  }
+
+  @Test
+  public void shouldDecodeLikeTheStringConstructorWithPooledDecoders() throws Exception
+  {
+    byte[][] inputs = {
+      "caf\u00e9 \u20ac \ud83d\ude00".getBytes("UTF-8"),
+      { 'a', (byte) 0xC3, '(', 'b' },
+      { 'a', (byte) 0xE2, (byte) 0x82 },
+      new byte[0]
+    };
+    for (String name : new String[]{ "UTF-8", "ISO-8859-1", "UTF-16" })
+    {
+      Charset charset = Charset.forName(name);
+      // twice, so the second round reuses the decoders released by the first
+      for (int round = 0; round < 2; round++)
+      {
+        for (byte[] input : inputs)
+        {
+          assertEquals(new String(input, charset), StreamUtils.decode(input, charset));
+        }
+      }
+    }
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void shouldFailForNullParameter()
   {